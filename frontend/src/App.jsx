@@ -36,7 +36,7 @@ function App() {
         updateMessages(messages);
     }, [updateMessages]);
 
-    const { messages, isLoading, error, sendMessage, clearChat, clearError } = useChat(
+    const { messages, isLoading, isStreaming, error, sendMessage, clearChat, clearError } = useChat(
         resolvedCollection,
         systemPrompt,
         activeConversation?.messages || [],
@@ -90,7 +90,7 @@ function App() {
                     />
                     <InputArea
                         onSendMessage={sendMessage}
-                        isLoading={isLoading}
+                        isLoading={isLoading || isStreaming}
                     />
                 </main>
             </div>
@@ -1,24 +1,75 @@
 const DEFAULT_LOGO = 'https://docs.dataminesoftware.com/Assets/Images/Datamine-Logo.png';
 
-export async function sendChatMessage(message, history, systemPrompt, collectionName) {
-    const response = await fetch('/api/chat', {
+/**
+ * Stream an answer from /api/chat/stream. Handlers are called as server-sent events arrive:
+ * onSources(sources) once retrieval finishes, onToken(text) per chunk of the answer and
+ * onFollowUps(questions) before the closing done event.
+ */
+export async function streamChatMessage(message, history, systemPrompt, collectionName, conversationId,
+                                        { signal, onSources, onToken, onFollowUps } = {}) {
+    const response = await fetch('/api/chat/stream', {
         method: 'POST',
         headers: {
-            'Content-Type': 'application/json'
+            'Content-Type': 'application/json',
+            'Accept': 'text/event-stream'
         },
         body: JSON.stringify({
             message,
-            history: history.slice(-10),
+            history,
             systemPrompt: systemPrompt || null,
-            collectionName: collectionName || null
-        })
+            collectionName: collectionName || null,
+            conversationId: conversationId || null
+        }),
+        signal
     });
 
     if (!response.ok) {
         throw new Error(`HTTP error! status: ${response.status}`);
     }
 
-    return response.json();
+    const handlers = {
+        sources: data => onSources?.(data.sources || []),
+        token: data => onToken?.(data.text),
+        followUps: data => onFollowUps?.(data.followUps || []),
+        error: data => { throw new Error(data.message || 'Streaming failed'); }
+    };
+
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    while (true) {
+        const { done, value } = await reader.read();
+        if (done) {
+            break;
+        }
+        buffer += decoder.decode(value, { stream: true });
+
+        // Events are separated by a blank line
+        let match;
+        while ((match = /\r?\n\r?\n/.exec(buffer)) !== null) {
+            const event = parseServerSentEvent(buffer.slice(0, match.index));
+            buffer = buffer.slice(match.index + match[0].length);
+            if (event && handlers[event.type]) {
+                handlers[event.type](event.data);
+            }
+        }
+    }
+}
+
+function parseServerSentEvent(raw) {
+    let type = 'message';
+    const dataLines = [];
+    for (const line of raw.split(/\r?\n/)) {
+        if (line.startsWith('event:')) {
+            type = line.slice(6).trim();
+        } else if (line.startsWith('data:')) {
+            dataLines.push(line.slice(5).replace(/^ /, ''));
+        }
+    }
+    if (dataLines.length === 0) {
+        return null;
+    }
+    return { type, data: JSON.parse(dataLines.join('\n')) };
 }
 
 export async function fetchCollectionMetadata(collectionName) {
@@ -1,32 +1,64 @@
 import { useState, useCallback, useEffect, useRef } from 'react';
-import { sendChatMessage } from '../api/chat';
+import { streamChatMessage } from '../api/chat';
 
 export function useChat(resolvedCollection, systemPrompt, initialMessages = [], conversationId, onMessagesChange) {
     const [messages, setMessages] = useState(initialMessages);
+    // isLoading covers the wait for the first token; isStreaming lasts until the stream ends
     const [isLoading, setIsLoading] = useState(false);
+    const [isStreaming, setIsStreaming] = useState(false);
     const [error, setError] = useState(null);
     const onMessagesChangeRef = useRef(onMessagesChange);
+    const messagesRef = useRef(messages);
+    const streamRef = useRef(null);
 
-    // Keep ref updated
+    // Keep refs updated
     useEffect(() => {
         onMessagesChangeRef.current = onMessagesChange;
     }, [onMessagesChange]);
 
+    useEffect(() => {
+        messagesRef.current = messages;
+    }, [messages]);
+
+    // Aborting the request also stops follow-up generation on the server
+    const stopStream = useCallback(() => {
+        if (streamRef.current) {
+            streamRef.current.abort();
+            streamRef.current = null;
+        }
+        setIsLoading(false);
+        setIsStreaming(false);
+    }, []);
+
     // Sync messages when conversation changes
     useEffect(() => {
+        stopStream();
         setMessages(initialMessages);
         setError(null);
     }, [conversationId]);
 
     const sendMessage = useCallback(async (content) => {
-        if (!content.trim() || isLoading) return;
+        if (!content.trim() || isLoading || isStreaming) return;
 
         const userMessage = { role: 'user', content };
         const updatedMessages = [...messages, userMessage];
         setMessages(updatedMessages);
         setIsLoading(true);
+        setIsStreaming(true);
         setError(null);
 
+        const controller = new AbortController();
+        streamRef.current = controller;
+
+        let assistantMessage = null;
+        let sources = [];
+        const showAssistantMessage = (changes) => {
+            assistantMessage = { role: 'assistant', content: '', sources, followUps: [], ...assistantMessage, ...changes };
+            const current = [...updatedMessages, assistantMessage];
+            messagesRef.current = current;
+            setMessages(current);
+        };
+
         try {
             const history = updatedMessages.map(m => ({
                 role: m.role,
@@ -34,42 +66,51 @@ export function useChat(resolvedCollection, systemPrompt, initialMessages = [],
             }));
 
             console.log('Sending chat message with collection:', resolvedCollection);
-            const data = await sendChatMessage(
-                content,
-                history,
-                systemPrompt,
-                resolvedCollection
-            );
-
-            const assistantMessage = {
-                role: 'assistant',
-                content: data.message,
-                sources: data.sources || [],
-                followUps: data.followUps || []
-            };
-
-            const finalMessages = [...updatedMessages, assistantMessage];
-            setMessages(finalMessages);
+            await streamChatMessage(content, history, systemPrompt, resolvedCollection, conversationId, {
+                signal: controller.signal,
+                onSources: (received) => {
+                    sources = received;
+                },
+                onToken: (text) => {
+                    setIsLoading(false);
+                    showAssistantMessage({ content: (assistantMessage?.content || '') + text });
+                },
+                onFollowUps: (followUps) => {
+                    showAssistantMessage({ followUps });
+                }
+            });
+
+            if (!assistantMessage) {
+                showAssistantMessage({});
+            }
 
             // Save only after complete exchange
             if (onMessagesChangeRef.current) {
-                onMessagesChangeRef.current(finalMessages);
+                onMessagesChangeRef.current(messagesRef.current);
             }
         } catch (err) {
+            if (err.name === 'AbortError') {
+                return;
+            }
             console.error('Error:', err);
             setError('Failed to get response. Please check that the server is running and try again.');
         } finally {
-            setIsLoading(false);
+            if (streamRef.current === controller) {
+                streamRef.current = null;
+                setIsLoading(false);
+                setIsStreaming(false);
+            }
         }
-    }, [messages, isLoading, resolvedCollection, systemPrompt]);
+    }, [messages, isLoading, isStreaming, resolvedCollection, systemPrompt, conversationId]);
 
     const clearChat = useCallback(() => {
+        stopStream();
         setMessages([]);
         setError(null);
         if (onMessagesChangeRef.current) {
             onMessagesChangeRef.current([]);
         }
-    }, []);
+    }, [stopStream]);
 
     const clearError = useCallback(() => {
         setError(null);
@@ -78,6 +119,7 @@ export function useChat(resolvedCollection, systemPrompt, initialMessages = [],
     return {
         messages,
         isLoading,
+        isStreaming,
         error,
         sendMessage,
         clearChat,
@@ -2,36 +2,38 @@ package com.chatbot.cli;
 
 import com.chatbot.model.DocumentInfo;
 import com.chatbot.model.LoadResult;
+import com.chatbot.service.BlueGreenLoadService;
+import com.chatbot.service.ChunkEmbeddingStore;
 import com.chatbot.service.CollectionMetadataService;
 import com.chatbot.service.DocumentService;
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
 import org.springframework.shell.standard.ShellOption;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 @ShellComponent
 public class DocumentLoaderCommand {
 
     private final DocumentService documentService;
     private final CollectionMetadataService collectionMetadataService;
+    private final BlueGreenLoadService blueGreenLoadService;
+    private final ChunkEmbeddingStore embeddingStore;
 
-    public DocumentLoaderCommand(DocumentService documentService, CollectionMetadataService collectionMetadataService) {
+    public DocumentLoaderCommand(DocumentService documentService, CollectionMetadataService collectionMetadataService,
+                                 BlueGreenLoadService blueGreenLoadService, ChunkEmbeddingStore embeddingStore) {
         this.documentService = documentService;
         this.collectionMetadataService = collectionMetadataService;
+        this.blueGreenLoadService = blueGreenLoadService;
+        this.embeddingStore = embeddingStore;
     }
 
     @ShellMethod(key = "load-docs", value = "Load HTML documents from a directory into a vector store collection")
@@ -39,7 +41,17 @@ public class DocumentLoaderCommand {
             @ShellOption(help = "Path to directory containing HTML files") String path,
             @ShellOption(help = "Name of the ChromaDB collection to store documents") String collectionName,
             @ShellOption(help = "Display title for this collection", defaultValue = ShellOption.NULL) String title,
-            @ShellOption(help = "URL path to logo image for this collection", defaultValue = ShellOption.NULL) String logo) {
+            @ShellOption(help = "URL path to logo image for this collection", defaultValue = ShellOption.NULL) String logo,
+            @ShellOption(help = "Only re-embed files added, changed or removed since the last load",
+                    defaultValue = "false") boolean incremental,
+            @ShellOption(help = "Load into a new version of the collection and switch to it once it validates",
+                    defaultValue = "false") boolean blueGreen) {
+        if (incremental && blueGreen) {
+            return "Error: --incremental and --blue-green cannot be combined.";
+        }
+        if (!DocumentService.isValidCollectionName(collectionName)) {
+            return "Error: invalid collection name '" + collectionName + "'. Use letters, digits, '.', '_' and '-'.";
+        }
 
         System.out.println("Clearing existing documents...");
         documentService.clearDocuments();
@@ -56,7 +68,7 @@ public class DocumentLoaderCommand {
         }
         System.out.println("This may take a while depending on the number and size of files...\n");
 
-        LoadResult result = documentService.loadDocumentsFromDirectory(path, collectionName);
+        LoadResult result = load(path, collectionName, incremental, blueGreen);
 
         StringBuilder output = new StringBuilder();
         output.append("\n=== Document Loading Complete ===\n");
@@ -70,6 +82,7 @@ public class DocumentLoaderCommand {
         output.append(String.format("Files processed: %d\n", result.getFilesProcessed()));
         output.append(String.format("Chunks created:  %d\n", result.getChunksCreated()));
         output.append(String.format("Errors:          %d\n", result.getErrors()));
+        appendDetails(output, result);
         output.append(String.format("\n%s\n", result.getMessage()));
 
         return output.toString();
@@ -80,10 +93,17 @@ public class DocumentLoaderCommand {
             @ShellOption(help = "URL to a ZIP file containing HTML files") String url,
             @ShellOption(help = "Name of the ChromaDB collection to store documents") String collectionName,
             @ShellOption(help = "Display title for this collection", defaultValue = ShellOption.NULL) String title,
-            @ShellOption(help = "URL path to logo image for this collection", defaultValue = ShellOption.NULL) String logo) {
-
-        Path tempDir = null;
-        Path zipFile = null;
+            @ShellOption(help = "URL path to logo image for this collection", defaultValue = ShellOption.NULL) String logo,
+            @ShellOption(help = "Only re-embed files added, changed or removed since the last load",
+                    defaultValue = "false") boolean incremental,
+            @ShellOption(help = "Load into a new version of the collection and switch to it once it validates",
+                    defaultValue = "false") boolean blueGreen) {
+        if (incremental && blueGreen) {
+            return "Error: --incremental and --blue-green cannot be combined.";
+        }
+        if (!DocumentService.isValidCollectionName(collectionName)) {
+            return "Error: invalid collection name '" + collectionName + "'. Use letters, digits, '.', '_' and '-'.";
+        }
 
         try {
             System.out.println("Downloading ZIP file from: " + url);
@@ -97,10 +117,6 @@ public class DocumentLoaderCommand {
                 collectionMetadataService.setLogo(collectionName, logo);
             }
 
-            // Create temporary directory and file
-            tempDir = Files.createTempDirectory("rag-docs-");
-            zipFile = tempDir.resolve("documents.zip");
-
             // Download the ZIP file
             HttpClient client = HttpClient.newBuilder()
                     .followRedirects(HttpClient.Redirect.NORMAL)
@@ -117,34 +133,18 @@ public class DocumentLoaderCommand {
                 return "Error: Failed to download ZIP file. HTTP status: " + response.statusCode();
             }
 
-            // Save to file
-            try (InputStream in = response.body();
-                 FileOutputStream out = new FileOutputStream(zipFile.toFile())) {
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                long totalBytes = 0;
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                    totalBytes += bytesRead;
-                }
-                System.out.println("Downloaded " + (totalBytes / 1024) + " KB");
-            }
-
-            // Extract ZIP file
-            Path extractDir = tempDir.resolve("extracted");
-            Files.createDirectories(extractDir);
-
-            System.out.println("Extracting ZIP file...");
-            extractZip(zipFile, extractDir);
-
-            // Load documents from extracted directory
             System.out.println("Clearing existing documents...");
             documentService.clearDocuments();
 
-            System.out.println("Loading documents from extracted files...");
+            // Entries are parsed and embedded while the rest of the archive downloads
+            System.out.println("Loading documents as the ZIP file downloads...");
             System.out.println("This may take a while depending on the number and size of files...\n");
 
-            LoadResult result = documentService.loadDocumentsFromDirectory(extractDir.toString(), collectionName);
+            LoadResult result;
+            try (CountingInputStream in = new CountingInputStream(response.body())) {
+                result = loadZip(in, collectionName, incremental, blueGreen);
+                System.out.println("Downloaded " + (in.count() / 1024) + " KB");
+            }
 
             StringBuilder output = new StringBuilder();
             output.append("\n=== Document Loading Complete ===\n");
@@ -158,52 +158,13 @@ public class DocumentLoaderCommand {
             output.append(String.format("Files processed: %d\n", result.getFilesProcessed()));
             output.append(String.format("Chunks created:  %d\n", result.getChunksCreated()));
             output.append(String.format("Errors:          %d\n", result.getErrors()));
+            appendDetails(output, result);
             output.append(String.format("\n%s\n", result.getMessage()));
 
             return output.toString();
 
         } catch (Exception e) {
             return "Error loading documents from URL: " + e.getMessage();
-        } finally {
-            // Cleanup temporary files
-            if (tempDir != null) {
-                try {
-                    deleteDirectory(tempDir);
-                } catch (IOException e) {
-                    System.err.println("Warning: Failed to cleanup temporary directory: " + e.getMessage());
-                }
-            }
-        }
-    }
-
-    private void extractZip(Path zipFile, Path destDir) throws IOException {
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipFile))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                Path targetPath = destDir.resolve(entry.getName()).normalize();
-
-                // Security check: prevent zip slip vulnerability
-                if (!targetPath.startsWith(destDir)) {
-                    throw new IOException("Invalid ZIP entry: " + entry.getName());
-                }
-
-                if (entry.isDirectory()) {
-                    Files.createDirectories(targetPath);
-                } else {
-                    Files.createDirectories(targetPath.getParent());
-                    Files.copy(zis, targetPath);
-                }
-                zis.closeEntry();
-            }
-        }
-    }
-
-    private void deleteDirectory(Path dir) throws IOException {
-        if (Files.exists(dir)) {
-            Files.walk(dir)
-                    .sorted(Comparator.reverseOrder())
-                    .map(Path::toFile)
-                    .forEach(File::delete);
         }
     }
 
@@ -233,6 +194,28 @@ public class DocumentLoaderCommand {
         return output.toString();
     }
 
+    @ShellMethod(key = "rollback-collection", value = "Point a blue/green loaded collection back at its previous version")
+    public String rollbackCollection(
+            @ShellOption(help = "Name of the collection loaded with --blue-green") String collectionName) {
+        try {
+            String target = blueGreenLoadService.rollback(collectionName);
+            return String.format("Rolled back: '%s' -> '%s'", collectionName, target);
+        } catch (IllegalStateException e) {
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    @ShellMethod(key = "compact-embedding-store", value = "Rewrite the chunk embedding store without superseded records")
+    public String compactEmbeddingStore() {
+        if (!embeddingStore.isEnabled()) {
+            return "The embedding store is disabled (rag.embedding-store.enabled).";
+        }
+        ChunkEmbeddingStore.CompactionResult result = embeddingStore.compact();
+        return String.format("Embedding store compacted: %d -> %d records, %d KB -> %d KB",
+                result.recordsBefore(), result.recordsAfter(),
+                result.bytesBefore() / 1024, result.bytesAfter() / 1024);
+    }
+
     @ShellMethod(key = "set-title", value = "Set the display title for a collection")
     public String setTitle(
             @ShellOption(help = "Name of the collection") String collectionName,
@@ -264,6 +247,29 @@ public class DocumentLoaderCommand {
         return String.format("Alias '%s' removed", aliasName);
     }
 
+    @ShellMethod(key = "set-group", value = "Create a collection group that is searched as one collection")
+    public String setGroup(
+            @ShellOption(help = "Name of the group (e.g., cclas-all)") String groupName,
+            @ShellOption(help = "Member collections, comma-separated") String collections) {
+        List<String> members = Arrays.stream(collections.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+        if (members.isEmpty()) {
+            return "A group needs at least one member collection.";
+        }
+        collectionMetadataService.setGroup(groupName, members);
+        return String.format("Group set: '%s' -> %s", groupName, members);
+    }
+
+    @ShellMethod(key = "remove-group", value = "Remove a collection group")
+    public String removeGroup(
+            @ShellOption(help = "Name of the group to remove") String groupName) {
+        collectionMetadataService.removeGroup(groupName);
+        return String.format("Group '%s' removed", groupName);
+    }
+
     @ShellMethod(key = "clear-docs", value = "Clear the document registry")
     public String clearDocuments() {
         documentService.clearDocuments();
@@ -276,17 +282,30 @@ public class DocumentLoaderCommand {
 
                 === Datamine Help CLI Commands ===
 
-                load-docs <path> <collection> [--title <title>] [--logo <url>]
+                load-docs <path> <collection> [--title <title>] [--logo <url>] [--incremental] [--blue-green]
                     Load HTML documents from a directory into a ChromaDB collection.
                     Recursively finds all .html and .htm files.
                     Optional --title sets the display title for the frontend header.
                     Optional --logo sets the logo image URL for the frontend header.
+                    Optional --incremental only re-embeds files changed since the last load.
+                    Optional --blue-green loads into a new version (<collection>__v<n>)
+                    while the current one keeps serving, and switches to it only if
+                    it validates. The previous version is kept for rollback-collection.
 
-                load-docs-url <url> <collection> [--title <title>] [--logo <url>]
+                load-docs-url <url> <collection> [--title <title>] [--logo <url>] [--incremental] [--blue-green]
                     Download a ZIP file from URL and load documents into a collection.
-                    Downloads, extracts, and processes HTML files.
+                    HTML entries are parsed and embedded while the rest downloads.
                     Optional --title sets the display title for the frontend header.
                     Optional --logo sets the logo image URL for the frontend header.
+                    --incremental and --blue-green work as for load-docs.
+
+                rollback-collection <collection>
+                    Point a collection loaded with --blue-green back at the version
+                    it served before its last load.
+
+                compact-embedding-store
+                    Rewrite the store of chunk embeddings reused across loads, dropping
+                    embeddings made with other embedding models and duplicate records.
 
                 set-title <collection> <title>
                     Set the display title for a collection's frontend header.
@@ -301,17 +320,34 @@ public class DocumentLoaderCommand {
                 remove-alias <alias>
                     Remove a collection alias.
 
+                set-group <group> <collection1,collection2,...>
+                    Create a group whose member collections are searched together.
+                    Chatting with the group searches all members in parallel.
+
+                remove-group <group>
+                    Remove a collection group.
+
                 list-docs
                     List all loaded documents with chunk counts.
 
                 clear-docs
                     Clear the document registry (memory only).
 
+                benchmark-vector-search <collection> [--types exact,hnsw,chroma] [--queries "q1;q2"]
+                    Compare search latency and recall@k of the vector store types.
+                    The collection must have been loaded into each store being compared.
+
+                quantization-report [--collection-name <collection>] [--k 5]
+                    Show memory saved and recall@k lost with float16 and int8 vectors
+                    for each embedded collection.
+
                 Examples:
                   load-docs ./docs my-collection
                   load-docs ./docs my-collection --title "My Product Help"
                   load-docs ./docs my-collection --title "Help" --logo "https://example.com/logo.png"
                   load-docs-url https://example.com/docs.zip product-docs --title "Product Docs"
+                  load-docs ./docs my-collection --blue-green
+                  rollback-collection my-collection
                   set-title my-collection "My Product Documentation"
                   set-logo my-collection "https://example.com/logo.png"
                   set-alias cclas-latest cclas-2025-r2
@@ -327,4 +363,76 @@ public class DocumentLoaderCommand {
         if (str.length() <= maxLength) return str;
         return str.substring(0, maxLength - 3) + "...";
     }
+
+    private LoadResult load(String path, String collectionName, boolean incremental, boolean blueGreen) {
+        if (!blueGreen) {
+            return documentService.loadDocumentsFromDirectory(path, collectionName, incremental);
+        }
+        try {
+            return blueGreenLoadService.load(path, collectionName);
+        } catch (IllegalStateException e) {
+            return LoadResult.builder().message(e.getMessage()).errors(1).build();
+        }
+    }
+
+    private LoadResult loadZip(InputStream zip, String collectionName, boolean incremental, boolean blueGreen) {
+        if (!blueGreen) {
+            return documentService.loadDocumentsFromZip(zip, collectionName, incremental);
+        }
+        try {
+            return blueGreenLoadService.loadZip(zip, collectionName);
+        } catch (IllegalStateException e) {
+            return LoadResult.builder().message(e.getMessage()).errors(1).build();
+        }
+    }
+
+    /**
+     * Counts the bytes read through it, to report the download size.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    private static void appendDetails(StringBuilder output, LoadResult result) {
+        if (result.isIncremental()) {
+            output.append(String.format("Unchanged:       %d files skipped\n", result.getFilesUnchanged()));
+            output.append(String.format("Added/changed:   %d/%d files\n", result.getFilesAdded(), result.getFilesChanged()));
+            output.append(String.format("Removed:         %d files (%d chunks)\n",
+                    result.getFilesRemoved(), result.getChunksRemoved()));
+        }
+        if (result.getStages().isEmpty()) {
+            return;
+        }
+        output.append("\nStage      Items        Busy      Throughput\n");
+        for (LoadResult.StageThroughput stage : result.getStages()) {
+            output.append(String.format("%-8s %7d %-6s %7.1fs %9.1f %s/s\n", stage.stage(), stage.items(),
+                    stage.unit(), stage.busyMs() / 1000.0, stage.itemsPerSecond(), stage.unit()));
+        }
+    }
 }
@@ -0,0 +1,271 @@
+package com.chatbot.cli;
+
+import com.chatbot.config.ChromaVectorStoreFactory;
+import com.chatbot.config.RagConfig;
+import com.chatbot.search.MaximalMarginalRelevance;
+import com.chatbot.search.RankFusion;
+import com.chatbot.util.VectorMath;
+import com.chatbot.vectorstore.EmbeddedVectorStore;
+import com.chatbot.vectorstore.QuantizationReport;
+import com.chatbot.vectorstore.VectorEncoding;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+@ShellComponent
+public class VectorStoreBenchmarkCommand {
+
+    private static final String DEFAULT_QUERIES = String.join(";",
+            "How do I create a new sample?",
+            "How do I configure user permissions?",
+            "What is a test schedule?",
+            "How do I print a certificate of analysis?",
+            "How do I import instrument results?");
+
+    private final ChromaVectorStoreFactory vectorStoreFactory;
+    private final RagConfig ragConfig;
+
+    public VectorStoreBenchmarkCommand(ChromaVectorStoreFactory vectorStoreFactory, RagConfig ragConfig) {
+        this.vectorStoreFactory = vectorStoreFactory;
+        this.ragConfig = ragConfig;
+    }
+
+    @ShellMethod(key = "benchmark-vector-search", value = "Compare search latency and recall of the vector store types for a collection")
+    public String benchmark(
+            @ShellOption(help = "Name of the collection") String collectionName,
+            @ShellOption(help = "Store types to compare, comma-separated", defaultValue = "exact,hnsw,chroma") String types,
+            @ShellOption(help = "Queries separated by ';'", defaultValue = ShellOption.NULL) String queries,
+            @ShellOption(help = "Results per query", defaultValue = "5") int topK,
+            @ShellOption(help = "Timed passes over the queries", defaultValue = "20") int iterations) {
+
+        iterations = Math.max(1, iterations);
+        List<String> queryList = Arrays.stream((queries != null ? queries : DEFAULT_QUERIES).split(";"))
+                .map(String::trim)
+                .filter(q -> !q.isEmpty())
+                .toList();
+
+        List<RagConfig.VectorStoreType> storeTypes;
+        try {
+            storeTypes = Arrays.stream(types.split(","))
+                    .map(type -> RagConfig.VectorStoreType.valueOf(type.trim().toUpperCase()))
+                    .toList();
+        } catch (IllegalArgumentException e) {
+            return "Unknown store type in '" + types + "'. Use exact, hnsw or chroma.";
+        }
+
+        Map<RagConfig.VectorStoreType, VectorStore> stores = new LinkedHashMap<>();
+        StringBuilder output = new StringBuilder();
+        output.append("\n=== Vector Search Benchmark ===\n");
+        output.append(String.format("Collection: %s, %d queries, top %d, %d iterations\n\n",
+                collectionName, queryList.size(), topK, iterations));
+        output.append(String.format("%-8s %10s %10s %10s %12s\n", "STORE", "MEAN ms", "P50 ms", "P95 ms", "RECALL@K"));
+        output.append("-".repeat(54)).append("\n");
+
+        try {
+            for (RagConfig.VectorStoreType storeType : storeTypes) {
+                stores.put(storeType, vectorStoreFactory.openForReading(collectionName, storeType));
+            }
+
+            // Exact search is the ground truth for recall when it is part of the comparison
+            Map<String, Set<String>> truth = new LinkedHashMap<>();
+            VectorStore exact = stores.get(RagConfig.VectorStoreType.EXACT);
+            if (exact != null) {
+                for (String query : queryList) {
+                    truth.put(query, chunkKeys(exact.similaritySearch(SearchRequest.query(query).withTopK(topK))));
+                }
+            }
+
+            for (Map.Entry<RagConfig.VectorStoreType, VectorStore> entry : stores.entrySet()) {
+                output.append(run(entry.getKey(), entry.getValue(), queryList, topK, iterations, truth));
+            }
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        } finally {
+            stores.values().forEach(vectorStoreFactory::release);
+        }
+
+        output.append("\nLatency excludes query embedding, which is cached after the warm-up pass.\n");
+        return output.toString();
+    }
+
+    private String run(RagConfig.VectorStoreType type, VectorStore store, List<String> queries,
+                       int topK, int iterations, Map<String, Set<String>> truth) {
+        // Warm-up pass fills the query embedding cache and the page cache
+        boolean empty = true;
+        for (String query : queries) {
+            empty &= store.similaritySearch(SearchRequest.query(query).withTopK(topK)).isEmpty();
+        }
+        if (empty) {
+            return String.format("%-8s %s\n", type, "no results (collection not loaded into this store?)");
+        }
+
+        long[] nanos = new long[queries.size() * iterations];
+        int n = 0;
+        double recall = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (String query : queries) {
+                long start = System.nanoTime();
+                List<Document> results = store.similaritySearch(SearchRequest.query(query).withTopK(topK));
+                nanos[n++] = System.nanoTime() - start;
+                if (i == 0 && !truth.isEmpty()) {
+                    Set<String> found = chunkKeys(results);
+                    found.retainAll(truth.get(query));
+                    recall += (double) found.size() / Math.max(1, truth.get(query).size());
+                }
+            }
+        }
+
+        Arrays.sort(nanos);
+        double mean = Arrays.stream(nanos).average().orElse(0) / 1_000_000.0;
+        return String.format("%-8s %10.3f %10.3f %10.3f %12s\n", type, mean,
+                nanos[nanos.length / 2] / 1_000_000.0,
+                nanos[(int) (nanos.length * 0.95)] / 1_000_000.0,
+                truth.isEmpty() ? "n/a" : String.format("%.3f", recall / queries.size()));
+    }
+
+    @ShellMethod(key = "quantization-report", value = "Report memory saved and recall@k lost by quantizing each embedded collection")
+    public String quantizationReport(
+            @ShellOption(help = "Name of the collection (default: all embedded collections)", defaultValue = ShellOption.NULL) String collectionName,
+            @ShellOption(help = "Neighbors compared per query", defaultValue = "5") int k,
+            @ShellOption(help = "Chunks used as sample queries", defaultValue = "200") int samples,
+            @ShellOption(help = "Candidates rescored per result", defaultValue = "4") int rescoreMultiplier) {
+
+        List<String> collections = collectionName != null
+                ? List.of(collectionName)
+                : vectorStoreFactory.getEmbeddedCollections();
+        if (collections.isEmpty()) {
+            return "No embedded vector stores found. Set rag.vector-stores to hnsw or exact and load a collection.";
+        }
+
+        StringBuilder output = new StringBuilder();
+        output.append("\n=== Quantization Report ===\n");
+        output.append(String.format("%-24s %-8s %8s %10s %10s %11s %10s %10s %10s\n",
+                "COLLECTION", "ENCODING", "VECTORS", "FP32 MB", "CODES MB", "RESIDENT MB", "SCAN SAVED",
+                "RECALL@" + k, "RESCORED"));
+        output.append("-".repeat(108)).append("\n");
+
+        for (String collection : collections) {
+            // The live store when it is embedded, otherwise a read-only view of the files
+            RagConfig.VectorStoreType type = ragConfig.getVectorStores().typeFor(collection);
+            VectorStore store;
+            try {
+                store = vectorStoreFactory.openForReading(collection,
+                        type == RagConfig.VectorStoreType.CHROMA ? RagConfig.VectorStoreType.EXACT : type);
+            } catch (IllegalArgumentException e) {
+                output.append(String.format("%-24s %s\n", truncate(collection, 24), e.getMessage()));
+                continue;
+            }
+            try {
+                for (VectorEncoding encoding : List.of(VectorEncoding.FLOAT16, VectorEncoding.INT8)) {
+                    QuantizationReport report = QuantizationReport.evaluate(
+                            (EmbeddedVectorStore) store, encoding, k, samples, rescoreMultiplier);
+                    output.append(String.format("%-24s %-8s %8d %10.1f %10.1f %11.1f %9.0f%% %10.3f %10.3f\n",
+                            truncate(collection, 24), encoding, report.vectors(),
+                            report.float32Bytes() / 1_048_576.0, report.encodedBytes() / 1_048_576.0,
+                            report.residentBytes() / 1_048_576.0, report.scanSavedFraction() * 100,
+                            report.recallAtK(), report.rescoredRecallAtK()));
+                }
+            } finally {
+                vectorStoreFactory.release(store);
+            }
+        }
+
+        output.append("\nThe float32 file stays mapped for rescoring, so RESIDENT counts both copies; quantization\n");
+        output.append("cuts the bytes each search scans (SCAN SAVED), not the total held.\n");
+        output.append("Set rag.vector-stores.quantization.collections.<name> to float16 or int8 to apply.\n");
+        return output.toString();
+    }
+
+    @ShellMethod(key = "benchmark-mmr", value = "Measure the cost of MMR reranking on synthetic candidates")
+    public String benchmarkMmr(
+            @ShellOption(help = "Result counts to test, comma-separated", defaultValue = "3,5,10") String topKs,
+            @ShellOption(help = "Candidates fetched per result", defaultValue = "4") int fetchFactor,
+            @ShellOption(help = "Embedding dimensions", defaultValue = "1536") int dimensions,
+            @ShellOption(help = "Timed reranks per result count", defaultValue = "2000") int iterations,
+            @ShellOption(help = "MMR lambda", defaultValue = "0.7") double lambda) {
+
+        iterations = Math.max(1, iterations);
+        Random random = new Random(42);
+        float[] query = randomUnitVector(random, dimensions);
+
+        StringBuilder output = new StringBuilder();
+        output.append("\n=== MMR Rerank Benchmark ===\n");
+        output.append(String.format("%d dimensions, %d iterations, lambda %.2f\n\n", dimensions, iterations, lambda));
+        output.append(String.format("%-6s %10s %10s %10s %10s\n", "K", "CANDIDATES", "MEAN us", "P50 us", "P99 us"));
+        output.append("-".repeat(50)).append("\n");
+
+        for (String value : topKs.split(",")) {
+            int topK = Integer.parseInt(value.trim());
+            int candidateCount = topK * Math.max(1, fetchFactor);
+            // Groups of four near-duplicates, like overlapping chunks of one page
+            List<Document> candidates = new ArrayList<>(candidateCount);
+            float[] base = null;
+            for (int i = 0; i < candidateCount; i++) {
+                if (i % 4 == 0) {
+                    base = randomUnitVector(random, dimensions);
+                }
+                float[] vector = base.clone();
+                for (int d = 0; d < dimensions; d++) {
+                    vector[d] += (float) (random.nextGaussian() * 0.01);
+                }
+                Map<String, Object> metadata = new HashMap<>();
+                metadata.put("distance", 1.0 - VectorMath.dot(query, VectorMath.normalize(vector)));
+                Document document = new Document("Candidate " + i, metadata);
+                document.setEmbedding(VectorMath.toDoubleList(vector));
+                candidates.add(document);
+            }
+
+            // Warm up the JIT before timing
+            for (int i = 0; i < Math.min(iterations, 500); i++) {
+                MaximalMarginalRelevance.select(query, candidates, topK, lambda);
+            }
+            long[] nanos = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                MaximalMarginalRelevance.select(query, candidates, topK, lambda);
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            output.append(String.format("%-6d %10d %10.1f %10.1f %10.1f\n", topK, candidateCount,
+                    Arrays.stream(nanos).average().orElse(0) / 1000.0,
+                    nanos[nanos.length / 2] / 1000.0,
+                    nanos[Math.min(nanos.length - 1, (int) (nanos.length * 0.99))] / 1000.0));
+        }
+
+        output.append("\nTimes include converting candidate embeddings from the List<Double> the vector stores return.\n");
+        return output.toString();
+    }
+
+    private static float[] randomUnitVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return VectorMath.normalize(vector);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength - 3) + "...";
+    }
+
+    private static Set<String> chunkKeys(List<Document> documents) {
+        Set<String> keys = new HashSet<>();
+        for (Document document : documents) {
+            keys.add(RankFusion.chunkKey(document));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,229 @@
+package com.chatbot.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EmbeddingModel decorator that merges single-text embedding calls from concurrent requests
+ * into one batched call to the delegate. A batch is sent once it holds {@code maxBatchSize}
+ * texts or {@code windowMillis} after its first text arrived. While {@code maxConcurrentBatches}
+ * calls are in flight, new texts queue up and go out together in the next batch. Multi-text
+ * calls, as made during ingestion, are already batched and pass straight through. A caller
+ * waits at most {@code timeoutMillis} for its batch, so a stuck batcher cannot pin request threads.
+ */
+public class BatchingEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingEmbeddingModel.class);
+
+    private record Pending(String text, CompletableFuture<List<Double>> result, long enqueuedNanos) {}
+
+    private final EmbeddingModel delegate;
+    private final RagConfig.EmbeddingBatch config;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Semaphore inFlight;
+    private final ExecutorService senders;
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong texts = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private final AtomicLong queueNanos = new AtomicLong();
+    private final AtomicLong callNanos = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public BatchingEmbeddingModel(EmbeddingModel delegate, RagConfig.EmbeddingBatch config) {
+        this.delegate = delegate;
+        this.config = config;
+        int maxConcurrent = Math.max(1, config.getMaxConcurrentBatches());
+        this.inFlight = new Semaphore(maxConcurrent);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public List<Double> embed(String text) {
+        if (closed) {
+            return delegate.embed(text);
+        }
+        Pending pending = new Pending(text, new CompletableFuture<>(), System.nanoTime());
+        queue.add(pending);
+        // close() may have drained the queue between the check above and the add
+        if (closed && queue.remove(pending)) {
+            return delegate.embed(text);
+        }
+        try {
+            return pending.result().get(config.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            queue.remove(pending);
+            throw new IllegalStateException("No batched embedding within " + config.getTimeoutMillis() + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(pending);
+            throw new IllegalStateException("Interrupted while waiting for a batched embedding", e);
+        }
+    }
+
+    private void dispatchLoop() {
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(config.getWindowMillis());
+        int maxBatchSize = Math.max(1, config.getMaxBatchSize());
+        while (!closed) {
+            List<Pending> batch = new ArrayList<>();
+            boolean acquired = false;
+            try {
+                inFlight.acquire();
+                acquired = true;
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    // Once the window has passed, still take whatever is already waiting
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                acquired = false;
+                try {
+                    senders.execute(() -> {
+                        try {
+                            send(batch);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    batch.forEach(pending -> pending.result().completeExceptionally(e));
+                }
+            } catch (InterruptedException e) {
+                // close() interrupts a window being collected; its callers must not wait forever
+                if (acquired) {
+                    inFlight.release();
+                }
+                IllegalStateException closedError = new IllegalStateException("Embedding batcher closed");
+                batch.forEach(pending -> pending.result().completeExceptionally(closedError));
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        long start = System.nanoTime();
+        // Concurrent requests often ask the same question; embed each text once
+        Map<String, List<Pending>> byText = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            queueNanos.addAndGet(start - pending.enqueuedNanos());
+            byText.computeIfAbsent(pending.text(), k -> new ArrayList<>()).add(pending);
+        }
+        List<String> distinctTexts = new ArrayList<>(byText.keySet());
+        try {
+            List<List<Double>> embeddings = distinctTexts.size() == 1
+                    ? List.of(delegate.embed(distinctTexts.get(0)))
+                    : delegate.embed(distinctTexts);
+            for (int i = 0; i < distinctTexts.size(); i++) {
+                List<Double> embedding = embeddings.get(i);
+                byText.get(distinctTexts.get(i)).forEach(pending -> pending.result().complete(embedding));
+            }
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            log.warn("Batched embedding call for {} texts failed: {}", distinctTexts.size(), e.getMessage());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        } finally {
+            callNanos.addAndGet(System.nanoTime() - start);
+            batches.incrementAndGet();
+            texts.addAndGet(batch.size());
+            duplicates.addAndGet(batch.size() - distinctTexts.size());
+            largestBatch.accumulateAndGet(batch.size(), Math::max);
+        }
+    }
+
+    @Override
+    public List<List<Double>> embed(List<String> texts) {
+        return delegate.embed(texts);
+    }
+
+    @Override
+    public List<Double> embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public EmbeddingResponse embedForResponse(List<String> texts) {
+        return delegate.embedForResponse(texts);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public Map<String, Object> getStats() {
+        long batchCount = batches.get();
+        long textCount = texts.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", batchCount);
+        stats.put("texts", textCount);
+        stats.put("duplicateTexts", duplicates.get());
+        stats.put("meanBatchSize", batchCount > 0 ? (double) textCount / batchCount : 0.0);
+        stats.put("largestBatch", largestBatch.get());
+        stats.put("meanQueueWaitMs", textCount > 0 ? queueNanos.get() / 1_000_000.0 / textCount : 0.0);
+        stats.put("meanCallMs", batchCount > 0 ? callNanos.get() / 1_000_000.0 / batchCount : 0.0);
+        stats.put("failures", failures.get());
+        stats.put("queued", queue.size());
+        return stats;
+    }
+
+    /**
+     * Stop dispatching; texts still queued or being batched fail and later calls go straight to the delegate.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("Embedding batcher closed"));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.chatbot.config;
+
+import com.chatbot.util.VectorMath;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * EmbeddingModel decorator that answers query embeddings from the {@link QueryEmbeddingCache}.
+ * Document embeddings made during ingestion pass straight through to the delegate, unless
+ * the document already carries one.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final QueryEmbeddingCache cache;
+    private final Map<String, List<Double>> pinned = new ConcurrentHashMap<>();
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, QueryEmbeddingCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    /**
+     * Run a call with {@link #embed(String)} answering {@code text} from an embedding made
+     * beforehand, even with the cache off, e.g. so a hedged store query does not embed again.
+     */
+    public <T> T withEmbedding(String text, List<Double> embedding, Supplier<T> call) {
+        String key = QueryEmbeddingCache.normalize(text);
+        pinned.put(key, embedding);
+        try {
+            return call.get();
+        } finally {
+            pinned.remove(key, embedding);
+        }
+    }
+
+    @Override
+    public List<Double> embed(String text) {
+        List<Double> pinnedEmbedding = pinned.isEmpty() ? null : pinned.get(QueryEmbeddingCache.normalize(text));
+        if (pinnedEmbedding != null) {
+            return pinnedEmbedding;
+        }
+        if (!cache.isEnabled()) {
+            return delegate.embed(text);
+        }
+        String key = QueryEmbeddingCache.normalize(text);
+        float[] cached = cache.get(key);
+        if (cached != null) {
+            return VectorMath.toDoubleList(cached);
+        }
+
+        long start = System.nanoTime();
+        List<Double> embedding = delegate.embed(text);
+        cache.recordMiss(System.nanoTime() - start);
+        cache.put(key, VectorMath.toFloatArray(embedding));
+        return embedding;
+    }
+
+    @Override
+    public List<List<Double>> embed(List<String> texts) {
+        if (!cache.isEnabled()) {
+            return delegate.embed(texts);
+        }
+        List<List<Double>> results = new ArrayList<>(texts.size());
+        List<Integer> missIndexes = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            float[] cached = cache.get(QueryEmbeddingCache.normalize(texts.get(i)));
+            results.add(cached != null ? VectorMath.toDoubleList(cached) : null);
+            if (cached == null) {
+                missIndexes.add(i);
+                missTexts.add(texts.get(i));
+            }
+        }
+
+        if (!missTexts.isEmpty()) {
+            long start = System.nanoTime();
+            List<List<Double>> embedded = delegate.embed(missTexts);
+            cache.recordMiss(System.nanoTime() - start);
+            for (int i = 0; i < missIndexes.size(); i++) {
+                results.set(missIndexes.get(i), embedded.get(i));
+                cache.put(QueryEmbeddingCache.normalize(missTexts.get(i)), VectorMath.toFloatArray(embedded.get(i)));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<Double> embed(Document document) {
+        // Chunks embedded ahead of the store write in one batched call keep that embedding
+        List<Double> existing = document.getEmbedding();
+        if (existing != null && !existing.isEmpty()) {
+            return existing;
+        }
+        return delegate.embed(document);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public EmbeddingResponse embedForResponse(List<String> texts) {
+        return delegate.embedForResponse(texts);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -1,34 +1,129 @@
 package com.chatbot.config;
 
+import com.chatbot.vectorstore.EmbeddedVectorStore;
+import com.chatbot.vectorstore.ExactVectorStore;
+import com.chatbot.vectorstore.HnswVectorStore;
+import com.chatbot.vectorstore.VectorEncoding;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chroma.ChromaApi;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.ChromaVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+/**
+ * Creates and caches the vector store for each collection: ChromaDB by default, or an
+ * embedded store when {@code rag.vector-stores} selects one for the collection.
+ */
 @Component
 public class ChromaVectorStoreFactory {
 
     private static final Logger log = LoggerFactory.getLogger(ChromaVectorStoreFactory.class);
 
     private final ChromaApi chromaApi;
-    private final EmbeddingModel embeddingModel;
-    private final Map<String, ChromaVectorStore> vectorStores = new ConcurrentHashMap<>();
+    private final RagConfig ragConfig;
+    private final CachingEmbeddingModel embeddingModel;
+    private final BatchingEmbeddingModel batchingEmbeddingModel;
+    private final Map<String, VectorStore> vectorStores = new ConcurrentHashMap<>();
 
-    public ChromaVectorStoreFactory(ChromaApi chromaApi, EmbeddingModel embeddingModel) {
+    public ChromaVectorStoreFactory(ChromaApi chromaApi, EmbeddingModel embeddingModel,
+                                    QueryEmbeddingCache queryEmbeddingCache, RagConfig ragConfig) {
         this.chromaApi = chromaApi;
-        this.embeddingModel = embeddingModel;
+        this.ragConfig = ragConfig;
+        // Query embeddings that miss the cache share batched calls with concurrent requests
+        this.batchingEmbeddingModel = ragConfig.getEmbeddingBatch().isEnabled()
+                ? new BatchingEmbeddingModel(embeddingModel, ragConfig.getEmbeddingBatch())
+                : null;
+        // Query embeddings made by similaritySearch are answered from the cache where possible
+        this.embeddingModel = new CachingEmbeddingModel(
+                batchingEmbeddingModel != null ? batchingEmbeddingModel : embeddingModel, queryEmbeddingCache);
     }
 
-    public ChromaVectorStore getVectorStore(String collectionName) {
+    /**
+     * The embedding model shared by all vector stores created by this factory.
+     */
+    public EmbeddingModel getEmbeddingModel() {
+        return embeddingModel;
+    }
+
+    /**
+     * Run a store query with the stores answering their embedding of {@code query} from {@code embedding}.
+     */
+    public <T> T withQueryEmbedding(String query, List<Double> embedding, Supplier<T> search) {
+        return embeddingModel.withEmbedding(query, embedding, search);
+    }
+
+    public VectorStore getVectorStore(String collectionName) {
         return vectorStores.computeIfAbsent(collectionName, this::createVectorStore);
     }
 
-    private ChromaVectorStore createVectorStore(String collectionName) {
+    private VectorStore createVectorStore(String collectionName) {
+        return openVectorStore(collectionName, ragConfig.getVectorStores().typeFor(collectionName));
+    }
+
+    /**
+     * A store of the given type over a collection's existing data, for comparing backends without
+     * touching them: the live store when the type is the one configured for the collection, otherwise
+     * a read-only view. Pass the result to {@link #release} when done.
+     *
+     * @throws IllegalArgumentException if the collection has no data for that store type
+     */
+    public VectorStore openForReading(String collectionName, RagConfig.VectorStoreType type) {
+        if (type == RagConfig.VectorStoreType.CHROMA) {
+            if (chromaApi.getCollection(collectionName) == null) {
+                throw new IllegalArgumentException("ChromaDB has no collection '" + collectionName + "'");
+            }
+            if (!isEmbedded(collectionName)) {
+                return getVectorStore(collectionName);
+            }
+            // initializeSchema=false so a missing collection is never created
+            ChromaVectorStore store = new ChromaVectorStore(embeddingModel, chromaApi, collectionName, false);
+            try {
+                store.afterPropertiesSet();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to open ChromaDB collection " + collectionName, e);
+            }
+            return store;
+        }
+        if (!Files.isDirectory(getEmbeddedStoreDirectory(collectionName))) {
+            throw new IllegalArgumentException("No embedded vector store for collection '" + collectionName + "'");
+        }
+        if (ragConfig.getVectorStores().typeFor(collectionName) == type) {
+            return getVectorStore(collectionName);
+        }
+        return openEmbeddedStore(collectionName, getEmbeddedStoreDirectory(collectionName), type, true);
+    }
+
+    /**
+     * Close a store returned by {@link #openForReading} unless it is the cached live store.
+     */
+    public void release(VectorStore store) {
+        if (!vectorStores.containsValue(store)) {
+            closeQuietly(store);
+        }
+    }
+
+    private VectorStore openVectorStore(String collectionName, RagConfig.VectorStoreType type) {
+        if (type != RagConfig.VectorStoreType.CHROMA) {
+            return openEmbeddedStore(collectionName, getEmbeddedStoreDirectory(collectionName), type, false);
+        }
         log.info("Creating vector store for collection: {}", collectionName);
 
         // Create ChromaVectorStore with initializeSchema=true to let it handle collection creation
@@ -45,6 +140,211 @@ public class ChromaVectorStoreFactory {
         return store;
     }
 
+    private boolean isEmbedded(String collectionName) {
+        return ragConfig.getVectorStores().typeFor(collectionName) != RagConfig.VectorStoreType.CHROMA;
+    }
+
+    private Path getEmbeddedStoreDirectory(String collectionName) {
+        return Paths.get(ragConfig.getDataDir(), "vectorstores", collectionName);
+    }
+
+    /**
+     * Where a compacted copy of a store is built before it replaces the store; on the same
+     * file system as the stores so the swap is a rename.
+     */
+    private Path getCompactionDirectory() {
+        return Paths.get(ragConfig.getDataDir(), "vectorstores-compaction");
+    }
+
+    private EmbeddedVectorStore openEmbeddedStore(String collectionName, Path directory,
+                                                  RagConfig.VectorStoreType type, boolean readOnly) {
+        RagConfig.Hnsw hnsw = ragConfig.getVectorStores().getHnsw();
+        RagConfig.Quantization quantization = ragConfig.getVectorStores().getQuantization();
+        VectorEncoding encoding = quantization.encodingFor(collectionName);
+        try {
+            // Both embedded types share the same vector and document files
+            EmbeddedVectorStore store = type == RagConfig.VectorStoreType.EXACT
+                    ? new ExactVectorStore(directory, embeddingModel, encoding, quantization.getRescoreMultiplier(), readOnly)
+                    : new HnswVectorStore(directory, embeddingModel, encoding, quantization.getRescoreMultiplier(),
+                            hnsw.getM(), hnsw.getEfConstruction(), hnsw.getEfSearch(), readOnly);
+            log.info("Opened {} vector store for collection {} at {} ({}{})", type, collectionName, directory, encoding,
+                    readOnly ? ", read-only" : "");
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open vector store for collection " + collectionName, e);
+        }
+    }
+
+    /**
+     * Names of the collections that have embedded store files on disk.
+     */
+    public List<String> getEmbeddedCollections() {
+        Path root = Paths.get(ragConfig.getDataDir(), "vectorstores");
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(root)) {
+            return paths.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list vector stores in " + root, e);
+        }
+    }
+
+    /**
+     * Open embedded stores that already exist on disk so the first chat turn doesn't pay for loading them.
+     */
+    @PostConstruct
+    public void openEmbeddedStores() {
+        recoverCompactions();
+        getEmbeddedCollections().stream()
+                .filter(this::isEmbedded)
+                .forEach(name -> {
+                    try {
+                        getVectorStore(name);
+                    } catch (UncheckedIOException e) {
+                        log.warn("Could not open vector store for collection {}: {}", name, e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Persist an embedded store's pending writes; a no-op for ChromaDB collections.
+     */
+    public void flush(String collectionName) {
+        if (vectorStores.get(collectionName) instanceof EmbeddedVectorStore embedded) {
+            embedded.flush();
+        }
+    }
+
+    /**
+     * Rewrite an embedded store without its deleted documents once they make up
+     * {@code rag.vector-stores.compact-deleted-ratio} of it. The copy and its index are built beside
+     * the live store, which keeps answering searches until the copy replaces it. Call from the
+     * collection's only writer, e.g. at the end of a load; a failed compaction leaves the store as it was.
+     */
+    public void compactIfNeeded(String collectionName) {
+        double threshold = ragConfig.getVectorStores().getCompactDeletedRatio();
+        if (threshold <= 0 || !(vectorStores.get(collectionName) instanceof EmbeddedVectorStore store)
+                || store.deletedFraction() < threshold) {
+            return;
+        }
+        RagConfig.VectorStoreType type = ragConfig.getVectorStores().typeFor(collectionName);
+        Path directory = getEmbeddedStoreDirectory(collectionName);
+        Path staging = getCompactionDirectory().resolve(collectionName);
+        Path retired = getCompactionDirectory().resolve(collectionName + ".old");
+        try {
+            deleteDirectory(staging);
+            deleteDirectory(retired);
+            int stored = store.storedCount();
+            int copied = store.writeCompacted(staging);
+            // Opening the copy builds its index and closing it saves the index
+            closeQuietly(openEmbeddedStore(collectionName, staging, type, false));
+
+            vectorStores.compute(collectionName, (name, live) -> {
+                if (live != store || store.storedCount() != stored) {
+                    log.info("Vector store for collection {} changed while compacting; keeping it", name);
+                    return live;
+                }
+                closeQuietly(live);
+                try {
+                    Files.move(directory, retired, StandardCopyOption.ATOMIC_MOVE);
+                    try {
+                        Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        Files.move(retired, directory, StandardCopyOption.ATOMIC_MOVE);
+                        throw e;
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not swap in the compacted vector store for collection {}: {}", name, e.getMessage());
+                }
+                try {
+                    return openEmbeddedStore(name, directory, type, false);
+                } catch (UncheckedIOException e) {
+                    // Dropped from the cache so the next use retries the open
+                    log.warn("Could not reopen vector store for collection {}: {}", name, e.getMessage());
+                    return null;
+                }
+            });
+            log.info("Compacted vector store for collection {}: {} of {} documents kept", collectionName, copied, stored);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to compact vector store for collection {}: {}", collectionName, e.getMessage());
+        } finally {
+            try {
+                deleteDirectory(staging);
+                deleteDirectory(retired);
+            } catch (IOException e) {
+                log.warn("Failed to clean up after compacting collection {}: {}", collectionName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Put back a store whose compaction stopped between moving it aside and moving the copy in.
+     */
+    private void recoverCompactions() {
+        Path root = getCompactionDirectory();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.list(root)) {
+            for (Path path : paths.toList()) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".old")) {
+                    Path directory = getEmbeddedStoreDirectory(name.substring(0, name.length() - ".old".length()));
+                    if (!Files.exists(directory)) {
+                        log.warn("Restoring vector store {} left aside by an interrupted compaction", directory);
+                        Files.move(path, directory, StandardCopyOption.ATOMIC_MOVE);
+                        continue;
+                    }
+                }
+                deleteDirectory(path);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to clean up vector store compactions in {}: {}", root, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        vectorStores.forEach((name, store) -> {
+            if (store instanceof EmbeddedVectorStore embedded) {
+                stats.put(name, embedded.getStats());
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Statistics of the query embedding batcher, or an empty map when batching is off.
+     */
+    public Map<String, Object> getEmbeddingBatchStats() {
+        return batchingEmbeddingModel != null ? batchingEmbeddingModel.getStats() : Map.of();
+    }
+
+    @PreDestroy
+    public void close() {
+        vectorStores.values().forEach(this::closeQuietly);
+        if (batchingEmbeddingModel != null) {
+            batchingEmbeddingModel.close();
+        }
+    }
+
+    /**
+     * Close an embedded store; a no-op for ChromaDB.
+     */
+    public void closeQuietly(VectorStore store) {
+        if (store instanceof EmbeddedVectorStore embedded) {
+            try {
+                embedded.close();
+            } catch (IOException e) {
+                log.warn("Failed to close vector store: {}", e.getMessage());
+            }
+        }
+    }
+
     /**
      * Ensure a collection exists, creating it if necessary.
      * This is called before loading documents to guarantee the collection is ready.
@@ -60,7 +360,13 @@ public class ChromaVectorStoreFactory {
      */
     public void deleteCollection(String collectionName) {
         // Always remove from cache first
-        vectorStores.remove(collectionName);
+        VectorStore removed = vectorStores.remove(collectionName);
+
+        if (isEmbedded(collectionName)) {
+            closeQuietly(removed);
+            deleteEmbeddedStore(collectionName);
+            return;
+        }
 
         try {
             chromaApi.deleteCollection(collectionName);
@@ -84,9 +390,33 @@ public class ChromaVectorStoreFactory {
         deleteCollection(collectionName);
 
         // Create a fresh vector store instance which will create the collection
-        ChromaVectorStore store = createVectorStore(collectionName);
+        VectorStore store = createVectorStore(collectionName);
         vectorStores.put(collectionName, store);
 
         log.info("Collection {} recreated successfully", collectionName);
     }
+
+    private void deleteEmbeddedStore(String collectionName) {
+        Path directory = getEmbeddedStoreDirectory(collectionName);
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try {
+            deleteDirectory(directory);
+            log.info("Deleted embedded vector store: {}", directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete vector store " + directory, e);
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
 }
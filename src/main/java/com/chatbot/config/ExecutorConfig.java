@@ -0,0 +1,83 @@
+package com.chatbot.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads for the blocking Chroma and OpenAI calls made while answering a chat request.
+ * With {@code spring.threads.virtual.enabled} on Java 21 they run on virtual threads, as do
+ * the request handlers themselves; otherwise on platform thread pools.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor for blocking retrieval calls that run alongside other work in a chat request.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ExecutorService retrievalExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "retrieval-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Bean(name = "retrievalExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualRetrievalExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("retrieval-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    /**
+     * Executor for calls run under a {@link com.chatbot.resilience.DependencyGuard} deadline. Bounded
+     * whatever the threading mode: an attempt cancelled inside blocking I/O keeps its thread until
+     * the I/O returns, so a hanging dependency must not be able to take an unlimited number.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService guardedCallExecutor(RagConfig ragConfig) {
+        int threads = ragConfig.getResilience().getMaxAttemptThreads();
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "guarded-call-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Scheduler streamed answers are prepared on: retrieval and waiting for an LLM slot block.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public Scheduler chatScheduler() {
+        return Schedulers.boundedElastic();
+    }
+
+    @Bean(name = "chatScheduler")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Scheduler virtualChatScheduler(@Qualifier("retrievalExecutor") Executor retrievalExecutor) {
+        return Schedulers.fromExecutor(retrievalExecutor);
+    }
+}
@@ -0,0 +1,289 @@
+package com.chatbot.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.chatbot.util.VectorMath;
+import com.chatbot.vectorstore.VectorEncoding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU of normalized query text to embedding vector.
+ * Vectors live in a single off-heap slab; the on-heap index only maps
+ * query text to a slot number, so each entry costs little more than its values.
+ * The slab can hold float16 or int8 values to fit more entries in the same memory;
+ * int8 uses one scale per vector since queries arrive one at a time with no range to learn.
+ * The saved cache records the embedding model it was built with and is dropped when the
+ * configured model ({@code rag.embedding-store.model}) changes.
+ */
+@Component
+public class QueryEmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryEmbeddingCache.class);
+    private static final String CACHE_FILE_NAME = "query-embedding-cache.bin";
+    private static final int FILE_MAGIC = 0x51454d32; // "QEM2": header names the embedding model
+    private static final int MAX_QUERY_LENGTH = 4096;
+
+    private final RagConfig ragConfig;
+    private final LinkedHashMap<String, Integer> slots = new LinkedHashMap<>(16, 0.75f, true);
+    private ByteBuffer slab;
+    private VectorEncoding encoding;
+    private float[] scales;
+    private int dimensions;
+    private int bytesPerVector;
+    private int nextSlot;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong missNanos = new AtomicLong();
+
+    public QueryEmbeddingCache(RagConfig ragConfig) {
+        this.ragConfig = ragConfig;
+    }
+
+    public boolean isEnabled() {
+        return ragConfig.getQueryEmbeddingCache().isEnabled();
+    }
+
+    public static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    /**
+     * Returns a copy of the cached vector for the query, or null on a miss.
+     */
+    public synchronized float[] get(String normalizedQuery) {
+        Integer slot = slots.get(normalizedQuery);
+        if (slot == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return decode(slot);
+    }
+
+    public synchronized void put(String normalizedQuery, float[] vector) {
+        if (normalizedQuery.length() > MAX_QUERY_LENGTH) {
+            return;
+        }
+        if (slab == null) {
+            allocate(vector.length);
+        } else if (vector.length != dimensions) {
+            log.warn("Embedding dimensions changed from {} to {}; clearing query embedding cache",
+                    dimensions, vector.length);
+            clear();
+            allocate(vector.length);
+        }
+
+        Integer slot = slots.get(normalizedQuery);
+        if (slot == null) {
+            slot = acquireSlot();
+            slots.put(normalizedQuery, slot);
+        }
+        encode(slot, vector);
+    }
+
+    private void encode(int slot, float[] vector) {
+        int base = slot * bytesPerVector;
+        switch (encoding) {
+            case FLOAT32 -> {
+                for (int i = 0; i < dimensions; i++) {
+                    slab.putFloat(base + i * Float.BYTES, vector[i]);
+                }
+            }
+            case FLOAT16 -> {
+                for (int i = 0; i < dimensions; i++) {
+                    slab.putShort(base + i * Short.BYTES, VectorMath.toFloat16(vector[i]));
+                }
+            }
+            case INT8 -> {
+                float maxAbs = 0f;
+                for (float value : vector) {
+                    maxAbs = Math.max(maxAbs, Math.abs(value));
+                }
+                float scale = maxAbs > 0f ? maxAbs / 127f : 1f;
+                scales[slot] = scale;
+                for (int i = 0; i < dimensions; i++) {
+                    slab.put(base + i, (byte) Math.round(vector[i] / scale));
+                }
+            }
+        }
+    }
+
+    private float[] decode(int slot) {
+        float[] vector = new float[dimensions];
+        int base = slot * bytesPerVector;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = switch (encoding) {
+                case FLOAT32 -> slab.getFloat(base + i * Float.BYTES);
+                case FLOAT16 -> VectorMath.fromFloat16(slab.getShort(base + i * Short.BYTES));
+                case INT8 -> slab.get(base + i) * scales[slot];
+            };
+        }
+        return vector;
+    }
+
+    /**
+     * Record how long an uncached embedding call took, used to estimate the latency hits save.
+     */
+    public void recordMiss(long nanos) {
+        missNanos.addAndGet(nanos);
+    }
+
+    public synchronized void clear() {
+        slots.clear();
+        slab = null;
+        scales = null;
+        dimensions = 0;
+        nextSlot = 0;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        double avgMissMs = missCount > 0 ? missNanos.get() / 1_000_000.0 / missCount : 0.0;
+        return Map.of(
+                "hits", hitCount,
+                "misses", missCount,
+                "hitRate", total > 0 ? (double) hitCount / total : 0.0,
+                "evictions", evictions.get(),
+                "entries", size(),
+                "encoding", ragConfig.getQueryEmbeddingCache().getEncoding(),
+                "slabBytes", slabBytes(),
+                "avgEmbeddingMs", avgMissMs,
+                "savedEmbeddingMs", (long) (avgMissMs * hitCount)
+        );
+    }
+
+    private synchronized long slabBytes() {
+        return slab != null ? slab.capacity() : 0L;
+    }
+
+    private void allocate(int dims) {
+        int capacity = Math.max(1, ragConfig.getQueryEmbeddingCache().getMaxEntries());
+        this.encoding = ragConfig.getQueryEmbeddingCache().getEncoding();
+        this.dimensions = dims;
+        this.bytesPerVector = dims * encoding.bytesPerValue();
+        this.slab = ByteBuffer.allocateDirect(capacity * bytesPerVector).order(ByteOrder.nativeOrder());
+        this.scales = encoding == VectorEncoding.INT8 ? new float[capacity] : null;
+        log.info("Allocated off-heap query embedding cache: {} entries x {} dimensions ({})",
+                capacity, dims, encoding);
+    }
+
+    private int acquireSlot() {
+        if (nextSlot < slab.capacity() / bytesPerVector) {
+            return nextSlot++;
+        }
+        // Full: evict the least recently used entry and reuse its slot
+        Iterator<Map.Entry<String, Integer>> eldest = slots.entrySet().iterator();
+        int slot = eldest.next().getValue();
+        eldest.remove();
+        evictions.incrementAndGet();
+        return slot;
+    }
+
+    private Path getCacheFile() {
+        return Paths.get(ragConfig.getDataDir(), CACHE_FILE_NAME);
+    }
+
+    private String embeddingModel() {
+        return String.valueOf(ragConfig.getEmbeddingStore().getModel());
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!isEnabled() || !ragConfig.getQueryEmbeddingCache().isPersist()) {
+            return;
+        }
+        Path file = getCacheFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                log.warn("Ignoring query embedding cache file with unknown format: {}", file);
+                return;
+            }
+            String model = in.readUTF();
+            if (!model.equals(embeddingModel())) {
+                // Same-sized vectors from another model would silently corrupt retrieval
+                log.info("Ignoring query embedding cache built with model '{}'; the configured model is '{}'",
+                        model, embeddingModel());
+                return;
+            }
+            int dims = in.readInt();
+            int count = in.readInt();
+            float[] vector = new float[dims];
+            synchronized (this) {
+                for (int i = 0; i < count; i++) {
+                    String query = in.readUTF();
+                    for (int d = 0; d < dims; d++) {
+                        vector[d] = in.readFloat();
+                    }
+                    put(query, vector);
+                }
+            }
+            log.info("Loaded {} cached query embeddings from {}", size(), file);
+        } catch (IOException e) {
+            log.warn("Failed to load query embedding cache from {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void save() {
+        if (!isEnabled() || !ragConfig.getQueryEmbeddingCache().isPersist()) {
+            return;
+        }
+        Path file = getCacheFile();
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = file.resolveSibling(CACHE_FILE_NAME + ".tmp");
+            synchronized (this) {
+                if (slab == null) {
+                    return;
+                }
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                    out.writeInt(FILE_MAGIC);
+                    out.writeUTF(embeddingModel());
+                    out.writeInt(dimensions);
+                    out.writeInt(slots.size());
+                    // Iteration order is least to most recently used, so a reload preserves LRU order
+                    for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        for (float value : decode(entry.getValue())) {
+                            out.writeFloat(value);
+                        }
+                    }
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved {} cached query embeddings to {}", size(), file);
+        } catch (IOException e) {
+            log.warn("Failed to save query embedding cache to {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -1,18 +1,65 @@
 package com.chatbot.config;
 
+import com.chatbot.vectorstore.VectorEncoding;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 @Configuration
 @ConfigurationProperties(prefix = "rag")
 public class RagConfig {
 
+    public enum RetrievalMode { VECTOR, HYBRID }
+
+    public enum VectorStoreType { CHROMA, HNSW, EXACT }
+
+    /**
+     * CONTEXT_IN_SYSTEM appends retrieved context to the system message. PREFIX_STABLE keeps
+     * the system prompt and history first and unchanged between turns, with the context in
+     * its own message before the question, so providers can reuse their cached prompt prefix.
+     * Compacted history keeps that prefix until the summary of older turns is extended, see
+     * {@link com.chatbot.service.HistoryCompactor}.
+     */
+    public enum PromptLayout { CONTEXT_IN_SYSTEM, PREFIX_STABLE }
+
+    /** Suffix of the collections a blue/green load creates for an alias: {@code <alias>__v<n>}. */
+    public static final Pattern VERSION_SUFFIX = Pattern.compile("__v(\\d+)$");
+
+    /**
+     * The name per-collection settings are configured under: a blue/green version's alias,
+     * otherwise the collection itself.
+     */
+    public static String settingsName(String collectionName) {
+        return collectionName != null ? VERSION_SUFFIX.matcher(collectionName).replaceFirst("") : null;
+    }
+
     private int chunkSize = 1000;
     private int chunkOverlap = 200;
     private int maxResults = 5;
     private String dataDir = "./data";
     private String docsBaseUrl = "https://docs.dataminesoftware.com/CCLAS-EL/Latest/";
     private String metadataFile = "/docs/collection-metadata.json";
+    private RetrievalMode retrievalMode = RetrievalMode.VECTOR;
+    private PromptLayout promptLayout = PromptLayout.CONTEXT_IN_SYSTEM;
+    private final Hybrid hybrid = new Hybrid();
+    private final Mmr mmr = new Mmr();
+    private final Context context = new Context();
+    private final History history = new History();
+    private final VectorStores vectorStores = new VectorStores();
+    private final AnswerCache answerCache = new AnswerCache();
+    private final QueryEmbeddingCache queryEmbeddingCache = new QueryEmbeddingCache();
+    private final EmbeddingBatch embeddingBatch = new EmbeddingBatch();
+    private final Ingestion ingestion = new Ingestion();
+    private final BlueGreen blueGreen = new BlueGreen();
+    private final EmbeddingStore embeddingStore = new EmbeddingStore();
+    private final FollowUps followUps = new FollowUps();
+    private final Coalescing coalescing = new Coalescing();
+    private final LlmBulkhead llmBulkhead = new LlmBulkhead();
+    private final Resilience resilience = new Resilience();
+    private final RelevanceGate relevanceGate = new RelevanceGate();
 
     public int getChunkSize() {
         return chunkSize;
@@ -61,4 +108,895 @@ public class RagConfig {
     public void setMetadataFile(String metadataFile) {
         this.metadataFile = metadataFile;
     }
+
+    public RetrievalMode getRetrievalMode() {
+        return retrievalMode;
+    }
+
+    public void setRetrievalMode(RetrievalMode retrievalMode) {
+        this.retrievalMode = retrievalMode;
+    }
+
+    public PromptLayout getPromptLayout() {
+        return promptLayout;
+    }
+
+    public void setPromptLayout(PromptLayout promptLayout) {
+        this.promptLayout = promptLayout;
+    }
+
+    public Hybrid getHybrid() {
+        return hybrid;
+    }
+
+    public Mmr getMmr() {
+        return mmr;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public History getHistory() {
+        return history;
+    }
+
+    public VectorStores getVectorStores() {
+        return vectorStores;
+    }
+
+    public AnswerCache getAnswerCache() {
+        return answerCache;
+    }
+
+    public QueryEmbeddingCache getQueryEmbeddingCache() {
+        return queryEmbeddingCache;
+    }
+
+    public EmbeddingBatch getEmbeddingBatch() {
+        return embeddingBatch;
+    }
+
+    public Ingestion getIngestion() {
+        return ingestion;
+    }
+
+    public BlueGreen getBlueGreen() {
+        return blueGreen;
+    }
+
+    public EmbeddingStore getEmbeddingStore() {
+        return embeddingStore;
+    }
+
+    public FollowUps getFollowUps() {
+        return followUps;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public LlmBulkhead getLlmBulkhead() {
+        return llmBulkhead;
+    }
+
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    public RelevanceGate getRelevanceGate() {
+        return relevanceGate;
+    }
+
+    /**
+     * Settings for hybrid (BM25 + vector) retrieval.
+     */
+    public static class Hybrid {
+
+        private int candidates = 20;
+        private int rrfK = 60;
+
+        public int getCandidates() {
+            return candidates;
+        }
+
+        public void setCandidates(int candidates) {
+            this.candidates = candidates;
+        }
+
+        public int getRrfK() {
+            return rrfK;
+        }
+
+        public void setRrfK(int rrfK) {
+            this.rrfK = rrfK;
+        }
+    }
+
+    /**
+     * Settings for maximal marginal relevance reranking of retrieved chunks.
+     */
+    public static class Mmr {
+
+        private boolean enabled = true;
+        private double lambda = 0.7;
+        private int fetchFactor = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getLambda() {
+            return lambda;
+        }
+
+        public void setLambda(double lambda) {
+            this.lambda = lambda;
+        }
+
+        public int getFetchFactor() {
+            return fetchFactor;
+        }
+
+        public void setFetchFactor(int fetchFactor) {
+            this.fetchFactor = fetchFactor;
+        }
+    }
+
+    /**
+     * Settings for packing retrieved chunks into the prompt context.
+     */
+    public static class Context {
+
+        private int maxTokens = 3000;
+        private boolean mergeAdjacent = true;
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        public boolean isMergeAdjacent() {
+            return mergeAdjacent;
+        }
+
+        public void setMergeAdjacent(boolean mergeAdjacent) {
+            this.mergeAdjacent = mergeAdjacent;
+        }
+    }
+
+    /**
+     * Which vector store backs each collection, and tuning for the embedded stores.
+     */
+    public static class VectorStores {
+
+        private VectorStoreType defaultType = VectorStoreType.CHROMA;
+        private Map<String, VectorStoreType> collections = new HashMap<>();
+        private double compactDeletedRatio = 0.3;
+        private final Hnsw hnsw = new Hnsw();
+        private final Quantization quantization = new Quantization();
+
+        public VectorStoreType getDefaultType() {
+            return defaultType;
+        }
+
+        public void setDefaultType(VectorStoreType defaultType) {
+            this.defaultType = defaultType;
+        }
+
+        public Map<String, VectorStoreType> getCollections() {
+            return collections;
+        }
+
+        public void setCollections(Map<String, VectorStoreType> collections) {
+            this.collections = collections;
+        }
+
+        public double getCompactDeletedRatio() {
+            return compactDeletedRatio;
+        }
+
+        public void setCompactDeletedRatio(double compactDeletedRatio) {
+            this.compactDeletedRatio = compactDeletedRatio;
+        }
+
+        public Hnsw getHnsw() {
+            return hnsw;
+        }
+
+        public Quantization getQuantization() {
+            return quantization;
+        }
+
+        public VectorStoreType typeFor(String collectionName) {
+            return collections.getOrDefault(settingsName(collectionName), defaultType);
+        }
+    }
+
+    /**
+     * In-memory vector encoding for embedded stores. Quantized encodings search a compact copy
+     * and rescore the best {@code rescoreMultiplier * topK} candidates at full precision.
+     */
+    public static class Quantization {
+
+        private VectorEncoding defaultEncoding = VectorEncoding.FLOAT32;
+        private Map<String, VectorEncoding> collections = new HashMap<>();
+        private int rescoreMultiplier = 4;
+
+        public VectorEncoding getDefaultEncoding() {
+            return defaultEncoding;
+        }
+
+        public void setDefaultEncoding(VectorEncoding defaultEncoding) {
+            this.defaultEncoding = defaultEncoding;
+        }
+
+        public Map<String, VectorEncoding> getCollections() {
+            return collections;
+        }
+
+        public void setCollections(Map<String, VectorEncoding> collections) {
+            this.collections = collections;
+        }
+
+        public int getRescoreMultiplier() {
+            return rescoreMultiplier;
+        }
+
+        public void setRescoreMultiplier(int rescoreMultiplier) {
+            this.rescoreMultiplier = rescoreMultiplier;
+        }
+
+        public VectorEncoding encodingFor(String collectionName) {
+            return collections.getOrDefault(settingsName(collectionName), defaultEncoding);
+        }
+    }
+
+    public static class Hnsw {
+
+        private int m = 16;
+        private int efConstruction = 100;
+        private int efSearch = 64;
+
+        public int getM() {
+            return m;
+        }
+
+        public void setM(int m) {
+            this.m = m;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+    }
+
+    /**
+     * Settings for the in-memory semantic answer cache used by ChatService.
+     */
+    public static class AnswerCache {
+
+        private boolean enabled = true;
+        private double maxDistance = 0.05;
+        private int maxEntriesPerCollection = 500;
+        private long ttlMinutes = 24 * 60;
+        private boolean persist = true;
+        private int maxPersistedEntries = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getMaxDistance() {
+            return maxDistance;
+        }
+
+        public void setMaxDistance(double maxDistance) {
+            this.maxDistance = maxDistance;
+        }
+
+        public int getMaxEntriesPerCollection() {
+            return maxEntriesPerCollection;
+        }
+
+        public void setMaxEntriesPerCollection(int maxEntriesPerCollection) {
+            this.maxEntriesPerCollection = maxEntriesPerCollection;
+        }
+
+        public long getTtlMinutes() {
+            return ttlMinutes;
+        }
+
+        public void setTtlMinutes(long ttlMinutes) {
+            this.ttlMinutes = ttlMinutes;
+        }
+
+        public boolean isPersist() {
+            return persist;
+        }
+
+        public void setPersist(boolean persist) {
+            this.persist = persist;
+        }
+
+        public int getMaxPersistedEntries() {
+            return maxPersistedEntries;
+        }
+
+        public void setMaxPersistedEntries(int maxPersistedEntries) {
+            this.maxPersistedEntries = maxPersistedEntries;
+        }
+    }
+
+    /**
+     * Settings for the query embedding cache placed in front of the embedding model.
+     */
+    public static class QueryEmbeddingCache {
+
+        private boolean enabled = true;
+        private int maxEntries = 5000;
+        private boolean persist = true;
+        private VectorEncoding encoding = VectorEncoding.FLOAT32;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public boolean isPersist() {
+            return persist;
+        }
+
+        public void setPersist(boolean persist) {
+            this.persist = persist;
+        }
+
+        public VectorEncoding getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(VectorEncoding encoding) {
+            this.encoding = encoding;
+        }
+    }
+
+    /**
+     * Settings for sharing one answer between identical requests that arrive concurrently.
+     */
+    public static class Coalescing {
+
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Settings for answering out-of-scope questions without calling the LLM. Off unless a
+     * deployment turns it on with a threshold calibrated for its embedding model.
+     */
+    public static class RelevanceGate {
+
+        private boolean enabled = false;
+        private double minSimilarity = 0.72;
+        private Map<String, Double> collections = new HashMap<>();
+        private int suggestions = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getMinSimilarity() {
+            return minSimilarity;
+        }
+
+        public void setMinSimilarity(double minSimilarity) {
+            this.minSimilarity = minSimilarity;
+        }
+
+        public Map<String, Double> getCollections() {
+            return collections;
+        }
+
+        public void setCollections(Map<String, Double> collections) {
+            this.collections = collections;
+        }
+
+        public double minSimilarityFor(String collectionName) {
+            return collections.getOrDefault(settingsName(collectionName), minSimilarity);
+        }
+
+        public int getSuggestions() {
+            return suggestions;
+        }
+
+        public void setSuggestions(int suggestions) {
+            this.suggestions = suggestions;
+        }
+    }
+
+    /**
+     * Deadlines, hedging and circuit breaking for Chroma queries and LLM calls.
+     */
+    public static class Resilience {
+
+        private long chromaDeadlineMillis = 3000;
+        private boolean hedgeEnabled = true;
+        private long hedgeMinDelayMillis = 50;
+        private double hedgePercentile = 0.95;
+        private long llmDeadlineSeconds = 90;
+        private long llmIdleTimeoutSeconds = 30;
+        private int breakerWindow = 20;
+        private int breakerMinimumCalls = 10;
+        private double breakerFailureRate = 0.5;
+        private long breakerOpenSeconds = 30;
+        private int maxAttemptThreads = 64;
+
+        public long getChromaDeadlineMillis() {
+            return chromaDeadlineMillis;
+        }
+
+        public void setChromaDeadlineMillis(long chromaDeadlineMillis) {
+            this.chromaDeadlineMillis = chromaDeadlineMillis;
+        }
+
+        public int getMaxAttemptThreads() {
+            return maxAttemptThreads;
+        }
+
+        public void setMaxAttemptThreads(int maxAttemptThreads) {
+            this.maxAttemptThreads = maxAttemptThreads;
+        }
+
+        public boolean isHedgeEnabled() {
+            return hedgeEnabled;
+        }
+
+        public void setHedgeEnabled(boolean hedgeEnabled) {
+            this.hedgeEnabled = hedgeEnabled;
+        }
+
+        public long getHedgeMinDelayMillis() {
+            return hedgeMinDelayMillis;
+        }
+
+        public void setHedgeMinDelayMillis(long hedgeMinDelayMillis) {
+            this.hedgeMinDelayMillis = hedgeMinDelayMillis;
+        }
+
+        public double getHedgePercentile() {
+            return hedgePercentile;
+        }
+
+        public void setHedgePercentile(double hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+        }
+
+        public long getLlmDeadlineSeconds() {
+            return llmDeadlineSeconds;
+        }
+
+        public void setLlmDeadlineSeconds(long llmDeadlineSeconds) {
+            this.llmDeadlineSeconds = llmDeadlineSeconds;
+        }
+
+        public long getLlmIdleTimeoutSeconds() {
+            return llmIdleTimeoutSeconds;
+        }
+
+        public void setLlmIdleTimeoutSeconds(long llmIdleTimeoutSeconds) {
+            this.llmIdleTimeoutSeconds = llmIdleTimeoutSeconds;
+        }
+
+        public int getBreakerWindow() {
+            return breakerWindow;
+        }
+
+        public void setBreakerWindow(int breakerWindow) {
+            this.breakerWindow = breakerWindow;
+        }
+
+        public int getBreakerMinimumCalls() {
+            return breakerMinimumCalls;
+        }
+
+        public void setBreakerMinimumCalls(int breakerMinimumCalls) {
+            this.breakerMinimumCalls = breakerMinimumCalls;
+        }
+
+        public double getBreakerFailureRate() {
+            return breakerFailureRate;
+        }
+
+        public void setBreakerFailureRate(double breakerFailureRate) {
+            this.breakerFailureRate = breakerFailureRate;
+        }
+
+        public long getBreakerOpenSeconds() {
+            return breakerOpenSeconds;
+        }
+
+        public void setBreakerOpenSeconds(long breakerOpenSeconds) {
+            this.breakerOpenSeconds = breakerOpenSeconds;
+        }
+    }
+
+    /**
+     * Settings for capping concurrent chat completions.
+     */
+    public static class LlmBulkhead {
+
+        private boolean enabled = true;
+        private int maxConcurrent = 8;
+        private int maxQueued = 32;
+        private long queueTimeoutSeconds = 30;
+        private long retryAfterSeconds = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+
+        public long getQueueTimeoutSeconds() {
+            return queueTimeoutSeconds;
+        }
+
+        public void setQueueTimeoutSeconds(long queueTimeoutSeconds) {
+            this.queueTimeoutSeconds = queueTimeoutSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(long retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    /**
+     * Settings for merging query embedding calls from concurrent requests into batches.
+     */
+    public static class EmbeddingBatch {
+
+        private boolean enabled = true;
+        private long windowMillis = 5;
+        private int maxBatchSize = 32;
+        private int maxConcurrentBatches = 4;
+        private long timeoutMillis = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getWindowMillis() {
+            return windowMillis;
+        }
+
+        public void setWindowMillis(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getMaxConcurrentBatches() {
+            return maxConcurrentBatches;
+        }
+
+        public void setMaxConcurrentBatches(int maxConcurrentBatches) {
+            this.maxConcurrentBatches = maxConcurrentBatches;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    /**
+     * Settings for fitting conversation history into the prompt.
+     */
+    public static class History {
+
+        private boolean enabled = true;
+        private int maxTokens = 2000;
+        private int recentMessages = 6;
+        private int summaryMaxTokens = 400;
+        private int maxConcurrent = 2;
+        private int queueCapacity = 16;
+        private int maxConversations = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        public int getRecentMessages() {
+            return recentMessages;
+        }
+
+        public void setRecentMessages(int recentMessages) {
+            this.recentMessages = recentMessages;
+        }
+
+        public int getSummaryMaxTokens() {
+            return summaryMaxTokens;
+        }
+
+        public void setSummaryMaxTokens(int summaryMaxTokens) {
+            this.summaryMaxTokens = summaryMaxTokens;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxConversations() {
+            return maxConversations;
+        }
+
+        public void setMaxConversations(int maxConversations) {
+            this.maxConversations = maxConversations;
+        }
+    }
+
+    /**
+     * Settings for the collection load pipeline.
+     */
+    public static class Ingestion {
+
+        private int parseThreads = 0;
+        private int writeThreads = 4;
+        private int batchSize = 100;
+        private int queuedBatches = 4;
+
+        /**
+         * Parse workers, or 0 for one per available processor.
+         */
+        public int getParseThreads() {
+            return parseThreads;
+        }
+
+        public void setParseThreads(int parseThreads) {
+            this.parseThreads = parseThreads;
+        }
+
+        public int resolvedParseThreads() {
+            return parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        }
+
+        public int getWriteThreads() {
+            return writeThreads;
+        }
+
+        public void setWriteThreads(int writeThreads) {
+            this.writeThreads = writeThreads;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getQueuedBatches() {
+            return queuedBatches;
+        }
+
+        public void setQueuedBatches(int queuedBatches) {
+            this.queuedBatches = queuedBatches;
+        }
+    }
+
+    /**
+     * Checks a blue/green load must pass before its alias is swapped to the new version.
+     */
+    public static class BlueGreen {
+
+        private double maxErrorRate = 0.05;
+        private double minFileRatio = 0.5;
+
+        /**
+         * Largest fraction of files that may fail to parse.
+         */
+        public double getMaxErrorRate() {
+            return maxErrorRate;
+        }
+
+        public void setMaxErrorRate(double maxErrorRate) {
+            this.maxErrorRate = maxErrorRate;
+        }
+
+        /**
+         * Smallest file count, as a fraction of the current version's, e.g. to catch a truncated download.
+         */
+        public double getMinFileRatio() {
+            return minFileRatio;
+        }
+
+        public void setMinFileRatio(double minFileRatio) {
+            this.minFileRatio = minFileRatio;
+        }
+    }
+
+    /**
+     * Settings for the persistent store of chunk embeddings reused across loads.
+     */
+    public static class EmbeddingStore {
+
+        private boolean enabled = true;
+        private String model = "text-embedding-ada-002";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Embedding model name, part of every key so a model change never reuses old vectors.
+         */
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+    }
+
+    /**
+     * Settings for background follow-up question generation.
+     */
+    public static class FollowUps {
+
+        private boolean enabled = true;
+        private int maxConcurrent = 4;
+        private int queueCapacity = 32;
+        private long timeoutSeconds = 20;
+        private long retentionMinutes = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(long timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        public long getRetentionMinutes() {
+            return retentionMinutes;
+        }
+
+        public void setRetentionMinutes(long retentionMinutes) {
+            this.retentionMinutes = retentionMinutes;
+        }
+    }
 }
@@ -3,12 +3,19 @@ package com.chatbot.controller;
 import com.chatbot.config.RagConfig;
 import com.chatbot.model.ChatRequest;
 import com.chatbot.model.ChatResponse;
+import com.chatbot.model.ChatStreamEvent;
+import com.chatbot.resilience.DependencyUnavailableException;
 import com.chatbot.service.ChatService;
+import com.chatbot.service.FollowUpService;
+import com.chatbot.service.LlmBulkhead;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
@@ -17,6 +24,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -26,12 +34,17 @@ public class ChatController {
     private static final String systemPromptFileNAME = "system-prompt.txt";
 
     private final ChatService chatService;
+    private final FollowUpService followUpService;
     private final RagConfig ragConfig;
+    private final LlmBulkhead llmBulkhead;
     private Path systemPromptFile;
 
-    public ChatController(ChatService chatService, RagConfig ragConfig) {
+    public ChatController(ChatService chatService, FollowUpService followUpService, RagConfig ragConfig,
+                          LlmBulkhead llmBulkhead) {
         this.chatService = chatService;
+        this.followUpService = followUpService;
         this.ragConfig = ragConfig;
+        this.llmBulkhead = llmBulkhead;
     }
 
     @PostConstruct
@@ -62,15 +75,76 @@ public class ChatController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Stream an answer as server-sent events: {@code sources}, {@code token}..., {@code followUps}
+     * and {@code done}, or {@code error}. See {@link ChatStreamEvent} for the payloads.
+     */
     @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> chatStream(@RequestBody ChatRequest request) {
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> chatStream(@RequestBody ChatRequest request) {
         log.info("Received streaming chat request: {}", request.getMessage());
 
         if (request.getMessage() == null || request.getMessage().isBlank()) {
-            return Flux.just("Message cannot be empty");
+            return ResponseEntity.ok(Flux.just(toServerSentEvent(ChatStreamEvent.error("Message cannot be empty"))));
         }
 
-        return chatService.chatStream(request);
+        // Reject up front while the status can still be set; a slot that is not freed in time
+        // once the stream has started ends it with an error event instead
+        if (llmBulkhead.isQueueFull()) {
+            log.warn("Streaming chat request rejected: LLM queue full");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(llmBulkhead.getRetryAfterSeconds()))
+                    .build();
+        }
+
+        return ResponseEntity.ok(chatService.chatStream(request).map(ChatController::toServerSentEvent));
+    }
+
+    private static ServerSentEvent<Object> toServerSentEvent(ChatStreamEvent event) {
+        return ServerSentEvent.builder(event.data())
+                .event(event.type())
+                .build();
+    }
+
+    @ExceptionHandler(LlmBulkhead.BulkheadFullException.class)
+    public ResponseEntity<ChatResponse> handleBulkheadFull(LlmBulkhead.BulkheadFullException e) {
+        log.warn("Chat request rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ChatResponse.builder()
+                        .message("Too many requests, please try again in " + e.getRetryAfterSeconds() + " seconds")
+                        .build());
+    }
+
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<ChatResponse> handleDependencyUnavailable(DependencyUnavailableException e) {
+        log.warn("Chat request failed: {}", e.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+        if (e.getRetryAfterSeconds() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        }
+        return response.body(ChatResponse.builder()
+                .message(ChatService.unavailableMessage(e))
+                .build());
+    }
+
+    @GetMapping("/{responseId}/follow-ups")
+    public ResponseEntity<FollowUpService.FollowUpResult> getFollowUps(@PathVariable String responseId) {
+        Optional<FollowUpService.FollowUpResult> result = followUpService.getResult(responseId);
+        if (result.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (result.get().status() == FollowUpService.Status.PENDING) {
+            return ResponseEntity.accepted().body(result.get());
+        }
+        return ResponseEntity.ok(result.get());
+    }
+
+    @DeleteMapping("/{responseId}/follow-ups")
+    public ResponseEntity<Void> cancelFollowUps(@PathVariable String responseId) {
+        if (!followUpService.cancel(responseId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/system-prompt")
@@ -34,6 +34,7 @@ public class CollectionController {
 
         response.put("resolvedCollection", resolvedCollection);
         response.put("isAlias", !collectionName.equals(resolvedCollection));
+        response.put("collections", collectionMetadataService.resolveCollections(collectionName));
 
         String title = collectionMetadataService.getTitle(collectionName);
         response.put("title", title);
@@ -2,6 +2,7 @@ package com.chatbot.controller;
 
 import com.chatbot.model.DocumentInfo;
 import com.chatbot.model.LoadResult;
+import com.chatbot.service.BlueGreenLoadService;
 import com.chatbot.service.DocumentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,13 +13,16 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/documents")
@@ -27,9 +31,11 @@ public class DocumentController {
     private static final Logger log = LoggerFactory.getLogger(DocumentController.class);
 
     private final DocumentService documentService;
+    private final BlueGreenLoadService blueGreenLoadService;
 
-    public DocumentController(DocumentService documentService) {
+    public DocumentController(DocumentService documentService, BlueGreenLoadService blueGreenLoadService) {
         this.documentService = documentService;
+        this.blueGreenLoadService = blueGreenLoadService;
     }
 
     @GetMapping
@@ -37,8 +43,16 @@ public class DocumentController {
         return ResponseEntity.ok(documentService.getLoadedDocuments());
     }
 
+    /**
+     * Load an uploaded HTML file into the default collection, or a ZIP of a help set into the
+     * given collection through the same streaming pipeline as {@code load-docs-url}.
+     */
     @PostMapping("/upload")
-    public ResponseEntity<LoadResult> uploadDocument(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<LoadResult> uploadDocument(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "collectionName", required = false) String collectionName,
+            @RequestParam(value = "incremental", defaultValue = "false") boolean incremental,
+            @RequestParam(value = "blueGreen", defaultValue = "false") boolean blueGreen) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body(
                     LoadResult.builder()
@@ -48,11 +62,18 @@ public class DocumentController {
             );
         }
 
+        if (collectionName != null && !DocumentService.isValidCollectionName(collectionName)) {
+            return invalidCollectionName(collectionName);
+        }
+
         String filename = file.getOriginalFilename();
+        if (filename != null && filename.toLowerCase().endsWith(".zip")) {
+            return loadZip(file, collectionName != null ? collectionName : "documents", incremental, blueGreen);
+        }
         if (filename == null || (!filename.endsWith(".html") && !filename.endsWith(".htm"))) {
             return ResponseEntity.badRequest().body(
                     LoadResult.builder()
-                            .message("Only HTML files are supported")
+                            .message("Only HTML and ZIP files are supported")
                             .errors(1)
                             .build()
             );
@@ -79,6 +100,35 @@ public class DocumentController {
         }
     }
 
+    private ResponseEntity<LoadResult> loadZip(MultipartFile file, String collectionName,
+                                               boolean incremental, boolean blueGreen) {
+        if (incremental && blueGreen) {
+            return ResponseEntity.badRequest().body(
+                    LoadResult.builder()
+                            .message("incremental and blueGreen cannot be combined")
+                            .errors(1)
+                            .build()
+            );
+        }
+        try (InputStream zip = file.getInputStream()) {
+            LoadResult result = blueGreen
+                    ? blueGreenLoadService.loadZip(zip, collectionName)
+                    : documentService.loadDocumentsFromZip(zip, collectionName, incremental);
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    LoadResult.builder().message(e.getMessage()).errors(1).build());
+        } catch (IOException e) {
+            log.error("Error reading uploaded ZIP file: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(
+                    LoadResult.builder()
+                            .message("Error processing file: " + e.getMessage())
+                            .errors(1)
+                            .build()
+            );
+        }
+    }
+
     @PostMapping("/load")
     public ResponseEntity<LoadResult> loadFromDirectory(@RequestBody DirectoryRequest request) {
         if (request.path() == null || request.path().isBlank()) {
@@ -91,10 +141,53 @@ public class DocumentController {
         }
 
         String collectionName = request.collectionName() != null ? request.collectionName() : "documents";
-        LoadResult result = documentService.loadDocumentsFromDirectory(request.path(), collectionName);
+        if (!DocumentService.isValidCollectionName(collectionName)) {
+            return invalidCollectionName(collectionName);
+        }
+        if (Boolean.TRUE.equals(request.blueGreen())) {
+            if (Boolean.TRUE.equals(request.incremental())) {
+                return ResponseEntity.badRequest().body(
+                        LoadResult.builder()
+                                .message("incremental and blueGreen cannot be combined")
+                                .errors(1)
+                                .build()
+                );
+            }
+            try {
+                return ResponseEntity.ok(blueGreenLoadService.load(request.path(), collectionName));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                        LoadResult.builder().message(e.getMessage()).errors(1).build());
+            }
+        }
+        LoadResult result = documentService.loadDocumentsFromDirectory(request.path(), collectionName,
+                Boolean.TRUE.equals(request.incremental()));
         return ResponseEntity.ok(result);
     }
 
+    private static ResponseEntity<LoadResult> invalidCollectionName(String collectionName) {
+        return ResponseEntity.badRequest().body(
+                LoadResult.builder()
+                        .message("Invalid collection name '" + collectionName
+                                + "': use letters, digits, '.', '_' and '-'")
+                        .errors(1)
+                        .build()
+        );
+    }
+
+    /**
+     * Point a collection loaded with blueGreen back at the version it served before its last load.
+     */
+    @PostMapping("/collections/{collectionName}/rollback")
+    public ResponseEntity<Map<String, String>> rollbackCollection(@PathVariable String collectionName) {
+        try {
+            String target = blueGreenLoadService.rollback(collectionName);
+            return ResponseEntity.ok(Map.of("collection", collectionName, "target", target));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping
     public ResponseEntity<Void> clearDocuments() {
         documentService.clearDocuments();
@@ -121,5 +214,9 @@ public class DocumentController {
                 .body(resource);
     }
 
-    public record DirectoryRequest(String path, String collectionName) {}
+    /**
+     * @param incremental only re-embed files added, changed or removed since the last load
+     * @param blueGreen   load into a new version of the collection and switch to it once it validates
+     */
+    public record DirectoryRequest(String path, String collectionName, Boolean incremental, Boolean blueGreen) {}
 }
@@ -0,0 +1,81 @@
+package com.chatbot.controller;
+
+import com.chatbot.config.ChromaVectorStoreFactory;
+import com.chatbot.config.QueryEmbeddingCache;
+import com.chatbot.resilience.DependencyGuard;
+import com.chatbot.service.ChunkEmbeddingStore;
+import com.chatbot.service.FollowUpService;
+import com.chatbot.service.HistoryCompactor;
+import com.chatbot.service.LlmBulkhead;
+import com.chatbot.service.PersistentAnswerCache;
+import com.chatbot.service.PromptCacheStats;
+import com.chatbot.service.RelevanceGate;
+import com.chatbot.service.RequestCoalescer;
+import com.chatbot.service.SemanticAnswerCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes runtime counters for the caching and retrieval layers.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final SemanticAnswerCache answerCache;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final FollowUpService followUpService;
+    private final ChromaVectorStoreFactory vectorStoreFactory;
+    private final HistoryCompactor historyCompactor;
+    private final PromptCacheStats promptCacheStats;
+    private final RequestCoalescer requestCoalescer;
+    private final LlmBulkhead llmBulkhead;
+    private final RelevanceGate relevanceGate;
+    private final PersistentAnswerCache persistentAnswerCache;
+    private final DependencyGuard dependencyGuard;
+    private final ChunkEmbeddingStore embeddingStore;
+
+    public StatsController(SemanticAnswerCache answerCache, QueryEmbeddingCache queryEmbeddingCache,
+                           FollowUpService followUpService, ChromaVectorStoreFactory vectorStoreFactory,
+                           HistoryCompactor historyCompactor, PromptCacheStats promptCacheStats,
+                           RequestCoalescer requestCoalescer, LlmBulkhead llmBulkhead,
+                           RelevanceGate relevanceGate, PersistentAnswerCache persistentAnswerCache,
+                           DependencyGuard dependencyGuard, ChunkEmbeddingStore embeddingStore) {
+        this.answerCache = answerCache;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.followUpService = followUpService;
+        this.vectorStoreFactory = vectorStoreFactory;
+        this.historyCompactor = historyCompactor;
+        this.promptCacheStats = promptCacheStats;
+        this.requestCoalescer = requestCoalescer;
+        this.llmBulkhead = llmBulkhead;
+        this.relevanceGate = relevanceGate;
+        this.persistentAnswerCache = persistentAnswerCache;
+        this.dependencyGuard = dependencyGuard;
+        this.embeddingStore = embeddingStore;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("answerCache", answerCache.getStats());
+        stats.put("persistentAnswerCache", persistentAnswerCache.getStats());
+        stats.put("queryEmbeddingCache", queryEmbeddingCache.getStats());
+        stats.put("followUps", followUpService.getStats());
+        stats.put("vectorStores", vectorStoreFactory.getStats());
+        stats.put("embeddingBatches", vectorStoreFactory.getEmbeddingBatchStats());
+        stats.put("history", historyCompactor.getStats());
+        stats.put("promptCache", promptCacheStats.getStats());
+        stats.put("coalescing", requestCoalescer.getStats());
+        stats.put("llmBulkhead", llmBulkhead.getStats());
+        stats.put("relevanceGate", relevanceGate.getStats());
+        stats.put("dependencies", dependencyGuard.getStats());
+        stats.put("embeddingStore", embeddingStore.getStats());
+        return ResponseEntity.ok(stats);
+    }
+}
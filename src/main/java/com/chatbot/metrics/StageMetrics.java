@@ -0,0 +1,162 @@
+package com.chatbot.metrics;
+
+import com.chatbot.config.RagConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency timers for each stage of answering a question and of loading a collection, tagged
+ * by stage and collection. Only collections registered with {@link #registerCollection} get
+ * their own tag; any other name from a request is tagged {@code other}, so callers cannot
+ * create series at will. Histogram buckets are enabled for the {@code rag} prefix under
+ * {@code management.metrics.distribution}, so percentiles can be aggregated across instances.
+ */
+@Component
+public class StageMetrics {
+
+    static final String CHAT_STAGE = "rag.chat.stage";
+    static final String INGEST_STAGE = "rag.ingest.stage";
+    static final String INGEST_ITEMS = "rag.ingest.items";
+
+    public enum ChatStage {
+        /** Embedding the question for the answer cache; part of VECTOR_SEARCH when that cache is off */
+        QUERY_EMBEDDING,
+        /** Chroma or embedded-store similarity search, including hedged attempts */
+        VECTOR_SEARCH,
+        /** BM25 lookup in hybrid mode */
+        LEXICAL_SEARCH,
+        /** Everything retrieval does for one collection, fusion and reranking included */
+        RETRIEVAL,
+        /** Packing retrieved chunks and compacting history into the prompt */
+        CONTEXT_BUILD,
+        /** From the LLM call to its first streamed token */
+        LLM_FIRST_TOKEN,
+        /** Whole LLM call, blocking or streamed */
+        LLM_TOTAL,
+        /** Background follow-up question generation */
+        FOLLOW_UPS
+    }
+
+    public enum IngestStage {
+        PARSE,
+        CHUNK,
+        /** One batched call to the embedding API */
+        EMBED_BATCH,
+        /** Writing an embedded batch to the vector store */
+        STORE_ADD
+    }
+
+    public enum IngestItem { FILES, CHUNKS, ERRORS }
+
+    static final String DEFAULT_COLLECTION = "documents";
+    static final String OTHER_COLLECTION = "other";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Set<String> collections = ConcurrentHashMap.newKeySet();
+
+    public StageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Give a collection that exists its own tag.
+     */
+    public void registerCollection(String collection) {
+        collections.add(collection);
+    }
+
+    public void unregisterCollection(String collection) {
+        collections.remove(collection);
+    }
+
+    public void record(ChatStage stage, String collection, long nanos) {
+        timer(CHAT_STAGE, stage.name(), collection).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a stage that served several collections at once under each of them.
+     */
+    public void record(ChatStage stage, List<String> collections, long nanos) {
+        for (String collection : collections) {
+            record(stage, collection, nanos);
+        }
+    }
+
+    public void record(IngestStage stage, String collection, long nanos) {
+        timer(INGEST_STAGE, stage.name(), collection).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T time(ChatStage stage, String collection, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(stage, collection, System.nanoTime() - start);
+        }
+    }
+
+    public <T> T time(ChatStage stage, List<String> collections, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(stage, collections, System.nanoTime() - start);
+        }
+    }
+
+    public <T> T time(IngestStage stage, String collection, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(stage, collection, System.nanoTime() - start);
+        }
+    }
+
+    public void count(IngestItem item, String collection, long amount) {
+        if (amount <= 0) {
+            return;
+        }
+        String tag = tagValue(collection);
+        counters.computeIfAbsent(item.name() + '|' + tag, key -> Counter.builder(INGEST_ITEMS)
+                        .description("Files, chunks and failed files processed by collection loads")
+                        .tag("item", item.name().toLowerCase())
+                        .tag("collection", tag)
+                        .register(registry))
+                .increment(amount);
+    }
+
+    private Timer timer(String name, String stage, String collection) {
+        String tag = tagValue(collection);
+        // Builder.register looks the meter up anyway; the map skips building the id on every call
+        return timers.computeIfAbsent(name + '|' + stage + '|' + tag, key -> Timer.builder(name)
+                .description(name.equals(CHAT_STAGE)
+                        ? "Time spent in each stage of answering a question"
+                        : "Time spent in each stage of loading a collection")
+                .tag("stage", stage.toLowerCase())
+                .tag("collection", tag)
+                .register(registry));
+    }
+
+    private String tagValue(String collection) {
+        if (collection == null || collection.equals(DEFAULT_COLLECTION)) {
+            return DEFAULT_COLLECTION;
+        }
+        if (!collections.contains(collection)) {
+            return OTHER_COLLECTION;
+        }
+        // Blue/green versions report under their alias so each load doesn't start new series
+        return RagConfig.settingsName(collection);
+    }
+}
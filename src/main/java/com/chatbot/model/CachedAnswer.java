@@ -0,0 +1,88 @@
+package com.chatbot.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * An answer persisted by the answer cache so it survives restarts. The id is a hash of the
+ * collections and their versions, the normalized question and the system prompt and history.
+ */
+@Entity
+@Table(name = "cached_answers", indexes = @Index(name = "idx_cached_answers_created_at", columnList = "createdAt"))
+public class CachedAnswer {
+
+    @Id
+    private String id;
+
+    /**
+     * Comma-separated collections the answer was retrieved from.
+     */
+    @Column(nullable = false, length = 1000)
+    private String collections;
+
+    @Column(columnDefinition = "CLOB")
+    private String message;
+
+    @Column(columnDefinition = "CLOB")
+    private String sourcesJson;
+
+    @Column(columnDefinition = "CLOB")
+    private String followUpsJson;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public CachedAnswer() {
+        this.createdAt = Instant.now();
+        this.sourcesJson = "[]";
+        this.followUpsJson = "[]";
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCollections() {
+        return collections;
+    }
+
+    public void setCollections(String collections) {
+        this.collections = collections;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getSourcesJson() {
+        return sourcesJson;
+    }
+
+    public void setSourcesJson(String sourcesJson) {
+        this.sourcesJson = sourcesJson;
+    }
+
+    public String getFollowUpsJson() {
+        return followUpsJson;
+    }
+
+    public void setFollowUpsJson(String followUpsJson) {
+        this.followUpsJson = followUpsJson;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -9,6 +9,8 @@ public class ChatRequest {
     private List<ChatMessage> history = new ArrayList<>();
     private String systemPrompt;
     private String collectionName;
+    private List<String> collectionNames;
+    private String conversationId;
 
     public ChatRequest() {}
 
@@ -62,6 +64,25 @@ public class ChatRequest {
         this.collectionName = collectionName;
     }
 
+    /**
+     * Collections to search together; takes precedence over {@link #getCollectionName()}.
+     */
+    public List<String> getCollectionNames() {
+        return collectionNames;
+    }
+
+    public void setCollectionNames(List<String> collectionNames) {
+        this.collectionNames = collectionNames;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+
     public static class ChatMessage {
         private String role;
         private String content;
@@ -1,13 +1,18 @@
 package com.chatbot.model;
 
 import java.util.List;
+import java.util.Map;
 
 public class ChatResponse {
 
     private String message;
     private List<Source> sources;
-    private List<String> followUps;
+    // Volatile: a cached answer gets its follow-ups from a background thread while requests read it
+    private volatile List<String> followUps;
     private long processingTimeMs;
+    private volatile String responseId;
+    private Map<String, Long> retrievalTimingsMs;
+    private TokenUsage usage;
 
     public ChatResponse() {}
 
@@ -50,6 +55,33 @@ public class ChatResponse {
         this.processingTimeMs = processingTimeMs;
     }
 
+    public String getResponseId() {
+        return responseId;
+    }
+
+    public void setResponseId(String responseId) {
+        this.responseId = responseId;
+    }
+
+    /**
+     * Retrieval time per searched collection.
+     */
+    public Map<String, Long> getRetrievalTimingsMs() {
+        return retrievalTimingsMs;
+    }
+
+    public void setRetrievalTimingsMs(Map<String, Long> retrievalTimingsMs) {
+        this.retrievalTimingsMs = retrievalTimingsMs;
+    }
+
+    public TokenUsage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(TokenUsage usage) {
+        this.usage = usage;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -59,6 +91,9 @@ public class ChatResponse {
         private List<Source> sources;
         private List<String> followUps;
         private long processingTimeMs;
+        private String responseId;
+        private Map<String, Long> retrievalTimingsMs;
+        private TokenUsage usage;
 
         public Builder message(String message) {
             this.message = message;
@@ -80,8 +115,27 @@ public class ChatResponse {
             return this;
         }
 
+        public Builder responseId(String responseId) {
+            this.responseId = responseId;
+            return this;
+        }
+
+        public Builder retrievalTimingsMs(Map<String, Long> retrievalTimingsMs) {
+            this.retrievalTimingsMs = retrievalTimingsMs;
+            return this;
+        }
+
+        public Builder usage(TokenUsage usage) {
+            this.usage = usage;
+            return this;
+        }
+
         public ChatResponse build() {
-            return new ChatResponse(message, sources, followUps, processingTimeMs);
+            ChatResponse response = new ChatResponse(message, sources, followUps, processingTimeMs);
+            response.setResponseId(responseId);
+            response.setRetrievalTimingsMs(retrievalTimingsMs);
+            response.setUsage(usage);
+            return response;
         }
     }
 }
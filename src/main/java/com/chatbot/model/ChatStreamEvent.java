@@ -0,0 +1,55 @@
+package com.chatbot.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One server-sent event of a streamed chat answer. A stream carries, in order, one
+ * {@code sources} event once retrieval finishes, {@code token} events as the answer is
+ * generated, one {@code followUps} event and a final {@code done} event. An {@code error}
+ * event replaces whatever has not been sent yet when the answer fails.
+ *
+ * @param type SSE event name
+ * @param data JSON payload
+ */
+public record ChatStreamEvent(String type, Object data) {
+
+    /**
+     * @param retrievalTimingsMs retrieval time per searched collection
+     */
+    public record SourcesData(List<Source> sources, long retrievalMs, Map<String, Long> retrievalTimingsMs) {}
+
+    public record TokenData(String text) {}
+
+    public record FollowUpsData(List<String> followUps) {}
+
+    /**
+     * @param firstTokenMs time from the request to the first answer token, or null if there was none
+     * @param usage        token usage reported by the provider, or null
+     */
+    public record DoneData(String responseId, boolean cached, long retrievalMs, Long firstTokenMs, long totalMs,
+                           TokenUsage usage) {}
+
+    public record ErrorData(String message) {}
+
+    public static ChatStreamEvent sources(List<Source> sources, long retrievalMs, Map<String, Long> retrievalTimingsMs) {
+        return new ChatStreamEvent("sources", new SourcesData(sources, retrievalMs, retrievalTimingsMs));
+    }
+
+    public static ChatStreamEvent token(String text) {
+        return new ChatStreamEvent("token", new TokenData(text));
+    }
+
+    public static ChatStreamEvent followUps(List<String> followUps) {
+        return new ChatStreamEvent("followUps", new FollowUpsData(followUps));
+    }
+
+    public static ChatStreamEvent done(String responseId, boolean cached, long retrievalMs, Long firstTokenMs,
+                                       long totalMs, TokenUsage usage) {
+        return new ChatStreamEvent("done", new DoneData(responseId, cached, retrievalMs, firstTokenMs, totalMs, usage));
+    }
+
+    public static ChatStreamEvent error(String message) {
+        return new ChatStreamEvent("error", new ErrorData(message));
+    }
+}
@@ -0,0 +1,56 @@
+package com.chatbot.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Content version of a collection, bumped every time its documents are wiped or reloaded.
+ * Persisted answers are keyed by it, so answers built on earlier content are never served.
+ */
+@Entity
+@Table(name = "collection_versions")
+public class CollectionVersion {
+
+    @Id
+    private String collectionName;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    public CollectionVersion() {
+        this.updatedAt = Instant.now();
+    }
+
+    public CollectionVersion(String collectionName) {
+        this();
+        this.collectionName = collectionName;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public void setCollectionName(String collectionName) {
+        this.collectionName = collectionName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+        this.updatedAt = Instant.now();
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
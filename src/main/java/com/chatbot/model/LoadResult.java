@@ -1,11 +1,30 @@
 package com.chatbot.model;
 
+import java.util.List;
+
 public class LoadResult {
 
+    /**
+     * Work done by one stage of a load.
+     *
+     * @param items          files or chunks the stage handled
+     * @param busyMs         time its workers spent on them, summed over workers
+     * @param itemsPerSecond items over the time from the stage's first item to its last
+     */
+    public record StageThroughput(String stage, String unit, long items, long busyMs, double itemsPerSecond) {}
+
     private int filesProcessed;
     private int chunksCreated;
     private int errors;
     private String message;
+    private long elapsedMs;
+    private List<StageThroughput> stages = List.of();
+    private boolean incremental;
+    private int filesUnchanged;
+    private int filesAdded;
+    private int filesChanged;
+    private int filesRemoved;
+    private int chunksRemoved;
 
     public LoadResult() {}
 
@@ -16,6 +35,13 @@ public class LoadResult {
         this.message = message;
     }
 
+    public LoadResult(int filesProcessed, int chunksCreated, int errors, String message,
+                      long elapsedMs, List<StageThroughput> stages) {
+        this(filesProcessed, chunksCreated, errors, message);
+        this.elapsedMs = elapsedMs;
+        this.stages = stages;
+    }
+
     public int getFilesProcessed() {
         return filesProcessed;
     }
@@ -48,6 +74,74 @@ public class LoadResult {
         this.message = message;
     }
 
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public List<StageThroughput> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<StageThroughput> stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * Whether files unchanged since the previous load were kept rather than reloaded. The
+     * added, changed and removed counts compare with that load; a full load adds every file.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public int getFilesUnchanged() {
+        return filesUnchanged;
+    }
+
+    public void setFilesUnchanged(int filesUnchanged) {
+        this.filesUnchanged = filesUnchanged;
+    }
+
+    public int getFilesAdded() {
+        return filesAdded;
+    }
+
+    public void setFilesAdded(int filesAdded) {
+        this.filesAdded = filesAdded;
+    }
+
+    public int getFilesChanged() {
+        return filesChanged;
+    }
+
+    public void setFilesChanged(int filesChanged) {
+        this.filesChanged = filesChanged;
+    }
+
+    public int getFilesRemoved() {
+        return filesRemoved;
+    }
+
+    public void setFilesRemoved(int filesRemoved) {
+        this.filesRemoved = filesRemoved;
+    }
+
+    public int getChunksRemoved() {
+        return chunksRemoved;
+    }
+
+    public void setChunksRemoved(int chunksRemoved) {
+        this.chunksRemoved = chunksRemoved;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -57,6 +151,14 @@ public class LoadResult {
         private int chunksCreated;
         private int errors;
         private String message;
+        private long elapsedMs;
+        private List<StageThroughput> stages = List.of();
+        private boolean incremental;
+        private int filesUnchanged;
+        private int filesAdded;
+        private int filesChanged;
+        private int filesRemoved;
+        private int chunksRemoved;
 
         public Builder filesProcessed(int filesProcessed) {
             this.filesProcessed = filesProcessed;
@@ -78,8 +180,55 @@ public class LoadResult {
             return this;
         }
 
+        public Builder elapsedMs(long elapsedMs) {
+            this.elapsedMs = elapsedMs;
+            return this;
+        }
+
+        public Builder stages(List<StageThroughput> stages) {
+            this.stages = stages;
+            return this;
+        }
+
+        public Builder incremental(boolean incremental) {
+            this.incremental = incremental;
+            return this;
+        }
+
+        public Builder filesUnchanged(int filesUnchanged) {
+            this.filesUnchanged = filesUnchanged;
+            return this;
+        }
+
+        public Builder filesAdded(int filesAdded) {
+            this.filesAdded = filesAdded;
+            return this;
+        }
+
+        public Builder filesChanged(int filesChanged) {
+            this.filesChanged = filesChanged;
+            return this;
+        }
+
+        public Builder filesRemoved(int filesRemoved) {
+            this.filesRemoved = filesRemoved;
+            return this;
+        }
+
+        public Builder chunksRemoved(int chunksRemoved) {
+            this.chunksRemoved = chunksRemoved;
+            return this;
+        }
+
         public LoadResult build() {
-            return new LoadResult(filesProcessed, chunksCreated, errors, message);
+            LoadResult result = new LoadResult(filesProcessed, chunksCreated, errors, message, elapsedMs, stages);
+            result.setIncremental(incremental);
+            result.setFilesUnchanged(filesUnchanged);
+            result.setFilesAdded(filesAdded);
+            result.setFilesChanged(filesChanged);
+            result.setFilesRemoved(filesRemoved);
+            result.setChunksRemoved(chunksRemoved);
+            return result;
         }
     }
 }
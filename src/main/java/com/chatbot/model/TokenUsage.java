@@ -0,0 +1,47 @@
+package com.chatbot.model;
+
+/**
+ * Token counts the LLM provider reported for one answer. Fields are null when the provider
+ * did not report them.
+ */
+public class TokenUsage {
+
+    private Long promptTokens;
+    private Long completionTokens;
+    private Long cachedPromptTokens;
+
+    public TokenUsage() {}
+
+    public TokenUsage(Long promptTokens, Long completionTokens, Long cachedPromptTokens) {
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.cachedPromptTokens = cachedPromptTokens;
+    }
+
+    public Long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public void setPromptTokens(Long promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+
+    public Long getCompletionTokens() {
+        return completionTokens;
+    }
+
+    public void setCompletionTokens(Long completionTokens) {
+        this.completionTokens = completionTokens;
+    }
+
+    /**
+     * Prompt tokens the provider served from its prefix cache.
+     */
+    public Long getCachedPromptTokens() {
+        return cachedPromptTokens;
+    }
+
+    public void setCachedPromptTokens(Long cachedPromptTokens) {
+        this.cachedPromptTokens = cachedPromptTokens;
+    }
+}
@@ -0,0 +1,39 @@
+package com.chatbot.repository;
+
+import com.chatbot.model.CachedAnswer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface CachedAnswerRepository extends JpaRepository<CachedAnswer, String> {
+
+    List<CachedAnswer> findTop100ByOrderByCreatedAtAsc();
+
+    @Modifying
+    @Transactional
+    @Query("delete from CachedAnswer a where a.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+
+    /**
+     * Delete answers retrieved from a collection, alone or together with others.
+     */
+    default int deleteByCollection(String collection) {
+        // Collection names may contain '_', which LIKE would match against any character
+        return deleteByCollectionPattern(collection.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_"));
+    }
+
+    /**
+     * @param collection a collection name with LIKE wildcards escaped by backslashes
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from CachedAnswer a where concat(',', a.collections, ',') like concat('%,', :collection, ',%') escape '\\'")
+    int deleteByCollectionPattern(@Param("collection") String collection);
+}
@@ -0,0 +1,125 @@
+package com.chatbot.resilience;
+
+/**
+ * Count-based circuit breaker. It opens when the failure rate over the last {@code window}
+ * calls reaches the threshold, refuses calls while open, and after {@code openMillis} lets a
+ * single trial call through: its success closes the breaker, its failure opens it again. A
+ * trial whose outcome is never recorded, e.g. a cancelled stream, is replaced by a new one
+ * after another {@code openMillis}.
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long trialStartedAt;
+    private long timesOpened;
+
+    CircuitBreaker(int window, int minimumCalls, double failureRateThreshold, long openMillis) {
+        this.window = Math.max(1, window);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.window));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.outcomes = new boolean[this.window];
+    }
+
+    /**
+     * @return true if a call may go ahead now
+     */
+    synchronized boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialStartedAt = now;
+                return true;
+            default:
+                if (now - trialStartedAt < openMillis) {
+                    return false;
+                }
+                trialStartedAt = now;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls
+                && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Milliseconds until a refused caller may try again.
+     */
+    synchronized long remainingOpenMillis() {
+        long since = System.currentTimeMillis() - (state == State.OPEN ? openedAt : trialStartedAt);
+        return Math.max(0, openMillis - since);
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized double failureRate() {
+        return recorded > 0 ? (double) failures / recorded : 0.0;
+    }
+
+    synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window && outcomes[next]) {
+            failures--;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window;
+        recorded = Math.min(recorded + 1, window);
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = System.currentTimeMillis();
+        timesOpened++;
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,228 @@
+package com.chatbot.resilience;
+
+import com.chatbot.config.RagConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Deadlines, hedging and circuit breaking for calls to external dependencies. Each dependency
+ * has its own breaker and a window of recent latencies. Idempotent calls can be hedged: if the
+ * first attempt has not answered by the dependency's recent p95 latency, a duplicate is sent
+ * and whichever answers first wins, so one slow request does not set the tail latency.
+ */
+@Service
+public class DependencyGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(DependencyGuard.class);
+
+    public static final String CHROMA = "chroma";
+    public static final String LLM = "openai";
+
+    private static final int LATENCY_SAMPLES = 200;
+    // Hedge only once the percentile is based on enough calls
+    private static final int MIN_SAMPLES_TO_HEDGE = 20;
+
+    private final RagConfig ragConfig;
+    private final Executor executor;
+    private final Map<String, Dependency> dependencies = new ConcurrentHashMap<>();
+
+    private class Dependency {
+        final CircuitBreaker breaker;
+        final LatencyWindow latencies = new LatencyWindow(LATENCY_SAMPLES);
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong hedges = new AtomicLong();
+        final AtomicLong hedgeWins = new AtomicLong();
+
+        Dependency(String name) {
+            RagConfig.Resilience config = ragConfig.getResilience();
+            this.breaker = new CircuitBreaker(config.getBreakerWindow(), config.getBreakerMinimumCalls(),
+                    config.getBreakerFailureRate(), TimeUnit.SECONDS.toMillis(config.getBreakerOpenSeconds()));
+        }
+    }
+
+    public DependencyGuard(RagConfig ragConfig, @Qualifier("guardedCallExecutor") Executor executor) {
+        this.ragConfig = ragConfig;
+        this.executor = executor;
+    }
+
+    private Dependency dependency(String name) {
+        return dependencies.computeIfAbsent(name, Dependency::new);
+    }
+
+    /**
+     * Refuse a call up front while the dependency's breaker is open.
+     *
+     * @throws DependencyUnavailableException if the breaker is open
+     */
+    public void checkAvailable(String name) {
+        Dependency dependency = dependency(name);
+        if (!dependency.breaker.tryAcquire()) {
+            dependency.rejected.incrementAndGet();
+            long retryAfter = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(dependency.breaker.remainingOpenMillis()));
+            throw new DependencyUnavailableException(name, name + " is unavailable", retryAfter);
+        }
+        dependency.calls.incrementAndGet();
+    }
+
+    /**
+     * Record the outcome of a call made outside this class, e.g. a stream, after {@link #checkAvailable}.
+     */
+    public void recordSuccess(String name, long latencyMillis) {
+        Dependency dependency = dependency(name);
+        dependency.latencies.record(latencyMillis);
+        dependency.breaker.onSuccess();
+    }
+
+    public void recordFailure(String name, boolean timedOut) {
+        Dependency dependency = dependency(name);
+        dependency.failures.incrementAndGet();
+        if (timedOut) {
+            dependency.timeouts.incrementAndGet();
+        }
+        dependency.breaker.onFailure();
+        if (dependency.breaker.getState() == CircuitBreaker.State.OPEN) {
+            log.warn("Circuit breaker for {} is open after repeated failures", name);
+        }
+    }
+
+    /**
+     * Run a call with a deadline, interrupting it when the deadline passes.
+     */
+    public <T> T call(String name, long deadlineMillis, Supplier<T> call) {
+        return execute(name, deadlineMillis, call, false);
+    }
+
+    /**
+     * Run an idempotent call with a deadline, sending a duplicate if the first attempt is slow.
+     */
+    public <T> T hedgedCall(String name, long deadlineMillis, Supplier<T> call) {
+        return execute(name, deadlineMillis, call, ragConfig.getResilience().isHedgeEnabled());
+    }
+
+    private <T> T execute(String name, long deadlineMillis, Supplier<T> call, boolean hedge) {
+        checkAvailable(name);
+        Dependency dependency = dependency(name);
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        List<FutureTask<T>> attempts = new ArrayList<>(2);
+        try {
+            attempts.add(attempt(dependency, call, winner, running, false));
+        } catch (RejectedExecutionException e) {
+            // Every attempt thread is held by calls that have not returned, which is itself a failure
+            recordFailure(name, false);
+            throw new DependencyUnavailableException(name, "No thread free to call " + name, 0);
+        }
+        try {
+            long hedgeDelay = hedge ? hedgeDelayMillis(dependency) : -1;
+            T result;
+            if (hedgeDelay >= 0 && hedgeDelay < deadlineMillis) {
+                try {
+                    result = winner.get(hedgeDelay, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    Future<T> pending = winner;
+                    running.incrementAndGet();
+                    try {
+                        attempts.add(attempt(dependency, call, winner, running, true));
+                        dependency.hedges.incrementAndGet();
+                    } catch (RejectedExecutionException rejected) {
+                        // No thread to spare for a duplicate; the first attempt decides alone
+                        pending = attempts.get(0);
+                    }
+                    result = pending.get(deadlineMillis - hedgeDelay, TimeUnit.MILLISECONDS);
+                }
+            } else {
+                result = winner.get(deadlineMillis, TimeUnit.MILLISECONDS);
+            }
+            dependency.breaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            recordFailure(name, true);
+            throw new DependencyUnavailableException(name, name + " did not answer within " + deadlineMillis + "ms", 0);
+        } catch (ExecutionException e) {
+            recordFailure(name, false);
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyUnavailableException(name, "Interrupted waiting for " + name, 0);
+        } finally {
+            // Stop the attempt that lost, or both if the deadline passed
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    private <T> FutureTask<T> attempt(Dependency dependency, Supplier<T> call, CompletableFuture<T> winner,
+                                      AtomicInteger running, boolean isHedge) {
+        FutureTask<T> task = new FutureTask<>(() -> {
+            long start = System.nanoTime();
+            try {
+                T value = call.get();
+                dependency.latencies.record((System.nanoTime() - start) / 1_000_000);
+                if (winner.complete(value) && isHedge) {
+                    dependency.hedgeWins.incrementAndGet();
+                }
+                return value;
+            } catch (Throwable t) {
+                // Only fail once no attempt is left that could still succeed
+                if (running.decrementAndGet() == 0) {
+                    winner.completeExceptionally(t);
+                }
+                throw t;
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    private long hedgeDelayMillis(Dependency dependency) {
+        if (dependency.latencies.size() < MIN_SAMPLES_TO_HEDGE) {
+            return -1;
+        }
+        RagConfig.Resilience config = ragConfig.getResilience();
+        return Math.max(config.getHedgeMinDelayMillis(), dependency.latencies.percentile(config.getHedgePercentile()));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        dependencies.forEach((name, dependency) -> {
+            long hedges = dependency.hedges.get();
+            Map<String, Object> dependencyStats = new LinkedHashMap<>();
+            dependencyStats.put("breakerState", dependency.breaker.getState().name().toLowerCase());
+            dependencyStats.put("recentFailureRate", dependency.breaker.failureRate());
+            dependencyStats.put("timesOpened", dependency.breaker.getTimesOpened());
+            dependencyStats.put("calls", dependency.calls.get());
+            dependencyStats.put("failures", dependency.failures.get());
+            dependencyStats.put("timeouts", dependency.timeouts.get());
+            dependencyStats.put("rejected", dependency.rejected.get());
+            dependencyStats.put("hedges", hedges);
+            dependencyStats.put("hedgeWins", dependency.hedgeWins.get());
+            dependencyStats.put("hedgeWinRate", hedges > 0 ? (double) dependency.hedgeWins.get() / hedges : 0.0);
+            dependencyStats.put("p50Ms", dependency.latencies.percentile(0.5));
+            dependencyStats.put("p95Ms", dependency.latencies.percentile(0.95));
+            stats.put(name, dependencyStats);
+        });
+        return stats;
+    }
+}
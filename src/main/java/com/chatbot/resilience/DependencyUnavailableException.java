@@ -0,0 +1,28 @@
+package com.chatbot.resilience;
+
+/**
+ * Thrown when a call to an external dependency misses its deadline or is refused because the
+ * dependency's circuit breaker is open.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+
+    private final String dependency;
+    private final long retryAfterSeconds;
+
+    public DependencyUnavailableException(String dependency, String message, long retryAfterSeconds) {
+        super(message);
+        this.dependency = dependency;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getDependency() {
+        return dependency;
+    }
+
+    /**
+     * Seconds until the dependency is tried again, or 0 when it was not refused up front.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,367 @@
+package com.chatbot.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory BM25 index over document chunks.
+ * Postings are stored per term as varint-encoded (docId delta, term frequency) pairs in one
+ * shared byte array, so the whole index is a handful of primitive arrays plus the term dictionary.
+ */
+public final class LexicalIndex {
+
+    private static final int FILE_MAGIC = 0x424d3235; // "BM25"
+    private static final int FILE_VERSION = 1;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    /**
+     * The stored fields of an indexed chunk, enough to rebuild a Document for the prompt.
+     */
+    public record Chunk(String content, String source, String title, int chunk, int totalChunks, String docId) {}
+
+    public record Hit(Chunk chunk, float score) {}
+
+    private final Map<String, Integer> termIds;
+    private final int[] docFrequencies;
+    private final int[] postingOffsets;
+    private final byte[] postings;
+    private final int[] docLengths;
+    private final float avgDocLength;
+    private final Chunk[] chunks;
+
+    private LexicalIndex(Map<String, Integer> termIds, int[] docFrequencies, int[] postingOffsets,
+                         byte[] postings, int[] docLengths, Chunk[] chunks) {
+        this.termIds = termIds;
+        this.docFrequencies = docFrequencies;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+        this.docLengths = docLengths;
+        this.chunks = chunks;
+        long total = 0;
+        for (int length : docLengths) {
+            total += length;
+        }
+        this.avgDocLength = docLengths.length > 0 ? (float) total / docLengths.length : 0f;
+    }
+
+    public int size() {
+        return chunks.length;
+    }
+
+    /**
+     * The indexed chunks, e.g. to carry unchanged ones into a rebuilt index.
+     */
+    public List<Chunk> chunks() {
+        return List.of(chunks);
+    }
+
+    public int termCount() {
+        return termIds.size();
+    }
+
+    public long postingBytes() {
+        return postings.length;
+    }
+
+    /**
+     * Score all chunks containing at least one query term and return the best topK by BM25.
+     */
+    public List<Hit> search(String query, int topK) {
+        List<String> queryTerms = Tokenizer.tokenize(query);
+        if (queryTerms.isEmpty() || chunks.length == 0 || topK <= 0) {
+            return List.of();
+        }
+
+        float[] scores = new float[chunks.length];
+        int[] touched = new int[chunks.length];
+        int touchedCount = 0;
+        int n = chunks.length;
+
+        for (String term : new LinkedHashSet<>(queryTerms)) {
+            Integer termId = termIds.get(term);
+            if (termId == null) {
+                continue;
+            }
+            int df = docFrequencies[termId];
+            float idf = (float) Math.log(1 + (n - df + 0.5) / (df + 0.5));
+
+            int pos = postingOffsets[termId];
+            int end = postingOffsets[termId + 1];
+            int docId = 0;
+            while (pos < end) {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = postings[pos++];
+                    value |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                docId += value;
+
+                int tf = 0;
+                shift = 0;
+                do {
+                    b = postings[pos++];
+                    tf |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                float norm = K1 * (1 - B + B * docLengths[docId] / avgDocLength);
+                if (scores[docId] == 0f) {
+                    touched[touchedCount++] = docId;
+                }
+                scores[docId] += idf * (tf * (K1 + 1)) / (tf + norm);
+            }
+        }
+
+        return topHits(scores, touched, touchedCount, topK);
+    }
+
+    private List<Hit> topHits(float[] scores, int[] touched, int touchedCount, int topK) {
+        int k = Math.min(topK, touchedCount);
+        // Min-heap of candidate doc ids ordered by score
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (heapSize < k) {
+                heap[heapSize] = doc;
+                siftUp(heap, heapSize++, scores);
+            } else if (scores[doc] > scores[heap[0]]) {
+                heap[0] = doc;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+
+        Hit[] result = new Hit[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            int doc = heap[0];
+            result[i] = new Hit(chunks[doc], scores[doc]);
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+        return Arrays.asList(result);
+    }
+
+    private static void siftUp(int[] heap, int index, float[] scores) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[heap[index]] >= scores[heap[parent]]) {
+                return;
+            }
+            int tmp = heap[index];
+            heap[index] = heap[parent];
+            heap[parent] = tmp;
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && scores[heap[right]] < scores[heap[left]]) {
+                smallest = right;
+            }
+            if (scores[heap[index]] <= scores[heap[smallest]]) {
+                return;
+            }
+            int tmp = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = tmp;
+            index = smallest;
+        }
+    }
+
+    public void save(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+
+            out.writeInt(chunks.length);
+            for (int i = 0; i < chunks.length; i++) {
+                Chunk chunk = chunks[i];
+                out.writeInt(docLengths[i]);
+                writeString(out, chunk.content());
+                writeString(out, chunk.source());
+                writeString(out, chunk.title());
+                out.writeInt(chunk.chunk());
+                out.writeInt(chunk.totalChunks());
+                writeString(out, chunk.docId());
+            }
+
+            String[] terms = new String[termIds.size()];
+            termIds.forEach((term, id) -> terms[id] = term);
+            out.writeInt(terms.length);
+            for (int i = 0; i < terms.length; i++) {
+                writeString(out, terms[i]);
+                out.writeInt(docFrequencies[i]);
+                out.writeInt(postingOffsets[i + 1]);
+            }
+            out.writeInt(postings.length);
+            out.write(postings);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static LexicalIndex load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unsupported lexical index format: " + file);
+            }
+
+            int chunkCount = in.readInt();
+            Chunk[] chunks = new Chunk[chunkCount];
+            int[] docLengths = new int[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                docLengths[i] = in.readInt();
+                chunks[i] = new Chunk(readString(in), readString(in), readString(in),
+                        in.readInt(), in.readInt(), readString(in));
+            }
+
+            int termCount = in.readInt();
+            Map<String, Integer> termIds = new HashMap<>(termCount * 2);
+            int[] docFrequencies = new int[termCount];
+            int[] postingOffsets = new int[termCount + 1];
+            for (int i = 0; i < termCount; i++) {
+                termIds.put(readString(in), i);
+                docFrequencies[i] = in.readInt();
+                postingOffsets[i + 1] = in.readInt();
+            }
+            byte[] postings = new byte[in.readInt()];
+            in.readFully(postings);
+
+            return new LexicalIndex(termIds, docFrequencies, postingOffsets, postings, docLengths, chunks);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Accumulates chunks in insertion order. Not thread-safe.
+     */
+    public static class Builder {
+
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final List<int[]> termPostings = new ArrayList<>(); // per term: [size, doc, tf, doc, tf, ...]
+        private final List<Chunk> chunks = new ArrayList<>();
+        private int[] docLengths = new int[1024];
+
+        public Builder add(Chunk chunk) {
+            int docId = chunks.size();
+            chunks.add(chunk);
+
+            // Title terms are indexed with every chunk so page names match any part of the page
+            List<String> tokens = Tokenizer.tokenize(chunk.title() + " " + chunk.content());
+            if (docId == docLengths.length) {
+                docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+            }
+            docLengths[docId] = tokens.size();
+
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            frequencies.forEach((term, tf) -> {
+                int termId = termIds.computeIfAbsent(term, t -> {
+                    termPostings.add(new int[9]);
+                    return termPostings.size() - 1;
+                });
+                int[] list = termPostings.get(termId);
+                int size = list[0];
+                if (size + 3 > list.length) {
+                    list = Arrays.copyOf(list, list.length * 2);
+                    termPostings.set(termId, list);
+                }
+                list[size + 1] = docId;
+                list[size + 2] = tf;
+                list[0] = size + 2;
+            });
+            return this;
+        }
+
+        public LexicalIndex build() {
+            int termCount = termIds.size();
+            int[] docFrequencies = new int[termCount];
+            int[] postingOffsets = new int[termCount + 1];
+            VarIntWriter writer = new VarIntWriter();
+
+            for (int termId = 0; termId < termCount; termId++) {
+                int[] list = termPostings.get(termId);
+                int size = list[0];
+                int previousDoc = 0;
+                for (int i = 1; i < size; i += 2) {
+                    writer.write(list[i] - previousDoc);
+                    writer.write(list[i + 1]);
+                    previousDoc = list[i];
+                }
+                docFrequencies[termId] = size / 2;
+                postingOffsets[termId + 1] = writer.size();
+            }
+
+            return new LexicalIndex(new HashMap<>(termIds), docFrequencies, postingOffsets, writer.toByteArray(),
+                    Arrays.copyOf(docLengths, chunks.size()), chunks.toArray(new Chunk[0]));
+        }
+    }
+
+    private static class VarIntWriter {
+
+        private byte[] buffer = new byte[4096];
+        private int size;
+
+        void write(int value) {
+            if (size + 5 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            while ((value & ~0x7f) != 0) {
+                buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+}
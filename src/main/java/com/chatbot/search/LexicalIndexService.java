@@ -0,0 +1,75 @@
+package com.chatbot.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link LexicalIndex} per collection in memory. Indexes are written next to the
+ * collection's docs directory when a collection is loaded and read back lazily on first use.
+ */
+@Service
+public class LexicalIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(LexicalIndexService.class);
+    private static final String INDEX_SUFFIX = ".bm25";
+
+    private final Map<String, LexicalIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * The index file for a collection, stored beside (not inside) its served docs directory.
+     */
+    public Path getIndexPath(Path collectionDocsPath) {
+        return collectionDocsPath.resolveSibling(collectionDocsPath.getFileName() + INDEX_SUFFIX);
+    }
+
+    public void save(String collectionName, Path collectionDocsPath, LexicalIndex index) {
+        indexes.put(collectionName, index);
+        Path indexPath = getIndexPath(collectionDocsPath);
+        try {
+            index.save(indexPath);
+            log.info("Saved lexical index for collection '{}' ({} chunks, {} terms, {} KB postings) to {}",
+                    collectionName, index.size(), index.termCount(), index.postingBytes() / 1024, indexPath);
+        } catch (IOException e) {
+            log.error("Failed to save lexical index for collection '{}': {}", collectionName, e.getMessage());
+        }
+    }
+
+    public Optional<LexicalIndex> getIndex(String collectionName, Path collectionDocsPath) {
+        LexicalIndex index = indexes.computeIfAbsent(collectionName, name -> load(name, collectionDocsPath));
+        return Optional.ofNullable(index);
+    }
+
+    public void remove(String collectionName, Path collectionDocsPath) {
+        indexes.remove(collectionName);
+        try {
+            Files.deleteIfExists(getIndexPath(collectionDocsPath));
+        } catch (IOException e) {
+            log.warn("Failed to delete lexical index for collection '{}': {}", collectionName, e.getMessage());
+        }
+    }
+
+    private LexicalIndex load(String collectionName, Path collectionDocsPath) {
+        Path indexPath = getIndexPath(collectionDocsPath);
+        if (!Files.exists(indexPath)) {
+            return null;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            LexicalIndex index = LexicalIndex.load(indexPath);
+            log.info("Loaded lexical index for collection '{}' ({} chunks) in {}ms",
+                    collectionName, index.size(), System.currentTimeMillis() - start);
+            return index;
+        } catch (IOException e) {
+            log.warn("Failed to load lexical index for collection '{}': {}", collectionName, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.chatbot.search;
+
+import com.chatbot.util.VectorMath;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maximal marginal relevance reranking. Picks results one at a time, each maximizing
+ * {@code lambda * relevance - (1 - lambda) * similarity to the closest result already picked},
+ * so near-duplicate chunks of the same page do not fill every slot.
+ * <p>
+ * Candidates are compared by their embeddings. A candidate without one is compared by term
+ * overlap instead and takes its relevance from its distance metadata, or, for a BM25-only
+ * hit from hybrid retrieval, from the candidate ranked above it.
+ */
+public final class MaximalMarginalRelevance {
+
+    private MaximalMarginalRelevance() {}
+
+    /**
+     * @param query      unit-length query embedding
+     * @param candidates ranked best first
+     * @param lambda     1 ranks by relevance alone, 0 by diversity alone
+     * @return up to topK candidates in selection order
+     */
+    public static List<Document> select(float[] query, List<Document> candidates, int topK, double lambda) {
+        int n = candidates.size();
+        if (n <= 1 || topK <= 0) {
+            return candidates.subList(0, Math.min(n, Math.max(topK, 0)));
+        }
+
+        float[][] embeddings = new float[n][];
+        double[] relevance = new double[n];
+        for (int i = 0; i < n; i++) {
+            List<Double> embedding = candidates.get(i).getEmbedding();
+            if (embedding != null && embedding.size() == query.length) {
+                embeddings[i] = VectorMath.normalize(VectorMath.toFloatArray(embedding));
+                relevance[i] = VectorMath.dot(query, embeddings[i]);
+            } else if (candidates.get(i).getMetadata().get("distance") instanceof Number distance) {
+                relevance[i] = 1.0 - distance.doubleValue();
+            } else {
+                relevance[i] = i == 0 ? 1.0 : relevance[i - 1];
+            }
+        }
+        List<Set<String>> terms = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            terms.add(null);
+        }
+
+        // Highest similarity of each candidate to anything selected so far
+        double[] redundancy = new double[n];
+        boolean[] selected = new boolean[n];
+        List<Document> result = new ArrayList<>(Math.min(topK, n));
+        while (result.size() < Math.min(topK, n)) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (selected[i]) {
+                    continue;
+                }
+                double score = lambda * relevance[i] - (1 - lambda) * redundancy[i];
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            selected[best] = true;
+            result.add(candidates.get(best));
+
+            for (int i = 0; i < n; i++) {
+                if (!selected[i]) {
+                    redundancy[i] = Math.max(redundancy[i], similarity(best, i, embeddings, candidates, terms));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static double similarity(int a, int b, float[][] embeddings, List<Document> candidates,
+                                     List<Set<String>> terms) {
+        if (embeddings[a] != null && embeddings[b] != null) {
+            return VectorMath.dot(embeddings[a], embeddings[b]);
+        }
+        return jaccard(terms(a, candidates, terms), terms(b, candidates, terms));
+    }
+
+    private static Set<String> terms(int index, List<Document> candidates, List<Set<String>> terms) {
+        Set<String> cached = terms.get(index);
+        if (cached == null) {
+            cached = new HashSet<>(Tokenizer.tokenize(candidates.get(index).getContent()));
+            terms.set(index, cached);
+        }
+        return cached;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 0.0;
+        }
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int shared = 0;
+        for (String term : smaller) {
+            if (larger.contains(term)) {
+                shared++;
+            }
+        }
+        return (double) shared / (a.size() + b.size() - shared);
+    }
+}
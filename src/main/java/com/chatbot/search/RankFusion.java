@@ -0,0 +1,56 @@
+package com.chatbot.search;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reciprocal rank fusion of several ranked document lists.
+ * Documents are identified by their docId and chunk number metadata, so the same chunk
+ * returned by different retrievers is merged even though the Document ids differ.
+ */
+public final class RankFusion {
+
+    private RankFusion() {}
+
+    public static String chunkKey(Document document) {
+        Map<String, Object> metadata = document.getMetadata();
+        Object docId = metadata.get("docId");
+        Object chunk = metadata.get("chunk");
+        if (docId == null || chunk == null) {
+            return document.getId();
+        }
+        String chunkNumber = chunk instanceof Number number ? String.valueOf(number.intValue()) : chunk.toString();
+        return docId + "#" + chunkNumber;
+    }
+
+    /**
+     * Fuse the ranked lists, scoring each document as the sum of 1 / (k + rank) over the lists
+     * it appears in. When a document appears in several lists, the first list's copy is kept.
+     */
+    @SafeVarargs
+    public static List<Document> reciprocalRank(int k, int topK, List<Document>... rankings) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+
+        for (List<Document> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                Document document = ranking.get(rank);
+                String key = chunkKey(document);
+                documents.putIfAbsent(key, document);
+                scores.merge(key, 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+
+        List<String> keys = new ArrayList<>(scores.keySet());
+        keys.sort(Comparator.comparingDouble((String key) -> scores.get(key)).reversed());
+        return keys.stream()
+                .limit(topK)
+                .map(documents::get)
+                .toList();
+    }
+}
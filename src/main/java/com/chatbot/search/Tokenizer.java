@@ -0,0 +1,70 @@
+package com.chatbot.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tokenizer for the lexical index. Lowercases text and splits on anything that is not a
+ * letter or digit, but also keeps compound tokens joined by '.', '-', '_' or '/' intact so
+ * exact field names, error codes and menu paths can match as a whole.
+ */
+public final class Tokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "does", "for", "from",
+            "how", "i", "if", "in", "is", "it", "me", "my", "of", "on", "or", "that", "the",
+            "this", "to", "was", "what", "when", "where", "which", "with", "you", "your");
+
+    private Tokenizer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase();
+        int length = lower.length();
+        int i = 0;
+        while (i < length) {
+            // Skip to the start of the next word
+            while (i < length && !Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+            }
+            int compoundStart = i;
+            int parts = 0;
+            while (i < length) {
+                int wordStart = i;
+                while (i < length && Character.isLetterOrDigit(lower.charAt(i))) {
+                    i++;
+                }
+                if (i == wordStart) {
+                    break;
+                }
+                addToken(tokens, lower.substring(wordStart, i));
+                parts++;
+                // Continue the compound only across a single joiner followed by another word
+                if (i + 1 < length && isJoiner(lower.charAt(i)) && Character.isLetterOrDigit(lower.charAt(i + 1))) {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            if (parts > 1) {
+                tokens.add(lower.substring(compoundStart, i));
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isJoiner(char c) {
+        return c == '.' || c == '-' || c == '_' || c == '/';
+    }
+
+    private static void addToken(List<String> tokens, String token) {
+        if (!STOP_WORDS.contains(token)) {
+            tokens.add(token);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.chatbot.service;
+
+import com.chatbot.config.ChromaVectorStoreFactory;
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.LoadResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+
+/**
+ * Loads a new version of a collection beside the live one and swaps the alias users query
+ * once the new version passes validation. Users keep querying the live version while the
+ * new one loads, and the version before the swap is kept so it can be rolled back to.
+ * Versions are named {@code <alias>__v<n>}; ChromaDB collection names cannot contain {@code @}.
+ * Versions take the alias's per-collection settings, see {@link RagConfig#settingsName}.
+ */
+@Service
+public class BlueGreenLoadService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlueGreenLoadService.class);
+
+    private final DocumentService documentService;
+    private final CollectionMetadataService collectionMetadataService;
+    private final IngestManifestService manifestService;
+    private final ChromaVectorStoreFactory vectorStoreFactory;
+    private final RagConfig ragConfig;
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+
+    public BlueGreenLoadService(DocumentService documentService, CollectionMetadataService collectionMetadataService,
+                                IngestManifestService manifestService, ChromaVectorStoreFactory vectorStoreFactory,
+                                RagConfig ragConfig) {
+        this.documentService = documentService;
+        this.collectionMetadataService = collectionMetadataService;
+        this.manifestService = manifestService;
+        this.vectorStoreFactory = vectorStoreFactory;
+        this.ragConfig = ragConfig;
+    }
+
+    /**
+     * Load a directory into the next version of an alias and point the alias at it if it
+     * validates. A version that fails validation is deleted and the alias left as it was.
+     */
+    public LoadResult load(String directoryPath, String aliasName) {
+        return load(aliasName, version -> documentService.loadDocumentsFromDirectory(directoryPath, version, false));
+    }
+
+    /**
+     * Load a ZIP archive into the next version of an alias, as {@link #load(String, String)} does a directory.
+     */
+    public LoadResult loadZip(InputStream zip, String aliasName) {
+        return load(aliasName, version -> documentService.loadDocumentsFromZip(zip, version, false));
+    }
+
+    private LoadResult load(String aliasName, Function<String, LoadResult> loader) {
+        DocumentService.validateCollectionName(aliasName);
+        if (!loading.add(aliasName)) {
+            throw new IllegalStateException("A blue/green load of '" + aliasName + "' is already running");
+        }
+        try {
+            CollectionMetadataService.CollectionMetadata aliasMeta = collectionMetadataService.getMetadata(aliasName);
+            String live = collectionMetadataService.resolveCollection(aliasName);
+            String version = aliasName + "__v" + (latestVersion(aliasMeta) + 1);
+            // Swapping or rolling back must not silently move the alias to another store type
+            String versionType = ragConfig.getVectorStores().typeFor(version).name();
+            String liveType = manifestService.storeTypeOf(live).orElse(versionType);
+            if (!liveType.equals(versionType)) {
+                throw new IllegalStateException(String.format("'%s' is stored in %s but a new version would be "
+                        + "stored in %s; reload without blue/green to change the store type", live, liveType, versionType));
+            }
+            log.info("Blue/green load of '{}' into '{}' (live: '{}')", aliasName, version, live);
+
+            LoadResult result = loader.apply(version);
+            String failure = validate(result, version, live);
+            if (failure != null) {
+                log.warn("Blue/green load of '{}' failed validation: {}", version, failure);
+                documentService.deleteCollection(version);
+                result.setErrors(Math.max(1, result.getErrors()));
+                result.setMessage(String.format("%s. Validation failed: %s; '%s' still points at '%s'",
+                        result.getMessage(), failure, aliasName, live));
+                return result;
+            }
+
+            String retired = collectionMetadataService.swapAlias(aliasName, version);
+            if (retired != null && !retired.equals(aliasName) && !retired.equals(version)) {
+                documentService.deleteCollection(retired);
+            }
+            result.setMessage(String.format("%s. '%s' now points at '%s'; '%s' is kept for rollback",
+                    result.getMessage(), aliasName, version, live));
+            return result;
+        } finally {
+            loading.remove(aliasName);
+        }
+    }
+
+    /**
+     * Point an alias back at the version it pointed at before its last swap.
+     *
+     * @return the version the alias now points at
+     */
+    public String rollback(String aliasName) {
+        if (loading.contains(aliasName)) {
+            throw new IllegalStateException("A blue/green load of '" + aliasName + "' is running");
+        }
+        return collectionMetadataService.rollbackAlias(aliasName);
+    }
+
+    /**
+     * @return why the new version must not go live, or null if it may
+     */
+    private String validate(LoadResult result, String version, String live) {
+        if (result.getFilesProcessed() == 0 || result.getChunksCreated() == 0) {
+            return "no documents were loaded";
+        }
+        int files = result.getFilesProcessed() + result.getErrors();
+        double errorRate = (double) result.getErrors() / files;
+        if (errorRate > ragConfig.getBlueGreen().getMaxErrorRate()) {
+            return String.format("%d of %d files failed to parse", result.getErrors(), files);
+        }
+        // Files without text are in the manifest but not counted as processed
+        int liveFiles = manifestService.load(live)
+                .map(manifest -> (int) manifest.files().values().stream()
+                        .filter(entry -> !entry.chunkIds().isEmpty())
+                        .count())
+                .orElse(0);
+        if (result.getFilesProcessed() < liveFiles * ragConfig.getBlueGreen().getMinFileRatio()) {
+            return String.format("%d files against %d in '%s'", result.getFilesProcessed(), liveFiles, live);
+        }
+
+        // A page's title should find that page, which checks embeddings and search end to end
+        IngestManifestService.FileEntry probe = manifestService.load(version)
+                .flatMap(manifest -> manifest.files().values().stream()
+                        .filter(entry -> entry.title() != null && !entry.title().isBlank())
+                        .findFirst())
+                .orElse(null);
+        if (probe == null) {
+            return null;
+        }
+        try {
+            List<Document> hits = vectorStoreFactory.getVectorStore(version)
+                    .similaritySearch(SearchRequest.query(probe.title()).withTopK(ragConfig.getMaxResults()));
+            boolean found = hits.stream().anyMatch(hit -> probe.docId().equals(hit.getMetadata().get("docId")));
+            return found ? null : "searching for '" + probe.title() + "' did not find its page";
+        } catch (Exception e) {
+            return "test search failed: " + e.getMessage();
+        }
+    }
+
+    private static int latestVersion(CollectionMetadataService.CollectionMetadata aliasMeta) {
+        if (aliasMeta == null) {
+            return 0;
+        }
+        int latest = 0;
+        for (String name : new String[] {aliasMeta.getAliasOf(), aliasMeta.getPreviousAliasOf()}) {
+            Matcher matcher = name != null ? RagConfig.VERSION_SUFFIX.matcher(name) : null;
+            if (matcher != null && matcher.find()) {
+                latest = Math.max(latest, Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return latest;
+    }
+}
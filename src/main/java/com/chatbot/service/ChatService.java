@@ -4,23 +4,56 @@ import com.chatbot.config.ChromaVectorStoreFactory;
 import com.chatbot.config.RagConfig;
 import com.chatbot.model.ChatRequest;
 import com.chatbot.model.ChatResponse;
+import com.chatbot.model.ChatStreamEvent;
 import com.chatbot.model.Source;
+import com.chatbot.metrics.StageMetrics;
+import com.chatbot.model.TokenUsage;
+import com.chatbot.resilience.DependencyGuard;
+import com.chatbot.resilience.DependencyUnavailableException;
+import com.chatbot.search.LexicalIndex;
+import com.chatbot.search.LexicalIndexService;
+import com.chatbot.search.MaximalMarginalRelevance;
+import com.chatbot.search.RankFusion;
+import com.chatbot.util.ProviderUsage;
+import com.chatbot.util.VectorMath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.ChromaVectorStore;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,9 +63,24 @@ public class ChatService {
     private static final String DEFAULT_COLLECTION = "documents";
 
     private final ChatClient.Builder chatClientBuilder;
-    private final VectorStore vectorStore;
     private final ChromaVectorStoreFactory vectorStoreFactory;
     private final RagConfig ragConfig;
+    private final SemanticAnswerCache answerCache;
+    private final FollowUpService followUpService;
+    private final LexicalIndexService lexicalIndexService;
+    private final DocumentService documentService;
+    private final Executor retrievalExecutor;
+    private final Scheduler chatScheduler;
+    private final ContextPacker contextPacker;
+    private final HistoryCompactor historyCompactor;
+    private final CollectionMetadataService collectionMetadataService;
+    private final PromptCacheStats promptCacheStats;
+    private final RequestCoalescer requestCoalescer;
+    private final LlmBulkhead llmBulkhead;
+    private final RelevanceGate relevanceGate;
+    private final PersistentAnswerCache persistentAnswerCache;
+    private final DependencyGuard dependencyGuard;
+    private final StageMetrics stageMetrics;
 
     private static final String DEFAULT_SYSTEM_PROMPT = """
             You are an expert support assistant for the CCLAS EL system. You have deep knowledge of CCLAS EL functionality, configuration, troubleshooting, and best practices.
@@ -48,23 +96,51 @@ public class ChatService {
             - Provide useful suggestions for what the user should do next or related features they might find helpful
             """;
 
+    private static final String OUT_OF_SCOPE_ANSWER = """
+            I couldn't find anything in the CCLAS EL documentation that answers this question. \
+            Try rephrasing it with the names of the screens, fields or features involved.""";
+
     private static final String CONTEXT_TEMPLATE = """
 
             Context from documents:
             %s
             """;
 
-    public ChatService(ChatClient.Builder chatClientBuilder, VectorStore vectorStore,
-                       ChromaVectorStoreFactory vectorStoreFactory, RagConfig ragConfig) {
+    public ChatService(ChatClient.Builder chatClientBuilder, ChromaVectorStoreFactory vectorStoreFactory,
+                       RagConfig ragConfig, SemanticAnswerCache answerCache,
+                       FollowUpService followUpService, LexicalIndexService lexicalIndexService,
+                       DocumentService documentService, @Qualifier("retrievalExecutor") Executor retrievalExecutor,
+                       Scheduler chatScheduler,
+                       ContextPacker contextPacker, HistoryCompactor historyCompactor,
+                       CollectionMetadataService collectionMetadataService, PromptCacheStats promptCacheStats,
+                       RequestCoalescer requestCoalescer, LlmBulkhead llmBulkhead,
+                       RelevanceGate relevanceGate, PersistentAnswerCache persistentAnswerCache,
+                       DependencyGuard dependencyGuard, StageMetrics stageMetrics) {
         this.chatClientBuilder = chatClientBuilder;
-        this.vectorStore = vectorStore;
         this.vectorStoreFactory = vectorStoreFactory;
         this.ragConfig = ragConfig;
+        this.answerCache = answerCache;
+        this.followUpService = followUpService;
+        this.lexicalIndexService = lexicalIndexService;
+        this.documentService = documentService;
+        this.retrievalExecutor = retrievalExecutor;
+        this.chatScheduler = chatScheduler;
+        this.contextPacker = contextPacker;
+        this.historyCompactor = historyCompactor;
+        this.collectionMetadataService = collectionMetadataService;
+        this.promptCacheStats = promptCacheStats;
+        this.requestCoalescer = requestCoalescer;
+        this.llmBulkhead = llmBulkhead;
+        this.relevanceGate = relevanceGate;
+        this.persistentAnswerCache = persistentAnswerCache;
+        this.dependencyGuard = dependencyGuard;
+        this.stageMetrics = stageMetrics;
     }
 
     private VectorStore getVectorStore(String collectionName) {
         if (collectionName == null || collectionName.isBlank()) {
-            return vectorStore; // Use default configured vector store
+            // Default collection goes through the factory too so it shares the query embedding cache
+            return vectorStoreFactory.getVectorStore(DEFAULT_COLLECTION);
         }
         return vectorStoreFactory.getVectorStore(collectionName);
     }
@@ -73,33 +149,186 @@ public class ChatService {
         return DEFAULT_SYSTEM_PROMPT;
     }
 
+    private static String basePrompt(String customPrompt) {
+        return (customPrompt != null && !customPrompt.isBlank()) ? customPrompt : DEFAULT_SYSTEM_PROMPT;
+    }
+
     private String buildFullSystemPrompt(String customPrompt, String context) {
-        String basePrompt = (customPrompt != null && !customPrompt.isBlank()) ? customPrompt : DEFAULT_SYSTEM_PROMPT;
-        return basePrompt + String.format(CONTEXT_TEMPLATE, context);
+        return basePrompt(customPrompt) + String.format(CONTEXT_TEMPLATE, context);
     }
 
-    public ChatResponse chat(ChatRequest request) {
-        long startTime = System.currentTimeMillis();
+    /**
+     * Collections a request searches: the listed collections, or else the single named one,
+     * with groups and aliases expanded.
+     */
+    private List<String> targetCollections(ChatRequest request) {
+        List<String> requested = request.getCollectionNames() != null && !request.getCollectionNames().isEmpty()
+                ? request.getCollectionNames()
+                : Collections.singletonList(request.getCollectionName());
+        Set<String> collections = new LinkedHashSet<>();
+        for (String collectionName : requested) {
+            if (collectionName != null && !collectionName.isBlank()) {
+                collections.addAll(collectionMetadataService.resolveCollections(collectionName));
+            }
+        }
+        return collections.isEmpty() ? List.of(DEFAULT_COLLECTION) : List.copyOf(collections);
+    }
 
-        // Retrieve relevant documents from the specified collection
-        List<Document> relevantDocs = retrieveRelevantDocuments(request.getMessage(), request.getCollectionName());
+    /**
+     * Answer cache partition for a set of collections.
+     */
+    private static String cacheCollection(List<String> collections) {
+        return String.join(",", collections);
+    }
+
+    /**
+     * The frontend sends the current question as the last history entry; leave it out so
+     * the cache key only reflects the conversation that came before it.
+     */
+    private List<ChatRequest.ChatMessage> priorHistory(ChatRequest request) {
+        List<ChatRequest.ChatMessage> history = request.getHistory();
+        if (history == null || history.isEmpty()) {
+            return List.of();
+        }
+        ChatRequest.ChatMessage last = history.get(history.size() - 1);
+        if ("user".equalsIgnoreCase(last.getRole()) && request.getMessage().equals(last.getContent())) {
+            return history.subList(0, history.size() - 1);
+        }
+        return history;
+    }
 
-        // Build context from retrieved documents
-        String context = buildContext(relevantDocs);
+    /**
+     * Coalescing key for a request, or null if it must be answered on its own. Only opening
+     * questions are coalesced, since the answer to a follow-up depends on its conversation.
+     */
+    private String coalescingKey(ChatRequest request, List<String> collections) {
+        if (!requestCoalescer.isEnabled() || !priorHistory(request).isEmpty()) {
+            return null;
+        }
+        return RequestCoalescer.key(request.getMessage(), cacheCollection(collections), request.getSystemPrompt());
+    }
 
-        // Extract source references and build URLs pointing to locally served docs
-        String collectionName = request.getCollectionName();
-        String effectiveCollection = (collectionName != null && !collectionName.isBlank())
-                ? collectionName : DEFAULT_COLLECTION;
+    private float[] embedQuery(String query) {
+        try {
+            // Goes through the query embedding cache, so retrieval reuses this embedding
+            return VectorMath.normalize(VectorMath.toFloatArray(vectorStoreFactory.getEmbeddingModel().embed(query)));
+        } catch (Exception e) {
+            log.warn("Failed to embed query: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Query embedding and cache keys for a request, plus the cached answer if there was a hit.
+     * The persisted answer key is taken before retrieval, so an answer is never stored under a
+     * collection version newer than the content it was built on.
+     */
+    private record CacheProbe(float[] queryEmbedding, String cacheKey, String persistedKey, ChatResponse hit) {}
+
+    /**
+     * Prompt built from the retrieved context, and the sources behind it.
+     */
+    private record PreparedChat(Prompt prompt, List<Source> sources, boolean grounded,
+                                Map<String, Long> retrievalTimingsMs, RagConfig.PromptLayout layout) {}
+
+    private CacheProbe probeAnswerCache(ChatRequest request, List<String> collections) {
+        if (!answerCache.isEnabled()) {
+            return new CacheProbe(null, null, null, null);
+        }
+        String cacheKey = SemanticAnswerCache.contextKey(request.getSystemPrompt(), priorHistory(request));
+
+        // The persisted cache matches the exact question and needs no embedding
+        String persistedKey = persistentAnswerCache.key(collections, request.getMessage(), cacheKey);
+        ChatResponse persisted = persistentAnswerCache.lookup(persistedKey).orElse(null);
+        if (persisted != null) {
+            return new CacheProbe(null, cacheKey, persistedKey, persisted);
+        }
+
+        float[] queryEmbedding = stageMetrics.time(StageMetrics.ChatStage.QUERY_EMBEDDING,
+                collections, () -> embedQuery(request.getMessage()));
+        ChatResponse hit = queryEmbedding != null
+                ? answerCache.lookup(cacheCollection(collections), queryEmbedding, cacheKey).orElse(null)
+                : null;
+        return new CacheProbe(queryEmbedding, cacheKey, persistedKey, hit);
+    }
+
+    /**
+     * Whether retrieval found nothing relevant enough to be worth an LLM call. Follow-up
+     * questions always go to the LLM, since they may be answered from the conversation, and
+     * so do questions whose retrieval partly failed, since missing results say nothing about scope.
+     */
+    private boolean outOfScope(ChatRequest request, List<String> collections, Retrieval retrieval) {
+        return relevanceGate.isEnabled() && priorHistory(request).isEmpty() && !retrieval.failed()
+                && !relevanceGate.passes(retrieval.documents(), collections.get(0));
+    }
+
+    /**
+     * The templated reply for an out-of-scope question, listing the nearest pages that were found.
+     */
+    private static String outOfScopeAnswer(List<Source> suggestions) {
+        if (suggestions.isEmpty()) {
+            return OUT_OF_SCOPE_ANSWER;
+        }
+        StringBuilder answer = new StringBuilder(OUT_OF_SCOPE_ANSWER).append("\n\nThe closest pages I found:\n");
+        suggestions.forEach(source -> answer.append("- [").append(source.getTitle()).append("](")
+                .append(source.getUrl()).append(")\n"));
+        return answer.toString().stripTrailing();
+    }
 
-        List<Source> sources = relevantDocs.stream()
+    private List<Source> suggestions(Retrieval retrieval, List<String> collections) {
+        return toSources(retrieval.documents(), collections.get(0)).stream()
+                .limit(ragConfig.getRelevanceGate().getSuggestions())
+                .toList();
+    }
+
+    private PreparedChat prepare(ChatRequest request, List<String> collections, Retrieval retrieval) {
+        return stageMetrics.time(StageMetrics.ChatStage.CONTEXT_BUILD, collections,
+                () -> buildPrompt(request, collections, retrieval));
+    }
+
+    private PreparedChat buildPrompt(ChatRequest request, List<String> collections, Retrieval retrieval) {
+        List<Document> relevantDocs = retrieval.documents();
+
+        // Pack retrieved chunks into the context within the token budget
+        ContextPacker.PackedContext packed = contextPacker.pack(relevantDocs);
+
+        // Conversation history, compacted to the history token budget
+        List<Message> history = historyCompactor.compact(request.getConversationId(), priorHistory(request)).messages();
+
+        List<Message> messages = new ArrayList<>();
+        RagConfig.PromptLayout layout = ragConfig.getPromptLayout();
+        if (layout == RagConfig.PromptLayout.PREFIX_STABLE) {
+            // Everything before the context is identical to the previous turn's prompt, plus that
+            // turn's exchange, so the provider can serve it from its prompt cache
+            messages.add(new SystemMessage(basePrompt(request.getSystemPrompt())));
+            messages.addAll(history);
+            messages.add(new SystemMessage(String.format(CONTEXT_TEMPLATE, packed.text()).strip()));
+        } else {
+            messages.add(new SystemMessage(buildFullSystemPrompt(request.getSystemPrompt(), packed.text())));
+            messages.addAll(history);
+        }
+
+        // Add current user message
+        messages.add(new UserMessage(request.getMessage()));
+
+        return new PreparedChat(new Prompt(messages), toSources(packed.documents(), collections.get(0)),
+                !relevantDocs.isEmpty(), retrieval.timingsMs(), layout);
+    }
+
+    /**
+     * Extract source references and build URLs pointing to locally served docs.
+     */
+    private List<Source> toSources(List<Document> documents, String defaultCollection) {
+        return documents.stream()
                 .filter(doc -> doc.getMetadata().get("source") != null)
                 .collect(Collectors.toMap(
-                        doc -> doc.getMetadata().get("source").toString(),
+                        doc -> doc.getMetadata().getOrDefault("collection", defaultCollection) + "/"
+                                + doc.getMetadata().get("source"),
                         doc -> {
                             String sourceFile = doc.getMetadata().get("source").toString();
                             String title = doc.getMetadata().getOrDefault("title", sourceFile).toString();
-                            String url = "/docs/" + effectiveCollection + "/" + sourceFile;
+                            Object collection = doc.getMetadata().getOrDefault("collection", defaultCollection);
+                            String url = "/docs/" + collection + "/" + sourceFile;
                             // Distance is stored in metadata; convert to similarity score (1 - distance)
                             Object distanceObj = doc.getMetadata().get("distance");
                             double score = 0.0;
@@ -114,154 +343,547 @@ public class ChatService {
                 .stream()
                 .sorted((a, b) -> Double.compare(b.getScore(), a.getScore()))
                 .collect(Collectors.toList());
+    }
 
-        // Build messages list with history
-        List<Message> messages = new ArrayList<>();
-        String fullSystemPrompt = buildFullSystemPrompt(request.getSystemPrompt(), context);
-        messages.add(new SystemMessage(fullSystemPrompt));
-
-        // Add conversation history
-        if (request.getHistory() != null) {
-            for (ChatRequest.ChatMessage historyMsg : request.getHistory()) {
-                if ("user".equalsIgnoreCase(historyMsg.getRole())) {
-                    messages.add(new UserMessage(historyMsg.getContent()));
-                } else if ("assistant".equalsIgnoreCase(historyMsg.getRole())) {
-                    messages.add(new AssistantMessage(historyMsg.getContent()));
-                }
+    /**
+     * Start follow-up generation for a finished answer and cache the answer if it was grounded.
+     *
+     * @return the response id follow-ups are fetched with
+     */
+    private String completeAnswer(ChatRequest request, List<String> collections, CacheProbe probe,
+                                  PreparedChat prepared, String response) {
+        // Only cache answers that were grounded in retrieved context
+        boolean cacheable = probe.cacheKey() != null && prepared.grounded();
+        ChatResponse cachedCopy = cacheable
+                ? ChatResponse.builder().message(response).sources(prepared.sources()).followUps(List.of()).build()
+                : null;
+
+        // Follow-up questions are generated in the background and fetched by response id
+        String responseId = followUpService.submit(collections, request.getMessage(), response, followUps -> {
+            if (cachedCopy != null) {
+                cachedCopy.setFollowUps(List.copyOf(followUps));
+                persistentAnswerCache.put(probe.persistedKey(), collections, cachedCopy);
+            }
+        });
+
+        if (cachedCopy != null) {
+            if (probe.queryEmbedding() != null) {
+                cachedCopy.setResponseId(responseId);
+                answerCache.put(cacheCollection(collections), probe.queryEmbedding(), probe.cacheKey(), cachedCopy);
             }
+            // Persisted without a response id, which would not outlive a restart
+            persistentAnswerCache.put(probe.persistedKey(), collections,
+                    ChatResponse.builder().message(response).sources(prepared.sources()).followUps(List.of()).build());
         }
+        return responseId;
+    }
 
-        // Add current user message
-        messages.add(new UserMessage(request.getMessage()));
+    public ChatResponse chat(ChatRequest request) {
+        List<String> collections = targetCollections(request);
+        String key = coalescingKey(request, collections);
+        return key != null
+                ? requestCoalescer.join(key, () -> answer(request, collections), this::shareFollowUps)
+                : answer(request, collections);
+    }
 
-        // Generate response
-        ChatClient chatClient = chatClientBuilder.build();
-        Prompt prompt = new Prompt(messages);
+    /**
+     * A coalesced request's copy of the answer, with its own share of the follow-up generation
+     * so that one caller cancelling does not cancel it for the others.
+     */
+    private ChatResponse shareFollowUps(ChatResponse response) {
+        if (response.getResponseId() == null) {
+            return response;
+        }
+        return ChatResponse.builder()
+                .message(response.getMessage())
+                .sources(response.getSources())
+                .followUps(response.getFollowUps())
+                .processingTimeMs(response.getProcessingTimeMs())
+                .responseId(followUpService.share(response.getResponseId()))
+                .retrievalTimingsMs(response.getRetrievalTimingsMs())
+                .usage(response.getUsage())
+                .build();
+    }
 
-        String response = chatClient.prompt(prompt)
-                .call()
-                .content();
+    private ChatResponse answer(ChatRequest request, List<String> collections) {
+        long startTime = System.currentTimeMillis();
+        String cacheCollection = cacheCollection(collections);
+
+        // Serve semantically equivalent questions from the answer cache
+        CacheProbe probe = probeAnswerCache(request, collections);
+        if (probe.hit() != null) {
+            long processingTime = System.currentTimeMillis() - startTime;
+            log.debug("Answer cache hit for collection '{}' in {}ms", cacheCollection, processingTime);
+            List<String> cachedFollowUps = probe.hit().getFollowUps();
+            return ChatResponse.builder()
+                    .message(probe.hit().getMessage())
+                    .sources(probe.hit().getSources())
+                    .followUps(cachedFollowUps)
+                    .processingTimeMs(processingTime)
+                    .responseId(cachedFollowUps.isEmpty() ? followUpsFor(request, collections, probe) : null)
+                    .build();
+        }
+
+        // Retrieve relevant documents from the requested collections
+        Retrieval retrieval = retrieveRelevantDocuments(request.getMessage(), collections);
+        if (outOfScope(request, collections, retrieval)) {
+            List<Source> suggestions = suggestions(retrieval, collections);
+            return ChatResponse.builder()
+                    .message(outOfScopeAnswer(suggestions))
+                    .sources(suggestions)
+                    .followUps(List.of())
+                    .processingTimeMs(System.currentTimeMillis() - startTime)
+                    .retrievalTimingsMs(retrieval.timingsMs())
+                    .build();
+        }
+
+        PreparedChat prepared = prepare(request, collections, retrieval);
+
+        // Generate response, waiting for a free LLM slot first
+        ChatClient chatClient = chatClientBuilder.build();
+        long llmStart;
+        org.springframework.ai.chat.model.ChatResponse chatResponse;
+        try (LlmBulkhead.Permit permit = llmBulkhead.acquire()) {
+            llmStart = System.currentTimeMillis();
+            chatResponse = dependencyGuard.call(DependencyGuard.LLM,
+                    TimeUnit.SECONDS.toMillis(ragConfig.getResilience().getLlmDeadlineSeconds()),
+                    () -> chatClient.prompt(prepared.prompt())
+                            .call()
+                            .chatResponse());
+        }
+        String response = chatResponse.getResult().getOutput().getContent();
+        TokenUsage usage = ProviderUsage.from(chatResponse.getMetadata());
+        long llmMs = System.currentTimeMillis() - llmStart;
+        promptCacheStats.record(prepared.layout(), usage, llmMs, -1);
+        stageMetrics.record(StageMetrics.ChatStage.LLM_TOTAL, collections,
+                TimeUnit.MILLISECONDS.toNanos(llmMs));
 
         long processingTime = System.currentTimeMillis() - startTime;
 
-        log.debug("Chat response generated in {}ms using {} sources", processingTime, sources.size());
+        log.debug("Chat response generated in {}ms using {} sources", processingTime, prepared.sources().size());
 
-        // Generate follow-up questions
-        List<String> followUps = generateFollowUpQuestions(request.getMessage(), response);
+        String responseId = completeAnswer(request, collections, probe, prepared, response);
 
         return ChatResponse.builder()
                 .message(response)
-                .sources(sources)
-                .followUps(followUps)
+                .sources(prepared.sources())
+                .followUps(List.of())
                 .processingTimeMs(processingTime)
+                .responseId(responseId)
+                .retrievalTimingsMs(prepared.retrievalTimingsMs())
+                .usage(usage)
                 .build();
     }
 
-    private List<String> generateFollowUpQuestions(String userQuestion, String assistantResponse) {
-        try {
-            String followUpPrompt = """
-                Based on this Q&A exchange, suggest exactly 3 brief follow-up questions the user might want to ask next.
-                Return ONLY the questions, one per line, without numbering or bullets.
-                Keep each question under 60 characters.
-
-                User asked: %s
+    /**
+     * Stream an answer as typed events: sources as soon as retrieval finishes, then tokens
+     * as the model produces them, then follow-up questions and timings. Retrieval and the wait
+     * for an LLM slot run on the chat scheduler so the request thread is not held. Identical
+     * opening questions streamed concurrently share one stream.
+     */
+    public Flux<ChatStreamEvent> chatStream(ChatRequest request) {
+        return Flux.defer(() -> {
+                    List<String> collections = targetCollections(request);
+                    String key = coalescingKey(request, collections);
+                    return key != null
+                            ? requestCoalescer.joinStream(key, () -> answerStream(request, collections))
+                            : answerStream(request, collections);
+                })
+                .subscribeOn(chatScheduler)
+                .onErrorResume(e -> {
+                    if (e instanceof DependencyUnavailableException unavailable) {
+                        log.warn("Streaming chat response failed: {}", unavailable.getMessage());
+                        return Flux.just(ChatStreamEvent.error(unavailableMessage(unavailable)));
+                    }
+                    if (e instanceof LlmBulkhead.BulkheadFullException busy) {
+                        log.warn("Streaming chat request rejected: {}", busy.getMessage());
+                        return Flux.just(ChatStreamEvent.error("Too many requests, please try again in "
+                                + busy.getRetryAfterSeconds() + " seconds"));
+                    }
+                    log.error("Streaming chat response failed: {}", e.getMessage(), e);
+                    return Flux.just(ChatStreamEvent.error("Failed to generate a response"));
+                });
+    }
 
-                Assistant answered: %s
-                """.formatted(userQuestion, assistantResponse.length() > 500 ? assistantResponse.substring(0, 500) + "..." : assistantResponse);
+    /**
+     * Message shown when a dependency is down or too slow.
+     */
+    public static String unavailableMessage(DependencyUnavailableException e) {
+        String service = DependencyGuard.CHROMA.equals(e.getDependency()) ? "Document search" : "The assistant";
+        return e.getRetryAfterSeconds() > 0
+                ? service + " is temporarily unavailable, please try again in " + e.getRetryAfterSeconds() + " seconds"
+                : service + " is responding slowly, please try again";
+    }
 
-            ChatClient chatClient = chatClientBuilder.build();
-            String result = chatClient.prompt()
-                    .user(followUpPrompt)
-                    .call()
-                    .content();
+    private Flux<ChatStreamEvent> answerStream(ChatRequest request, List<String> collections) {
+        long startTime = System.currentTimeMillis();
+        AtomicReference<String> responseId = new AtomicReference<>();
+
+        return Flux.defer(() -> {
+                    CacheProbe probe = probeAnswerCache(request, collections);
+                    if (probe.hit() != null) {
+                        return cachedStream(request, collections, probe, startTime);
+                    }
+
+                    Retrieval retrieval = retrieveRelevantDocuments(request.getMessage(), collections);
+                    if (outOfScope(request, collections, retrieval)) {
+                        return outOfScopeStream(retrieval, collections, startTime);
+                    }
+
+                    PreparedChat prepared = prepare(request, collections, retrieval);
+                    long retrievalMs = System.currentTimeMillis() - startTime;
+                    StringBuilder answer = new StringBuilder();
+                    AtomicLong firstTokenMs = new AtomicLong(-1);
+                    AtomicReference<TokenUsage> usage = new AtomicReference<>();
+                    AtomicLong llmStart = new AtomicLong();
+
+                    // The LLM slot is taken when the tokens are subscribed to and freed when they end
+                    Flux<ChatStreamEvent> tokens = Flux.using(() -> {
+                                LlmBulkhead.Permit permit = llmBulkhead.acquire();
+                                try {
+                                    dependencyGuard.checkAvailable(DependencyGuard.LLM);
+                                } catch (DependencyUnavailableException e) {
+                                    permit.close();
+                                    throw e;
+                                }
+                                llmStart.set(System.currentTimeMillis());
+                                return permit;
+                            }, permit -> chatClientBuilder.build().prompt(prepared.prompt())
+                                    .stream()
+                                    .chatResponse()
+                                    // A stalled stream fails instead of holding the client and the slot
+                                    .timeout(Duration.ofSeconds(ragConfig.getResilience().getLlmIdleTimeoutSeconds()))
+                                    .doOnComplete(() -> dependencyGuard.recordSuccess(DependencyGuard.LLM,
+                                            System.currentTimeMillis() - llmStart.get()))
+                                    .doOnError(e -> dependencyGuard.recordFailure(DependencyGuard.LLM,
+                                            e instanceof TimeoutException)), LlmBulkhead.Permit::close)
+                            .map(chunk -> {
+                                // Providers that report usage on a stream do so on one of the last chunks
+                                TokenUsage chunkUsage = ProviderUsage.from(chunk.getMetadata());
+                                if (chunkUsage != null) {
+                                    usage.set(chunkUsage);
+                                }
+                                return chunk.getResult() != null && chunk.getResult().getOutput() != null
+                                        ? chunk.getResult().getOutput().getContent() : "";
+                            })
+                            .filter(token -> token != null && !token.isEmpty())
+                            .doOnNext(token -> {
+                                if (firstTokenMs.compareAndSet(-1, System.currentTimeMillis() - startTime)) {
+                                    stageMetrics.record(StageMetrics.ChatStage.LLM_FIRST_TOKEN, collections,
+                                            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - llmStart.get()));
+                                }
+                                answer.append(token);
+                            })
+                            .map(ChatStreamEvent::token);
+
+                    // Runs once the last token has been sent; off the event loop that delivered
+                    // it, since it writes the answer to the database and submits the follow-ups
+                    Flux<ChatStreamEvent> completion = Flux.defer(() -> {
+                        String id = completeAnswer(request, collections, probe, prepared, answer.toString());
+                        responseId.set(id);
+                        stageMetrics.record(StageMetrics.ChatStage.LLM_TOTAL, collections,
+                                TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - llmStart.get()));
+                        promptCacheStats.record(prepared.layout(), usage.get(),
+                                System.currentTimeMillis() - llmStart.get(),
+                                firstTokenMs.get() >= 0 ? firstTokenMs.get() - (llmStart.get() - startTime) : -1);
+                        log.debug("Streamed chat response in {}ms (first token after {}ms) using {} sources",
+                                System.currentTimeMillis() - startTime, firstTokenMs.get(), prepared.sources().size());
+                        return Mono.fromFuture(followUpService.whenReady(id))
+                                .flatMapMany(followUps -> Flux.just(
+                                        ChatStreamEvent.followUps(followUps),
+                                        ChatStreamEvent.done(id, false, retrievalMs,
+                                                firstTokenMs.get() >= 0 ? firstTokenMs.get() : null,
+                                                System.currentTimeMillis() - startTime, usage.get())));
+                    }).subscribeOn(chatScheduler);
+
+                    return Flux.concat(
+                            Flux.just(ChatStreamEvent.sources(prepared.sources(), retrievalMs,
+                                    prepared.retrievalTimingsMs())),
+                            tokens, completion);
+                })
+                .doOnCancel(() -> {
+                    // Every client went away; stop generating follow-ups nobody will read
+                    String id = responseId.get();
+                    if (id != null) {
+                        followUpService.cancel(id);
+                    }
+                });
+    }
 
-            if (result == null || result.isBlank()) {
-                return List.of();
-            }
+    private Flux<ChatStreamEvent> cachedStream(ChatRequest request, List<String> collections, CacheProbe probe,
+                                               long startTime) {
+        long elapsed = System.currentTimeMillis() - startTime;
+        ChatResponse cached = probe.hit();
+        List<String> cachedFollowUps = cached.getFollowUps();
+        String id = cachedFollowUps.isEmpty() ? followUpsFor(request, collections, probe) : null;
+        Mono<List<String>> followUps = id != null
+                ? Mono.fromFuture(followUpService.whenReady(id))
+                : Mono.just(cachedFollowUps);
+        return Flux.concat(
+                Flux.just(ChatStreamEvent.sources(cached.getSources(), elapsed, Map.of()),
+                        ChatStreamEvent.token(cached.getMessage())),
+                followUps.flatMapMany(questions -> Flux.just(
+                        ChatStreamEvent.followUps(questions),
+                        ChatStreamEvent.done(id, true, elapsed, elapsed, System.currentTimeMillis() - startTime, null))))
+                .doOnCancel(() -> {
+                    if (id != null) {
+                        followUpService.cancel(id);
+                    }
+                });
+    }
 
-            return result.lines()
-                    .map(String::trim)
-                    .filter(line -> !line.isBlank())
-                    .filter(line -> !line.matches("^[0-9]+[.)].*")) // Remove any numbered lines
-                    .limit(3)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.warn("Failed to generate follow-up questions: {}", e.getMessage());
-            return List.of();
+    /**
+     * The response id a cache hit without follow-ups fetches them with. Shares the generation
+     * started for the cached answer while that is still known, and starts a new one once it was
+     * purged, skipped, failed or cancelled.
+     */
+    private String followUpsFor(ChatRequest request, List<String> collections, CacheProbe probe) {
+        ChatResponse cached = probe.hit();
+        String sharedId = followUpService.share(cached.getResponseId());
+        if (sharedId != null) {
+            return sharedId;
         }
+        String responseId = followUpService.submit(collections, request.getMessage(), cached.getMessage(), followUps -> {
+            cached.setFollowUps(List.copyOf(followUps));
+            persistentAnswerCache.put(probe.persistedKey(), collections, cached);
+        });
+        // Later hits share this generation, as they would the original one
+        cached.setResponseId(responseId);
+        return responseId;
     }
 
-    public Flux<String> chatStream(ChatRequest request) {
-        // Retrieve relevant documents from the specified collection
-        List<Document> relevantDocs = retrieveRelevantDocuments(request.getMessage(), request.getCollectionName());
+    private Flux<ChatStreamEvent> outOfScopeStream(Retrieval retrieval, List<String> collections, long startTime) {
+        long elapsed = System.currentTimeMillis() - startTime;
+        List<Source> suggestions = suggestions(retrieval, collections);
+        return Flux.just(ChatStreamEvent.sources(suggestions, elapsed, retrieval.timingsMs()),
+                ChatStreamEvent.token(outOfScopeAnswer(suggestions)),
+                ChatStreamEvent.followUps(List.of()),
+                ChatStreamEvent.done(null, false, elapsed, elapsed, System.currentTimeMillis() - startTime, null));
+    }
 
-        // Build context from retrieved documents
-        String context = buildContext(relevantDocs);
+    /**
+     * Documents retrieved for a question, with the time spent on each collection.
+     *
+     * @param failed a search failed, so the documents may be missing relevant ones
+     */
+    private record Retrieval(List<Document> documents, Map<String, Long> timingsMs, boolean failed) {}
+
+    private Retrieval retrieveRelevantDocuments(String query, List<String> collections) {
+        if (collections.size() == 1) {
+            String collectionName = collections.get(0);
+            long start = System.nanoTime();
+            AtomicBoolean failed = new AtomicBoolean();
+            List<Document> documents = retrieveFromCollection(query, collectionName, ragConfig.getMaxResults(), failed);
+            long elapsed = System.nanoTime() - start;
+            stageMetrics.record(StageMetrics.ChatStage.RETRIEVAL, collectionName, elapsed);
+            return new Retrieval(documents, Map.of(collectionName, elapsed / 1_000_000), failed.get());
+        }
+        return retrieveFederated(query, collections);
+    }
 
-        // Build messages list with history
-        List<Message> messages = new ArrayList<>();
-        String fullSystemPrompt = buildFullSystemPrompt(request.getSystemPrompt(), context);
-        messages.add(new SystemMessage(fullSystemPrompt));
-
-        // Add conversation history
-        if (request.getHistory() != null) {
-            for (ChatRequest.ChatMessage historyMsg : request.getHistory()) {
-                if ("user".equalsIgnoreCase(historyMsg.getRole())) {
-                    messages.add(new UserMessage(historyMsg.getContent()));
-                } else if ("assistant".equalsIgnoreCase(historyMsg.getRole())) {
-                    messages.add(new AssistantMessage(historyMsg.getContent()));
+    /**
+     * Search every collection concurrently and merge the results by similarity, so the
+     * latency is that of the slowest collection rather than the sum. Collections share one
+     * embedding model, so cosine similarities are comparable across them; results without
+     * one (BM25-only hits in hybrid mode) take the similarity of the result ranked above
+     * them, and similarities are capped by the one above, which keeps each collection's
+     * own order intact in the merge.
+     */
+    private Retrieval retrieveFederated(String query, List<String> collections) {
+        int topK = ragConfig.getMaxResults();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        AtomicBoolean failedSearch = new AtomicBoolean();
+        Map<String, CompletableFuture<List<Document>>> searches = new LinkedHashMap<>();
+        for (String collectionName : collections) {
+            searches.put(collectionName, CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return retrieveFromCollection(query, collectionName, topK, failedSearch);
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    stageMetrics.record(StageMetrics.ChatStage.RETRIEVAL, collectionName, elapsed);
+                    timings.put(collectionName, elapsed / 1_000_000);
                 }
+            }, retrievalExecutor));
+        }
+
+        List<Document> merged = new ArrayList<>();
+        Map<Document, Double> scores = new IdentityHashMap<>();
+        DependencyUnavailableException unavailable = null;
+        int failed = 0;
+        for (Map.Entry<String, CompletableFuture<List<Document>>> search : searches.entrySet()) {
+            List<Document> results;
+            try {
+                results = search.getValue().join();
+            } catch (CompletionException e) {
+                log.warn("Error retrieving documents from collection '{}': {}. Skipping it.",
+                        search.getKey(), e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                if (e.getCause() instanceof DependencyUnavailableException cause) {
+                    unavailable = cause;
+                }
+                failed++;
+                continue;
+            }
+            // A leading result without a similarity takes the collection's best one
+            double previous = results.stream()
+                    .map(document -> document.getMetadata().get("distance"))
+                    .filter(distance -> distance instanceof Number)
+                    .mapToDouble(distance -> 1.0 - ((Number) distance).doubleValue())
+                    .max()
+                    .orElse(0.0);
+            for (Document document : results) {
+                if (document.getMetadata().get("collection") == null) {
+                    document.getMetadata().put("collection", search.getKey());
+                }
+                Object distance = document.getMetadata().get("distance");
+                double similarity = distance instanceof Number number
+                        ? Math.min(previous, 1.0 - number.doubleValue())
+                        : previous;
+                scores.put(document, similarity);
+                merged.add(document);
+                previous = similarity;
             }
         }
 
-        // Add current user message
-        messages.add(new UserMessage(request.getMessage()));
+        if (failed == collections.size() && unavailable != null) {
+            throw unavailable;
+        }
 
-        // Generate streaming response
-        ChatClient chatClient = chatClientBuilder.build();
-        Prompt prompt = new Prompt(messages);
+        // Stable sort: ties keep collection order
+        merged.sort(Comparator.comparingDouble((Document document) -> scores.get(document)).reversed());
+        List<Document> top = merged.size() > topK ? List.copyOf(merged.subList(0, topK)) : merged;
 
-        return chatClient.prompt(prompt)
-                .stream()
-                .content();
+        Map<String, Long> orderedTimings = new LinkedHashMap<>();
+        for (String collectionName : collections) {
+            orderedTimings.put(collectionName, timings.getOrDefault(collectionName, 0L));
+        }
+        log.debug("Federated retrieval over {} collections kept {} of {} documents, timings {}",
+                collections.size(), top.size(), merged.size(), orderedTimings);
+        return new Retrieval(top, orderedTimings, failed > 0 || failedSearch.get());
+    }
+
+    /**
+     * @param failed set when a search fails and the results are incomplete
+     */
+    private List<Document> retrieveFromCollection(String query, String collectionName, int topK,
+                                                  AtomicBoolean failed) {
+        RagConfig.Mmr mmr = ragConfig.getMmr();
+        int fetchK = mmr.isEnabled() ? topK * Math.max(1, mmr.getFetchFactor()) : topK;
+        List<Document> candidates = null;
+        if (ragConfig.getRetrievalMode() == RagConfig.RetrievalMode.HYBRID) {
+            Optional<LexicalIndex> index = lexicalIndexService.getIndex(
+                    collectionName, documentService.getCollectionDocsPath(collectionName));
+            if (index.isPresent()) {
+                candidates = retrieveHybrid(query, collectionName, fetchK, index.get(), failed);
+            }
+        }
+        if (candidates == null) {
+            candidates = vectorSearch(query, collectionName, fetchK, failed);
+        }
+        return diversify(query, candidates, topK);
     }
 
-    private List<Document> retrieveRelevantDocuments(String query, String collectionName) {
+    /**
+     * Pick a diverse top K from the over-fetched candidates with maximal marginal relevance.
+     */
+    private List<Document> diversify(String query, List<Document> candidates, int topK) {
+        if (candidates.size() <= topK) {
+            return candidates;
+        }
+        // Served from the query embedding cache; retrieval has just embedded the same query
+        float[] queryEmbedding = ragConfig.getMmr().isEnabled() ? embedQuery(query) : null;
+        if (queryEmbedding == null) {
+            return candidates.subList(0, topK);
+        }
+        long start = System.nanoTime();
+        List<Document> selected = MaximalMarginalRelevance.select(
+                queryEmbedding, candidates, topK, ragConfig.getMmr().getLambda());
+        log.debug("MMR picked {} of {} candidates in {}us", selected.size(), candidates.size(),
+                (System.nanoTime() - start) / 1000);
+        return selected;
+    }
+
+    /**
+     * Run the Chroma query and the BM25 lookup concurrently and fuse the two rankings.
+     * The lexical lookup is in-process and finishes well before the Chroma round trip.
+     */
+    private List<Document> retrieveHybrid(String query, String collectionName, int topK, LexicalIndex index,
+                                          AtomicBoolean failed) {
+        int candidates = Math.max(topK, ragConfig.getHybrid().getCandidates());
+        CompletableFuture<List<Document>> vectorResults = CompletableFuture.supplyAsync(
+                () -> vectorSearch(query, collectionName, candidates, failed), retrievalExecutor);
+
+        long lexicalStart = System.nanoTime();
+        List<Document> lexicalResults = index.search(query, candidates).stream()
+                .map(hit -> toDocument(hit, collectionName))
+                .toList();
+        long lexicalNanos = System.nanoTime() - lexicalStart;
+        stageMetrics.record(StageMetrics.ChatStage.LEXICAL_SEARCH, collectionName, lexicalNanos);
+
+        List<Document> vectorDocuments;
         try {
-            VectorStore store = getVectorStore(collectionName);
-            SearchRequest searchRequest = SearchRequest.query(query).withTopK(ragConfig.getMaxResults());
+            vectorDocuments = vectorResults.join();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof DependencyUnavailableException unavailable)) {
+                throw e;
+            }
+            // Degrade to keyword retrieval rather than fail the answer
+            log.warn("Vector search for collection '{}' failed ({}), using keyword results only",
+                    collectionName, unavailable.getMessage());
+            failed.set(true);
+            vectorDocuments = List.of();
+        }
+
+        List<Document> fused = RankFusion.reciprocalRank(ragConfig.getHybrid().getRrfK(), topK,
+                vectorDocuments, lexicalResults);
+        log.debug("Hybrid retrieval fused {} documents ({} lexical hits in {}us)",
+                fused.size(), lexicalResults.size(), lexicalNanos / 1000);
+        return fused;
+    }
+
+    private Document toDocument(LexicalIndex.Hit hit, String collectionName) {
+        LexicalIndex.Chunk chunk = hit.chunk();
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("source", chunk.source());
+        metadata.put("title", chunk.title());
+        metadata.put("chunk", chunk.chunk());
+        metadata.put("totalChunks", chunk.totalChunks());
+        metadata.put("docId", chunk.docId());
+        if (collectionName != null) {
+            metadata.put("collection", collectionName);
+        }
+        metadata.put("bm25Score", hit.score());
+        return new Document(chunk.content(), metadata);
+    }
 
-            List<Document> results = store.similaritySearch(searchRequest);
+    private List<Document> vectorSearch(String query, String collectionName, int topK, AtomicBoolean failed) {
+        try {
+            VectorStore store = getVectorStore(collectionName);
+            SearchRequest searchRequest = SearchRequest.query(query).withTopK(topK);
+
+            // Chroma queries are remote and idempotent, so slow ones are hedged. The question is
+            // embedded first, so OpenAI's latency and failures don't count against Chroma and a
+            // hedge doesn't embed it again.
+            List<Document> results = stageMetrics.time(StageMetrics.ChatStage.VECTOR_SEARCH, collectionName, () -> {
+                if (!(store instanceof ChromaVectorStore)) {
+                    return store.similaritySearch(searchRequest);
+                }
+                List<Double> embedding = vectorStoreFactory.getEmbeddingModel().embed(query);
+                return vectorStoreFactory.withQueryEmbedding(query, embedding,
+                        () -> dependencyGuard.hedgedCall(DependencyGuard.CHROMA,
+                                ragConfig.getResilience().getChromaDeadlineMillis(),
+                                () -> store.similaritySearch(searchRequest)));
+            });
             log.debug("Retrieved {} relevant documents for query from collection '{}'",
                     results.size(), collectionName != null ? collectionName : "default");
             return results;
+        } catch (DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.warn("Error retrieving documents from collection '{}': {}. Proceeding without context.",
                     collectionName, e.getMessage());
+            failed.set(true);
             return List.of();
         }
     }
-
-    private String buildContext(List<Document> documents) {
-        if (documents.isEmpty()) {
-            return "No relevant documents found.";
-        }
-
-        StringBuilder context = new StringBuilder();
-        for (int i = 0; i < documents.size(); i++) {
-            Document doc = documents.get(i);
-            String source = doc.getMetadata().getOrDefault("source", "unknown").toString();
-            String title = doc.getMetadata().getOrDefault("title", "").toString();
-
-            context.append(String.format("\n--- Document %d (Source: %s", i + 1, source));
-            if (!title.isEmpty()) {
-                context.append(String.format(", Title: %s", title));
-            }
-            context.append(") ---\n");
-            context.append(doc.getContent());
-            context.append("\n");
-        }
-
-        return context.toString();
-    }
 }
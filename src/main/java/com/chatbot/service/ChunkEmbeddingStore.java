@@ -0,0 +1,401 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persistent embeddings of chunk texts, keyed by a hash of the embedding model name and the
+ * text, so chunks that are identical between loads, collections or product versions are
+ * embedded once. Records are appended to a single binary file under {@code rag.data-dir};
+ * only the key-to-offset index is kept on the heap and vectors are read back on a hit.
+ *
+ * <p>File layout, little-endian: an 8-byte header (magic, format version), then one record
+ * per embedding: 16-byte key, 4-byte model fingerprint, 4-byte dimension count and the
+ * float32 values. A record cut short by a crash is truncated on startup.
+ */
+@Service
+public class ChunkEmbeddingStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkEmbeddingStore.class);
+    private static final String FILE_NAME = "embedding-store.bin";
+    private static final int FILE_MAGIC = 0x43454d42; // "CEMB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 24;
+    private static final int MAX_DIMENSIONS = 65_536;
+
+    private record Key(long high, long low) {}
+
+    /**
+     * Record counts and file sizes before and after a compaction.
+     */
+    public record CompactionResult(long recordsBefore, long recordsAfter, long bytesBefore, long bytesAfter) {}
+
+    private final RagConfig ragConfig;
+    private final Map<Key, Long> offsets = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private long end;
+    private long records;
+    private int modelFingerprint;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ChunkEmbeddingStore(RagConfig ragConfig) {
+        this.ragConfig = ragConfig;
+    }
+
+    public boolean isEnabled() {
+        return ragConfig.getEmbeddingStore().isEnabled();
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!isEnabled()) {
+            return;
+        }
+        modelFingerprint = fingerprint(ragConfig.getEmbeddingStore().getModel());
+        Path file = getStoreFile();
+        lock.writeLock().lock();
+        try {
+            Files.createDirectories(file.getParent());
+            if (Files.exists(file) && !hasHeader(file)) {
+                Path unreadable = file.resolveSibling(FILE_NAME + ".unreadable");
+                log.warn("Embedding store {} has an unknown format; moving it to {}", file, unreadable);
+                Files.move(file, unreadable, StandardCopyOption.REPLACE_EXISTING);
+            }
+            channel = openChannel(file);
+            index();
+            log.info("Opened embedding store {} ({} embeddings for model '{}', {} records, {} KB)", file,
+                    offsets.size(), ragConfig.getEmbeddingStore().getModel(), records, end / 1024);
+        } catch (IOException e) {
+            // Loads still work without the store, they just embed every chunk
+            log.warn("Failed to open embedding store {}: {}", file, e.getMessage());
+            channel = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close embedding store: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stored embeddings of the given texts, with null for each text that has none or whose
+     * record could not be read, so a damaged store costs embedding calls rather than the load.
+     */
+    public List<float[]> getAll(List<String> texts) {
+        List<float[]> results = new ArrayList<>(texts.size());
+        lock.readLock().lock();
+        try {
+            IOException failure = null;
+            for (String text : texts) {
+                Long offset = channel != null ? offsets.get(key(text)) : null;
+                float[] vector = null;
+                if (offset != null) {
+                    try {
+                        vector = read(offset);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                results.add(vector);
+            }
+            if (failure != null) {
+                log.warn("Failed to read embeddings from the embedding store, embedding again: {}", failure.getMessage());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long found = results.stream().filter(vector -> vector != null).count();
+        hits.addAndGet(found);
+        misses.addAndGet(texts.size() - found);
+        return results;
+    }
+
+    /**
+     * Append the embeddings of the given texts and flush them to disk.
+     */
+    public void putAll(List<String> texts, List<float[]> vectors) {
+        if (texts.isEmpty()) {
+            return;
+        }
+        int bytes = 0;
+        for (float[] vector : vectors) {
+            bytes += RECORD_HEADER_BYTES + vector.length * Float.BYTES;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        List<Key> keys = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            Key key = key(texts.get(i));
+            keys.add(key);
+            putRecord(buffer, key, vectors.get(i));
+        }
+        buffer.flip();
+
+        lock.writeLock().lock();
+        try {
+            if (channel == null) {
+                return;
+            }
+            long position = end;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+            // Indexed only once on disk, so a hit never reads a record that is not there
+            long offset = end;
+            for (int i = 0; i < keys.size(); i++) {
+                offsets.put(keys.get(i), offset);
+                offset += RECORD_HEADER_BYTES + (long) vectors.get(i).length * Float.BYTES;
+            }
+            end = position;
+            records += keys.size();
+        } catch (IOException e) {
+            log.warn("Failed to append {} embeddings to the embedding store: {}", keys.size(), e.getMessage());
+            try {
+                // Drop what was written of the batch so the next append stays aligned
+                channel.truncate(end);
+            } catch (IOException truncateFailure) {
+                log.warn("Failed to truncate embedding store: {}", truncateFailure.getMessage());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrite the file with one record per stored embedding of the current model, dropping
+     * records of other embedding models and duplicates written by concurrent loads.
+     */
+    public CompactionResult compact() {
+        Path file = getStoreFile();
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        lock.writeLock().lock();
+        try {
+            if (channel == null) {
+                throw new IllegalStateException("The embedding store is not enabled");
+            }
+            long recordsBefore = records;
+            long bytesBefore = end;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(out, header());
+                for (Map.Entry<Key, Long> entry : offsets.entrySet()) {
+                    float[] vector = read(entry.getValue());
+                    ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + vector.length * Float.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                    putRecord(record, entry.getKey(), vector);
+                    record.flip();
+                    writeFully(out, record);
+                }
+                out.force(true);
+            }
+            IOException failure = null;
+            try {
+                channel.close();
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                failure = e;
+            }
+            // Reopen whichever file is in place now, so a failed move leaves the old store usable
+            try {
+                channel = openChannel(file);
+                index();
+            } catch (IOException e) {
+                // Disabled rather than left with a closed channel every later call would fail on
+                channel = null;
+                offsets.clear();
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) {
+                Files.deleteIfExists(temp);
+                throw failure;
+            }
+            log.info("Compacted embedding store from {} records ({} KB) to {} ({} KB)",
+                    recordsBefore, bytesBefore / 1024, records, end / 1024);
+            return new CompactionResult(recordsBefore, records, bytesBefore, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact embedding store " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        lock.readLock().lock();
+        try {
+            return Map.of(
+                    "enabled", channel != null,
+                    "model", ragConfig.getEmbeddingStore().getModel(),
+                    "embeddings", offsets.size(),
+                    "records", records,
+                    "fileBytes", end,
+                    "hits", hitCount,
+                    "misses", misses.get(),
+                    "hitRate", total > 0 ? (double) hitCount / total : 0.0
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Build the index from the file, truncating a partly written last record.
+     */
+    private void index() throws IOException {
+        offsets.clear();
+        records = 0;
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            channel.truncate(0);
+            writeFully(channel, header());
+            channel.force(false);
+            end = HEADER_BYTES;
+            return;
+        }
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long position = HEADER_BYTES;
+        while (position + RECORD_HEADER_BYTES <= size) {
+            recordHeader.clear();
+            readFully(recordHeader, position);
+            int dimensions = recordHeader.getInt(20);
+            long recordEnd = position + RECORD_HEADER_BYTES + (long) dimensions * Float.BYTES;
+            if (dimensions <= 0 || dimensions > MAX_DIMENSIONS || recordEnd > size) {
+                break;
+            }
+            // Other models' records are never looked up; compaction drops them
+            if (recordHeader.getInt(16) == modelFingerprint) {
+                offsets.put(new Key(recordHeader.getLong(0), recordHeader.getLong(8)), position);
+            }
+            records++;
+            position = recordEnd;
+        }
+        if (position < size) {
+            log.warn("Truncating {} bytes of an incomplete record from the embedding store", size - position);
+            channel.truncate(position);
+        }
+        end = position;
+    }
+
+    private float[] read(long offset) throws IOException {
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(recordHeader, offset);
+        int dimensions = recordHeader.getInt(20);
+        if (dimensions <= 0 || dimensions > MAX_DIMENSIONS) {
+            throw new IOException("Corrupt record at offset " + offset);
+        }
+        ByteBuffer values = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(values, offset + RECORD_HEADER_BYTES);
+        float[] vector = new float[dimensions];
+        values.flip();
+        values.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of embedding store");
+            }
+        }
+    }
+
+    private void putRecord(ByteBuffer buffer, Key key, float[] vector) {
+        buffer.putLong(key.high()).putLong(key.low()).putInt(modelFingerprint).putInt(vector.length);
+        for (float value : vector) {
+            buffer.putFloat(value);
+        }
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(FILE_MAGIC).putInt(FORMAT_VERSION).flip();
+    }
+
+    private static boolean hasHeader(Path file) throws IOException {
+        if (Files.size(file) < HEADER_BYTES) {
+            return true;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            in.read(header, 0);
+            return header.getInt(0) == FILE_MAGIC && header.getInt(4) == FORMAT_VERSION;
+        }
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Key key(String text) {
+        byte[] hash = sha256(ragConfig.getEmbeddingStore().getModel() + '\n' + text);
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        return new Key(buffer.getLong(), buffer.getLong());
+    }
+
+    private static int fingerprint(String model) {
+        return ByteBuffer.wrap(sha256(model)).getInt();
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Path getStoreFile() {
+        return Paths.get(ragConfig.getDataDir(), FILE_NAME);
+    }
+}
@@ -13,6 +13,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -34,6 +36,8 @@ public class CollectionMetadataService {
         private String title;
         private String logo;
         private String aliasOf;
+        private String previousAliasOf;
+        private List<String> members;
 
         public CollectionMetadata() {}
 
@@ -66,9 +70,32 @@ public class CollectionMetadataService {
             this.aliasOf = aliasOf;
         }
 
+        /**
+         * Collection the alias pointed at before its last swap, kept for rollback.
+         */
+        public String getPreviousAliasOf() {
+            return previousAliasOf;
+        }
+
+        public void setPreviousAliasOf(String previousAliasOf) {
+            this.previousAliasOf = previousAliasOf;
+        }
+
         public boolean isAlias() {
             return aliasOf != null && !aliasOf.isBlank();
         }
+
+        public List<String> getMembers() {
+            return members;
+        }
+
+        public void setMembers(List<String> members) {
+            this.members = members;
+        }
+
+        public boolean isGroup() {
+            return members != null && !members.isEmpty();
+        }
     }
 
     @PostConstruct
@@ -76,21 +103,21 @@ public class CollectionMetadataService {
         loadMetadata();
     }
 
-    public void setTitle(String collectionName, String title) {
+    public synchronized void setTitle(String collectionName, String title) {
         Map<String, CollectionMetadata> current = loadMetadataFromFile();
         current.computeIfAbsent(collectionName, k -> new CollectionMetadata()).setTitle(title);
         saveMetadataToFile(current);
         log.info("Set title for collection '{}': {}", collectionName, title);
     }
 
-    public void setLogo(String collectionName, String logo) {
+    public synchronized void setLogo(String collectionName, String logo) {
         Map<String, CollectionMetadata> current = loadMetadataFromFile();
         current.computeIfAbsent(collectionName, k -> new CollectionMetadata()).setLogo(logo);
         saveMetadataToFile(current);
         log.info("Set logo for collection '{}': {}", collectionName, logo);
     }
 
-    public void setAlias(String aliasName, String targetCollection) {
+    public synchronized void setAlias(String aliasName, String targetCollection) {
         Map<String, CollectionMetadata> current = loadMetadataFromFile();
         CollectionMetadata aliasMeta = current.computeIfAbsent(aliasName, k -> new CollectionMetadata());
         aliasMeta.setAliasOf(targetCollection);
@@ -98,7 +125,60 @@ public class CollectionMetadataService {
         log.info("Set alias '{}' -> '{}'", aliasName, targetCollection);
     }
 
-    public void removeAlias(String aliasName) {
+    /**
+     * Point an alias at a newly loaded collection in one metadata write, remembering the
+     * collection it pointed at for {@link #rollbackAlias}. The new collection takes the
+     * title and logo shown for the alias if it has none of its own.
+     *
+     * @return the collection that was kept for rollback until now and no longer is, or null
+     */
+    public synchronized String swapAlias(String aliasName, String targetCollection) {
+        Map<String, CollectionMetadata> current = loadMetadataFromFile();
+        CollectionMetadata aliasMeta = current.computeIfAbsent(aliasName, k -> new CollectionMetadata());
+        CollectionMetadata oldTargetMeta = aliasMeta.isAlias() ? current.get(aliasMeta.getAliasOf()) : null;
+        CollectionMetadata targetMeta = current.computeIfAbsent(targetCollection, k -> new CollectionMetadata());
+        if (targetMeta.getTitle() == null) {
+            targetMeta.setTitle(aliasMeta.getTitle() != null ? aliasMeta.getTitle()
+                    : oldTargetMeta != null ? oldTargetMeta.getTitle() : null);
+        }
+        if (targetMeta.getLogo() == null) {
+            targetMeta.setLogo(aliasMeta.getLogo() != null ? aliasMeta.getLogo()
+                    : oldTargetMeta != null ? oldTargetMeta.getLogo() : null);
+        }
+
+        String retired = aliasMeta.getPreviousAliasOf();
+        // A plain collection that becomes an alias is kept as the rollback target under its own name
+        aliasMeta.setPreviousAliasOf(aliasMeta.isAlias() ? aliasMeta.getAliasOf() : aliasName);
+        aliasMeta.setAliasOf(targetCollection);
+        saveMetadataToFile(current);
+        log.info("Swapped alias '{}' -> '{}' (previous '{}')", aliasName, targetCollection,
+                aliasMeta.getPreviousAliasOf());
+        return retired;
+    }
+
+    /**
+     * Point an alias back at the collection it pointed at before its last swap. Rolling
+     * back twice returns to where it started.
+     *
+     * @return the collection the alias now points at
+     * @throws IllegalStateException if there is nothing to roll back to
+     */
+    public synchronized String rollbackAlias(String aliasName) {
+        Map<String, CollectionMetadata> current = loadMetadataFromFile();
+        CollectionMetadata aliasMeta = current.get(aliasName);
+        if (aliasMeta == null || aliasMeta.getPreviousAliasOf() == null) {
+            throw new IllegalStateException("Collection '" + aliasName + "' has no previous version to roll back to");
+        }
+        String target = aliasMeta.getPreviousAliasOf();
+        aliasMeta.setPreviousAliasOf(aliasMeta.getAliasOf());
+        // The alias's own name means the plain collection it replaced
+        aliasMeta.setAliasOf(aliasName.equals(target) ? null : target);
+        saveMetadataToFile(current);
+        log.info("Rolled back alias '{}' -> '{}'", aliasName, target);
+        return target;
+    }
+
+    public synchronized void removeAlias(String aliasName) {
         Map<String, CollectionMetadata> current = loadMetadataFromFile();
         CollectionMetadata meta = current.get(aliasName);
         if (meta != null && meta.isAlias()) {
@@ -108,6 +188,45 @@ public class CollectionMetadataService {
         }
     }
 
+    public synchronized void setGroup(String groupName, List<String> memberCollections) {
+        Map<String, CollectionMetadata> current = loadMetadataFromFile();
+        current.computeIfAbsent(groupName, k -> new CollectionMetadata()).setMembers(memberCollections);
+        saveMetadataToFile(current);
+        log.info("Set group '{}' -> {}", groupName, memberCollections);
+    }
+
+    public synchronized void removeGroup(String groupName) {
+        Map<String, CollectionMetadata> current = loadMetadataFromFile();
+        CollectionMetadata meta = current.get(groupName);
+        if (meta != null && meta.isGroup()) {
+            current.remove(groupName);
+            saveMetadataToFile(current);
+            log.info("Removed group '{}'", groupName);
+        }
+    }
+
+    /**
+     * Resolves a collection name to the collections to search: the members of a group,
+     * or the collection itself, with aliases followed in both cases.
+     */
+    public List<String> resolveCollections(String collectionName) {
+        Map<String, CollectionMetadata> allMetadata = loadMetadataFromFile();
+        CollectionMetadata meta = allMetadata.get(collectionName);
+        if (meta != null && meta.isGroup()) {
+            return meta.getMembers().stream()
+                    .map(member -> {
+                        CollectionMetadata memberMeta = allMetadata.get(member);
+                        return memberMeta != null && memberMeta.isAlias() ? memberMeta.getAliasOf() : member;
+                    })
+                    .distinct()
+                    .toList();
+        }
+        if (meta != null && meta.isAlias()) {
+            return List.of(meta.getAliasOf());
+        }
+        return List.of(collectionName);
+    }
+
     /**
      * Resolves a collection name, following aliases if present.
      * Returns the actual collection name to use.
@@ -206,8 +325,11 @@ public class CollectionMetadataService {
             if (path.getParent() != null) {
                 Files.createDirectories(path.getParent());
             }
+            // Written aside and moved into place, so requests resolving aliases never read half a file
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
             objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(path.toFile(), data);
+                    .writeValue(temp.toFile(), data);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
             log.info("Successfully saved metadata to {}", path.toAbsolutePath());
         } catch (IOException e) {
             log.error("Failed to save collection metadata to {}: {}", path, e.getMessage(), e);
@@ -0,0 +1,49 @@
+package com.chatbot.service;
+
+import com.chatbot.model.CollectionVersion;
+import com.chatbot.repository.CachedAnswerRepository;
+import com.chatbot.repository.CollectionVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Tracks a content version per collection in the database, so a reload by the loader shell
+ * is seen by a server process sharing the database too.
+ */
+@Service
+public class CollectionVersionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CollectionVersionService.class);
+
+    private final CollectionVersionRepository versionRepository;
+    private final CachedAnswerRepository cachedAnswerRepository;
+
+    public CollectionVersionService(CollectionVersionRepository versionRepository,
+                                    CachedAnswerRepository cachedAnswerRepository) {
+        this.versionRepository = versionRepository;
+        this.cachedAnswerRepository = cachedAnswerRepository;
+    }
+
+    public long getVersion(String collectionName) {
+        return versionRepository.findById(collectionName).map(CollectionVersion::getVersion).orElse(0L);
+    }
+
+    /**
+     * Move a collection to a new version and drop the answers persisted for the old one.
+     *
+     * @return the new version
+     */
+    @Transactional
+    public long bump(String collectionName) {
+        CollectionVersion version = versionRepository.findById(collectionName)
+                .orElseGet(() -> new CollectionVersion(collectionName));
+        version.setVersion(version.getVersion() + 1);
+        versionRepository.save(version);
+        int dropped = cachedAnswerRepository.deleteByCollection(collectionName);
+        log.info("Collection '{}' is now at version {} ({} persisted answers dropped)",
+                collectionName, version.getVersion(), dropped);
+        return version.getVersion();
+    }
+}
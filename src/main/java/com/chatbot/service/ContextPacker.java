@@ -0,0 +1,186 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.search.RankFusion;
+import com.chatbot.util.TokenEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns ranked retrieval results into the context block of the system prompt.
+ * Consecutive chunks of the same page are merged into one passage with their shared overlap
+ * removed, duplicates are dropped, and passages are added best-ranked first until the token
+ * budget is used up.
+ */
+@Service
+public class ContextPacker {
+
+    private static final Logger log = LoggerFactory.getLogger(ContextPacker.class);
+
+    /** Shortest suffix/prefix match treated as chunk overlap rather than coincidence. */
+    private static final int MIN_OVERLAP = 20;
+
+    private final RagConfig ragConfig;
+
+    public ContextPacker(RagConfig ragConfig) {
+        this.ragConfig = ragConfig;
+    }
+
+    /**
+     * @param text the formatted context, or a placeholder when nothing was retrieved
+     * @param documents the retrieved documents that made it into the context, in rank order
+     */
+    public record PackedContext(String text, List<Document> documents, int estimatedTokens) {}
+
+    private static class Passage {
+        final List<Document> chunks = new ArrayList<>();
+        final StringBuilder content = new StringBuilder();
+        int rank;
+        int lastChunk;
+    }
+
+    public PackedContext pack(List<Document> rankedDocuments) {
+        if (rankedDocuments.isEmpty()) {
+            return new PackedContext("No relevant documents found.", List.of(), 0);
+        }
+
+        Map<Document, Integer> ranks = new IdentityHashMap<>();
+        List<Passage> passages = buildPassages(rankedDocuments, ranks);
+        passages.sort(Comparator.comparingInt(p -> p.rank));
+
+        int budget = ragConfig.getContext().getMaxTokens();
+        int used = 0;
+        int dropped = 0;
+        List<Passage> selected = new ArrayList<>();
+        for (Passage passage : passages) {
+            int tokens = TokenEstimator.estimate(passage.content.toString());
+            if (used + tokens <= budget) {
+                selected.add(passage);
+                used += tokens;
+            } else if (selected.isEmpty()) {
+                // Always keep the best passage, cut down to the budget
+                String truncated = TokenEstimator.truncate(passage.content.toString(), budget);
+                passage.content.setLength(truncated.length());
+                selected.add(passage);
+                used = TokenEstimator.estimate(truncated);
+            } else {
+                dropped += passage.chunks.size();
+            }
+        }
+
+        StringBuilder context = new StringBuilder();
+        List<Document> included = new ArrayList<>();
+        for (int i = 0; i < selected.size(); i++) {
+            Passage passage = selected.get(i);
+            Document first = passage.chunks.get(0);
+            String source = first.getMetadata().getOrDefault("source", "unknown").toString();
+            String title = first.getMetadata().getOrDefault("title", "").toString();
+
+            context.append(String.format("\n--- Document %d (Source: %s", i + 1, source));
+            if (!title.isEmpty()) {
+                context.append(String.format(", Title: %s", title));
+            }
+            context.append(") ---\n");
+            context.append(passage.content);
+            context.append("\n");
+            included.addAll(passage.chunks);
+        }
+
+        log.debug("Packed {} chunks into {} passages (~{} tokens of {}), dropped {} over budget",
+                rankedDocuments.size(), selected.size(), used, budget, dropped);
+        included.sort(Comparator.comparingInt(ranks::get));
+        return new PackedContext(context.toString(), included, used);
+    }
+
+    /**
+     * Group chunks by page and merge runs of consecutive chunk numbers. A passage ranks
+     * as high as its best chunk.
+     */
+    private List<Passage> buildPassages(List<Document> rankedDocuments, Map<Document, Integer> ranks) {
+        boolean merge = ragConfig.getContext().isMergeAdjacent();
+        Map<String, List<Document>> byPage = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (Document document : rankedDocuments) {
+            if (!seen.add(RankFusion.chunkKey(document))) {
+                continue;
+            }
+            ranks.put(document, ranks.size());
+            Object docId = document.getMetadata().get("docId");
+            String pageKey = merge && docId != null && chunkNumber(document) > 0
+                    ? docId.toString()
+                    : "#" + ranks.size();
+            byPage.computeIfAbsent(pageKey, k -> new ArrayList<>()).add(document);
+        }
+
+        List<Passage> passages = new ArrayList<>();
+        for (List<Document> chunks : byPage.values()) {
+            chunks.sort(Comparator.comparingInt(ContextPacker::chunkNumber));
+            Passage current = null;
+            for (Document chunk : chunks) {
+                int number = chunkNumber(chunk);
+                if (current != null && number == current.lastChunk + 1) {
+                    appendWithoutOverlap(current.content, chunk.getContent());
+                } else {
+                    current = new Passage();
+                    current.rank = Integer.MAX_VALUE;
+                    current.content.append(chunk.getContent());
+                    passages.add(current);
+                }
+                current.chunks.add(chunk);
+                current.lastChunk = number;
+                current.rank = Math.min(current.rank, ranks.get(chunk));
+            }
+        }
+        return passages;
+    }
+
+    /**
+     * Append the next chunk of a page, skipping the text it repeats from the end of the previous one.
+     */
+    private void appendWithoutOverlap(StringBuilder passage, String next) {
+        int maxOverlap = Math.min(Math.min(passage.length(), next.length()), ragConfig.getChunkOverlap() * 2);
+        for (int length = maxOverlap; length >= MIN_OVERLAP; length--) {
+            if (endsWith(passage, next, length)) {
+                passage.append(next, length, next.length());
+                return;
+            }
+        }
+        passage.append('\n').append(next);
+    }
+
+    private static boolean endsWith(StringBuilder text, String next, int length) {
+        int offset = text.length() - length;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(offset + i) != next.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int chunkNumber(Document document) {
+        Object chunk = document.getMetadata().get("chunk");
+        if (chunk instanceof Number number) {
+            return number.intValue();
+        }
+        if (chunk != null) {
+            try {
+                return (int) Double.parseDouble(chunk.toString());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+}
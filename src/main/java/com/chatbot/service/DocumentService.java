@@ -2,47 +2,114 @@ package com.chatbot.service;
 
 import com.chatbot.config.ChromaVectorStoreFactory;
 import com.chatbot.config.RagConfig;
+import com.chatbot.metrics.StageMetrics;
 import com.chatbot.model.DocumentInfo;
 import com.chatbot.model.LoadResult;
+import com.chatbot.search.LexicalIndex;
+import com.chatbot.search.LexicalIndexService;
+import com.chatbot.util.VectorMath;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 @Service
 public class DocumentService {
 
     private static final Logger log = LoggerFactory.getLogger(DocumentService.class);
 
-    private final VectorStore vectorStore;
     private final ChromaVectorStoreFactory vectorStoreFactory;
     private final HtmlParserService htmlParserService;
     private final RagConfig ragConfig;
+    private final SemanticAnswerCache answerCache;
+    private final LexicalIndexService lexicalIndexService;
+    private final CollectionVersionService collectionVersionService;
+    private final StageMetrics stageMetrics;
+    private final IngestManifestService manifestService;
+    private final ChunkEmbeddingStore embeddingStore;
     private final Map<String, DocumentInfo> loadedDocuments = new ConcurrentHashMap<>();
 
-    public DocumentService(VectorStore vectorStore, ChromaVectorStoreFactory vectorStoreFactory,
-                          HtmlParserService htmlParserService, RagConfig ragConfig) {
-        this.vectorStore = vectorStore;
+    private static final Pattern COLLECTION_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    public DocumentService(ChromaVectorStoreFactory vectorStoreFactory,
+                          HtmlParserService htmlParserService, RagConfig ragConfig,
+                          SemanticAnswerCache answerCache, LexicalIndexService lexicalIndexService,
+                          CollectionVersionService collectionVersionService, StageMetrics stageMetrics,
+                          IngestManifestService manifestService, ChunkEmbeddingStore embeddingStore) {
         this.vectorStoreFactory = vectorStoreFactory;
         this.htmlParserService = htmlParserService;
         this.ragConfig = ragConfig;
+        this.answerCache = answerCache;
+        this.lexicalIndexService = lexicalIndexService;
+        this.collectionVersionService = collectionVersionService;
+        this.stageMetrics = stageMetrics;
+        this.manifestService = manifestService;
+        this.embeddingStore = embeddingStore;
+    }
+
+    /**
+     * Give every collection with served docs its own metrics tag.
+     */
+    @PostConstruct
+    public void registerCollectionMetrics() {
+        Path root = Paths.get("/docs", "collections");
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.list(root)) {
+            paths.filter(Files::isDirectory)
+                    .forEach(path -> stageMetrics.registerCollection(path.getFileName().toString()));
+        } catch (IOException e) {
+            log.warn("Failed to list collections in {}: {}", root, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether a name can be used for a collection: it names directories that are deleted
+     * recursively, so it must be a single path segment.
+     */
+    public static boolean isValidCollectionName(String collectionName) {
+        return collectionName != null && COLLECTION_NAME.matcher(collectionName).matches()
+                && !collectionName.equals(".") && !collectionName.equals("..");
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is not {@link #isValidCollectionName valid}
+     */
+    public static void validateCollectionName(String collectionName) {
+        if (!isValidCollectionName(collectionName)) {
+            throw new IllegalArgumentException("Invalid collection name '" + collectionName
+                    + "': use letters, digits, '.', '_' and '-'");
+        }
     }
 
     public void wipeChromaCollection(String collectionName) {
         // Recreate collection ensures it exists and is empty
         vectorStoreFactory.recreateCollection(collectionName);
+        lexicalIndexService.remove(collectionName, getCollectionDocsPath(collectionName));
+        collectionVersionService.bump(collectionName);
     }
 
     /**
@@ -59,6 +126,14 @@ public class DocumentService {
         Path collectionPath = getCollectionDocsPath(collectionName);
 
         // Delete existing directory if it exists
+        deleteCollectionDocsDirectory(collectionPath);
+
+        // Create fresh directory
+        Files.createDirectories(collectionPath);
+        log.info("Prepared collection docs directory: {}", collectionPath);
+    }
+
+    private void deleteCollectionDocsDirectory(Path collectionPath) throws IOException {
         if (Files.exists(collectionPath)) {
             try (Stream<Path> walk = Files.walk(collectionPath)) {
                 walk.sorted(Comparator.reverseOrder())
@@ -66,202 +141,388 @@ public class DocumentService {
                         .forEach(File::delete);
             }
         }
-
-        // Create fresh directory
-        Files.createDirectories(collectionPath);
-        log.info("Prepared collection docs directory: {}", collectionPath);
     }
 
     /**
-     * Copy a file to the collection's served directory.
+     * Delete a collection with its served docs, lexical index, manifest and cached answers.
      */
-    private void copyToCollectionDocs(Path sourceFile, String relativePath, String collectionName) throws IOException {
-        Path targetPath = getCollectionDocsPath(collectionName).resolve(relativePath);
-        Files.createDirectories(targetPath.getParent());
-        Files.copy(sourceFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
+    public void deleteCollection(String collectionName) {
+        validateCollectionName(collectionName);
+        vectorStoreFactory.deleteCollection(collectionName);
+        lexicalIndexService.remove(collectionName, getCollectionDocsPath(collectionName));
+        manifestService.delete(collectionName);
+        answerCache.invalidate(collectionName);
+        collectionVersionService.bump(collectionName);
+        stageMetrics.unregisterCollection(collectionName);
+        try {
+            deleteCollectionDocsDirectory(getCollectionDocsPath(collectionName));
+        } catch (IOException e) {
+            log.warn("Failed to delete docs of collection '{}': {}", collectionName, e.getMessage());
+        }
+        log.info("Deleted collection '{}'", collectionName);
+    }
+
+    public LoadResult loadDocumentsFromDirectory(String directoryPath, String collectionName) {
+        return loadDocumentsFromDirectory(directoryPath, collectionName, false);
     }
 
     /**
-     * Copy all files from source directory to collection docs directory.
-     * This includes HTML, CSS, JS, images, and any other assets.
+     * Load the HTML files of a directory into a collection.
+     *
+     * @param incremental keep the chunks of files unchanged since the last load and only
+     *                    re-embed files that were added, changed or removed; falls back to a
+     *                    full load when there is no usable manifest of the last load
      */
-    private void copyAllFilesToCollectionDocs(Path sourceDir, String collectionName) throws IOException {
-        Path targetDir = getCollectionDocsPath(collectionName);
+    public LoadResult loadDocumentsFromDirectory(String directoryPath, String collectionName, boolean incremental) {
+        validateCollectionName(collectionName);
+        File directory = new File(directoryPath);
 
-        try (Stream<Path> paths = Files.walk(sourceDir)) {
-            List<Path> allFiles = paths.filter(Files::isRegularFile).toList();
+        if (!directory.exists() || !directory.isDirectory()) {
+            return LoadResult.builder()
+                    .filesProcessed(0)
+                    .chunksCreated(0)
+                    .errors(1)
+                    .message("Directory does not exist: " + directoryPath)
+                    .build();
+        }
 
-            log.info("Copying {} files to collection docs directory...", allFiles.size());
+        Path sourceDir = directory.toPath();
+        return load(collectionName, incremental, sink -> {
+            Path docsDir = getCollectionDocsPath(collectionName);
+            try (Stream<Path> paths = Files.walk(sourceDir)) {
+                for (Path file : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                    String relativePath = sourceDir.relativize(file).toString().replace("\\", "/");
+                    try (InputStream in = Files.newInputStream(file)) {
+                        stageFile(relativePath, in, docsDir, sink);
+                    } catch (IOException e) {
+                        if (isHtml(relativePath)) {
+                            sink.reject(relativePath, e);
+                        } else {
+                            log.warn("Failed to copy file {}: {}", relativePath, e.getMessage());
+                        }
+                    }
+                }
+            }
+        });
+    }
 
-            for (Path file : allFiles) {
-                String relativePath = sourceDir.relativize(file).toString().replace("\\", "/");
-                try {
-                    copyToCollectionDocs(file, relativePath, collectionName);
-                } catch (IOException e) {
-                    log.warn("Failed to copy file {}: {}", relativePath, e.getMessage());
+    /**
+     * Load the HTML files of a ZIP archive into a collection as the archive is read, e.g.
+     * while it downloads. Every entry is written to the collection's served directory once,
+     * and HTML entries are parsed from memory, so nothing is extracted to a temporary directory.
+     *
+     * @param incremental as for {@link #loadDocumentsFromDirectory(String, String, boolean)}
+     */
+    public LoadResult loadDocumentsFromZip(InputStream zip, String collectionName, boolean incremental) {
+        validateCollectionName(collectionName);
+        return load(collectionName, incremental, sink -> {
+            Path docsDir = getCollectionDocsPath(collectionName);
+            // Not closed here: the caller owns the underlying stream
+            ZipInputStream zis = new ZipInputStream(zip);
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    stageFile(entry.getName().replace("\\", "/"), zis, docsDir, sink);
                 }
+                zis.closeEntry();
             }
+        });
+    }
 
-            log.info("Finished copying files to {}", targetDir);
+    /**
+     * Write one file of a load to the collection's served directory, and hand HTML files to
+     * the pipeline parsed from the same bytes.
+     */
+    private void stageFile(String relativePath, InputStream in, Path docsDir, IngestionPipeline.FileSink sink)
+            throws IOException, InterruptedException {
+        Path targetPath = docsDir.resolve(relativePath).normalize();
+
+        // Security check: prevent zip slip vulnerability
+        if (!targetPath.startsWith(docsDir)) {
+            throw new IOException("Invalid file path: " + relativePath);
+        }
+
+        Files.createDirectories(targetPath.getParent());
+        if (!isHtml(relativePath)) {
+            Files.copy(in, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            return;
         }
+        byte[] content = in.readAllBytes();
+        Files.write(targetPath, content);
+        sink.accept(new IngestionPipeline.SourceFile(relativePath, targetPath.getFileName().toString(),
+                targetPath.toString(), content));
     }
 
-    public LoadResult loadDocumentsFromDirectory(String directoryPath, String collectionName) {
-        File directory = new File(directoryPath);
+    private static boolean isHtml(String path) {
+        String name = path.toLowerCase();
+        return name.endsWith(".html") || name.endsWith(".htm");
+    }
 
-        // Wipe the specific collection before loading
-        wipeChromaCollection(collectionName);
+    private LoadResult load(String collectionName, boolean incremental, IngestionPipeline.FileSource source) {
+        stageMetrics.registerCollection(collectionName);
+        IngestManifestService.Manifest previous = incremental ? previousManifest(collectionName) : null;
+        if (previous == null) {
+            // Wipe the specific collection before loading
+            manifestService.delete(collectionName);
+            wipeChromaCollection(collectionName);
+            answerCache.invalidate(collectionName);
+        }
 
         // Get vector store for this collection
         VectorStore targetVectorStore = vectorStoreFactory.getVectorStore(collectionName);
 
-        if (!directory.exists() || !directory.isDirectory()) {
+        // Prepare the collection docs directory for serving. An incremental load overwrites
+        // files in place, so links to pages it does not change keep working while it runs.
+        try {
+            if (previous == null) {
+                prepareCollectionDocsDirectory(collectionName);
+            } else {
+                Files.createDirectories(getCollectionDocsPath(collectionName));
+            }
+        } catch (IOException e) {
+            log.error("Error preparing collection docs directory: {}", e.getMessage());
             return LoadResult.builder()
                     .filesProcessed(0)
                     .chunksCreated(0)
                     .errors(1)
-                    .message("Directory does not exist: " + directoryPath)
+                    .message("Error preparing collection docs directory: " + e.getMessage())
                     .build();
         }
 
-        // Prepare the collection docs directory for serving
+        long loadStart = System.currentTimeMillis();
+        Map<String, IngestManifestService.FileEntry> previousFiles = previous != null ? previous.files() : Map.of();
+        Map<String, String> previousHashes = new HashMap<>();
+        previousFiles.forEach((path, entry) -> previousHashes.put(path, entry.hash()));
+
+        // Parse, embed and store in a pipeline that holds a bounded number of chunks at a time
+        LexicalIndex.Builder lexicalIndex = LexicalIndex.builder();
+        Map<String, IngestionPipeline.StoredFile> storedFiles = new ConcurrentHashMap<>();
+        IngestionPipeline.Result result;
         try {
-            prepareCollectionDocsDirectory(collectionName);
-        } catch (IOException e) {
-            log.error("Error preparing collection docs directory: {}", e.getMessage());
+            result = new IngestionPipeline(collectionName,
+                    targetVectorStore, htmlParserService, this::chunkText, this::embedBatch, stageMetrics,
+                    ragConfig.getIngestion(), lexicalIndex, previousHashes,
+                    stored -> {
+                        storedFiles.put(stored.relativePath(), stored);
+                        if (stored.info() != null) {
+                            loadedDocuments.put(stored.info().getId(), stored.info());
+                        }
+                    })
+                    .run(source);
+        } catch (UncheckedIOException e) {
+            manifestService.delete(collectionName);
             return LoadResult.builder()
                     .filesProcessed(0)
                     .chunksCreated(0)
                     .errors(1)
-                    .message("Error preparing collection docs directory: " + e.getMessage())
+                    .message("Error reading files: " + e.getCause().getMessage()
+                            + "; collection '" + collectionName + "' holds only the files read before it")
                     .build();
+        } catch (RuntimeException e) {
+            // The store now holds chunks the manifest does not know about
+            manifestService.delete(collectionName);
+            throw e;
         }
-
-        // Copy ALL files to collection docs directory (HTML, CSS, JS, images, etc.)
-        try {
-            copyAllFilesToCollectionDocs(directory.toPath(), collectionName);
-        } catch (IOException e) {
-            log.error("Error copying files to collection docs: {}", e.getMessage());
+        log.info("Read {} HTML files for collection '{}'", result.sourceFiles().size(), collectionName);
+
+        // Keep unchanged files, and changed ones that failed to parse, as they were
+        Set<String> currentFiles = result.sourceFiles();
+        Map<String, IngestManifestService.FileEntry> files = new HashMap<>();
+        List<String> staleChunkIds = new ArrayList<>();
+        List<String> removedPaths = new ArrayList<>();
+        int filesAdded = 0;
+        int filesChanged = 0;
+        int filesRemoved = 0;
+        for (Map.Entry<String, IngestManifestService.FileEntry> entry : previousFiles.entrySet()) {
+            IngestManifestService.FileEntry previousEntry = entry.getValue();
+            if (storedFiles.containsKey(entry.getKey())) {
+                staleChunkIds.addAll(previousEntry.chunkIds());
+                forgetDocument(previousEntry);
+                filesChanged++;
+            } else if (currentFiles.contains(entry.getKey())) {
+                files.put(entry.getKey(), previousEntry);
+                if (previousEntry.docId() != null) {
+                    loadedDocuments.put(previousEntry.docId(), toDocumentInfo(previousEntry));
+                }
+            } else {
+                staleChunkIds.addAll(previousEntry.chunkIds());
+                forgetDocument(previousEntry);
+                removedPaths.add(entry.getKey());
+                filesRemoved++;
+            }
         }
+        for (IngestionPipeline.StoredFile stored : storedFiles.values()) {
+            if (!previousFiles.containsKey(stored.relativePath())) {
+                filesAdded++;
+            }
+            // Files without text are recorded too, so the next incremental load skips them by hash
+            DocumentInfo info = stored.info();
+            files.put(stored.relativePath(), info != null
+                    ? new IngestManifestService.FileEntry(stored.hash(), info.getId(), info.getTitle(),
+                            info.getFilename(), info.getFilePath(), stored.chunkIds(), System.currentTimeMillis())
+                    : new IngestManifestService.FileEntry(stored.hash(), null, null, null, null, List.of(),
+                            System.currentTimeMillis()));
+        }
+        removeChunks(targetVectorStore, collectionName, staleChunkIds);
+        deleteServedFiles(collectionName, removedPaths);
+
+        boolean changed = previous == null || filesAdded + filesChanged + filesRemoved > 0;
+        if (changed) {
+            if (previous != null) {
+                // Unchanged files were not parsed, so their chunks come from the previous index
+                lexicalIndexService.getIndex(collectionName, getCollectionDocsPath(collectionName))
+                        .ifPresent(index -> index.chunks().stream()
+                                .filter(chunk -> files.containsKey(chunk.source())
+                                        && !storedFiles.containsKey(chunk.source()))
+                                .forEach(lexicalIndex::add));
+            }
+            if (!files.isEmpty()) {
+                log.info("Collection '{}' now holds {} files", collectionName, files.size());
+                lexicalIndexService.save(collectionName, getCollectionDocsPath(collectionName), lexicalIndex.build());
+            } else {
+                lexicalIndexService.remove(collectionName, getCollectionDocsPath(collectionName));
+            }
+            vectorStoreFactory.flush(collectionName);
+            vectorStoreFactory.compactIfNeeded(collectionName);
+        }
+        manifestService.save(collectionName, manifestService.create(collectionName, files));
 
-        int filesProcessed = 0;
-        int totalChunks = 0;
-        int errors = 0;
-
-
-        try (Stream<Path> paths = Files.walk(directory.toPath())) {
-            List<Path> htmlFiles = paths
-                    .filter(Files::isRegularFile)
-                    .filter(p -> {
-                        String name = p.getFileName().toString().toLowerCase();
-                        return name.endsWith(".html") || name.endsWith(".htm");
-                    })
-                    .toList();
-
-            log.info("Found {} HTML files in {}", htmlFiles.size(), directoryPath);
-
-            // Batch all documents for a single vectorStore.add() call
-            List<Document> allDocuments = new ArrayList<>();
-            List<DocumentInfo> pendingDocInfos = new ArrayList<>();
-
-            for (Path htmlFile : htmlFiles) {
-                try {
-                    HtmlParserService.ParsedDocument parsed = htmlParserService.parseHtmlFile(htmlFile.toFile());
-                    List<String> chunks = chunkText(parsed.content());
-
-                    if (chunks.isEmpty()) {
-                        log.warn("No content chunks created for document: {}", parsed.filename());
-                        continue;
-                    }
+        stageMetrics.count(StageMetrics.IngestItem.FILES, collectionName, result.filesProcessed());
+        stageMetrics.count(StageMetrics.IngestItem.CHUNKS, collectionName, result.chunksCreated());
+        stageMetrics.count(StageMetrics.IngestItem.ERRORS, collectionName, result.errors());
 
-                    // Calculate relative path from base directory for URL construction
-                    String relativePath = directory.toPath().relativize(htmlFile).toString().replace("\\", "/");
+        if (changed) {
+            // Answers cached while the collection was being refilled were built on partial context
+            answerCache.invalidate(collectionName);
+            collectionVersionService.bump(collectionName);
+        }
 
-                    String docId = UUID.randomUUID().toString();
+        long elapsedMs = System.currentTimeMillis() - loadStart;
+        String message = previous != null
+                ? String.format("Updated collection '%s' in %.1fs: %d added, %d changed, %d removed, %d unchanged "
+                                + "files skipped; %d chunks embedded, %d removed (%d errors)",
+                        collectionName, elapsedMs / 1000.0, filesAdded, filesChanged, filesRemoved,
+                        result.filesUnchanged(), result.chunksCreated(), staleChunkIds.size(), result.errors())
+                : String.format("Loaded %d files with %d chunks into collection '%s' in %.1fs (%d errors)",
+                        result.filesProcessed(), result.chunksCreated(), collectionName, elapsedMs / 1000.0,
+                        result.errors());
 
-                    for (int i = 0; i < chunks.size(); i++) {
-                        Map<String, Object> metadata = new HashMap<>();
-                        metadata.put("source", relativePath);
-                        metadata.put("filePath", parsed.filePath());
-                        metadata.put("title", parsed.title());
-                        metadata.put("chunk", i + 1);
-                        metadata.put("totalChunks", chunks.size());
-                        metadata.put("docId", docId);
-                        metadata.put("collection", collectionName);
+        return LoadResult.builder()
+                .filesProcessed(result.filesProcessed())
+                .chunksCreated(result.chunksCreated())
+                .errors(result.errors())
+                .message(message)
+                .elapsedMs(elapsedMs)
+                .stages(result.stages())
+                .incremental(previous != null)
+                .filesUnchanged(result.filesUnchanged())
+                .filesAdded(filesAdded)
+                .filesChanged(filesChanged)
+                .filesRemoved(filesRemoved)
+                .chunksRemoved(staleChunkIds.size())
+                .build();
+    }
 
-                        allDocuments.add(new Document(chunks.get(i), metadata));
-                    }
+    /**
+     * The manifest to update incrementally, or null if the collection needs a full load.
+     */
+    private IngestManifestService.Manifest previousManifest(String collectionName) {
+        IngestManifestService.Manifest manifest = manifestService.load(collectionName).orElse(null);
+        if (manifest == null) {
+            log.info("No usable manifest for collection '{}', doing a full load", collectionName);
+            return null;
+        }
+        if (manifest.files().values().stream().anyMatch(entry -> !entry.chunkIds().isEmpty())
+                && lexicalIndexService.getIndex(collectionName, getCollectionDocsPath(collectionName)).isEmpty()) {
+            log.info("No lexical index for collection '{}' to update, doing a full load", collectionName);
+            return null;
+        }
+        return manifest;
+    }
 
-                    pendingDocInfos.add(DocumentInfo.builder()
-                            .id(docId)
-                            .filename(parsed.filename())
-                            .filePath(parsed.filePath())
-                            .title(parsed.title())
-                            .chunkCount(chunks.size())
-                            .loadedAt(LocalDateTime.now())
-                            .build());
-
-                    filesProcessed++;
-                    totalChunks += chunks.size();
-                    log.info("Parsed {} -> {} ({} chunks)", htmlFile.getFileName(), relativePath, chunks.size());
-
-                } catch (Exception e) {
-                    log.error("Error parsing {}: {}", htmlFile, e.getMessage());
-                    errors++;
-                }
+    /**
+     * Delete the served copies of files that are no longer in the source.
+     */
+    private void deleteServedFiles(String collectionName, List<String> relativePaths) {
+        Path docsDir = getCollectionDocsPath(collectionName);
+        for (String relativePath : relativePaths) {
+            Path path = docsDir.resolve(relativePath).normalize();
+            if (!path.startsWith(docsDir)) {
+                continue;
             }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Failed to delete removed file {}: {}", path, e.getMessage());
+            }
+        }
+    }
 
-            // Send documents to vector store in batches of 100
-            if (!allDocuments.isEmpty()) {
-                final int BATCH_SIZE = 100;
-
-                log.info("Sending {} chunks to collection '{}' in batches of {}...",
-                        allDocuments.size(), collectionName, BATCH_SIZE);
-
-                // Safety: ensure pendingDocInfos aligns with allDocuments
-                int docInfoIndex = 0;
-
-                for (int start = 0; start < allDocuments.size(); start += BATCH_SIZE) {
-                    int end = Math.min(start + BATCH_SIZE, allDocuments.size());
-
-                    // Sub-list view; copy if your vectorStore implementation mutates the list
-                    List<Document> batch = allDocuments.subList(start, end);
+    private void forgetDocument(IngestManifestService.FileEntry entry) {
+        if (entry.docId() != null) {
+            loadedDocuments.remove(entry.docId());
+        }
+    }
 
-                    log.info("Sending batch {}-{} ({} chunks)...", start, end - 1, batch.size());
-                    targetVectorStore.add(batch);
+    private static DocumentInfo toDocumentInfo(IngestManifestService.FileEntry entry) {
+        return DocumentInfo.builder()
+                .id(entry.docId())
+                .filename(entry.filename())
+                .filePath(entry.filePath())
+                .title(entry.title())
+                .chunkCount(entry.chunkIds().size())
+                .loadedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.loadedAtMillis()), ZoneId.systemDefault()))
+                .build();
+    }
 
-                    // Register only the documents that correspond to this batch after successful add
-                    int batchDocInfoEnd = Math.min(docInfoIndex + (end - start), pendingDocInfos.size());
-                    for (int i = docInfoIndex; i < batchDocInfoEnd; i++) {
-                        DocumentInfo docInfo = pendingDocInfos.get(i);
-                        loadedDocuments.put(docInfo.getId(), docInfo);
-                    }
-                    docInfoIndex = batchDocInfoEnd;
-                }
+    private void removeChunks(VectorStore store, String collectionName, List<String> chunkIds) {
+        final int BATCH_SIZE = 500;
+        for (int start = 0; start < chunkIds.size(); start += BATCH_SIZE) {
+            store.delete(chunkIds.subList(start, Math.min(start + BATCH_SIZE, chunkIds.size())));
+        }
+        if (!chunkIds.isEmpty()) {
+            log.info("Removed {} chunks of changed and removed files from collection '{}'",
+                    chunkIds.size(), collectionName);
+        }
+    }
 
-                log.info("Successfully added {} chunks to collection '{}' (registered {} docs)",
-                        allDocuments.size(), collectionName, Math.min(pendingDocInfos.size(), docInfoIndex));
+    /**
+     * Embed a batch of chunks with one call to the embedding API. The vector stores keep an
+     * embedding that is already set, so this splits embedding time from the store write and
+     * saves ChromaDB collections from embedding chunk by chunk. Chunks whose text was embedded
+     * before, by any load, are answered from the {@link ChunkEmbeddingStore} instead.
+     */
+    private void embedBatch(List<Document> batch) {
+        List<String> texts = batch.stream()
+                .map(document -> document.getFormattedContent(MetadataMode.EMBED))
+                .toList();
+        List<float[]> stored = embeddingStore.isEnabled()
+                ? embeddingStore.getAll(texts)
+                : Collections.nCopies(texts.size(), null);
+        List<Integer> missIndexes = new ArrayList<>();
+        List<String> missTexts = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (stored.get(i) != null) {
+                batch.get(i).setEmbedding(VectorMath.toDoubleList(stored.get(i)));
+            } else {
+                missIndexes.add(i);
+                missTexts.add(texts.get(i));
             }
-
-        } catch (IOException e) {
-            log.error("Error walking directory: {}", e.getMessage());
-            return LoadResult.builder()
-                    .filesProcessed(filesProcessed)
-                    .chunksCreated(totalChunks)
-                    .errors(errors + 1)
-                    .message("Error walking directory: " + e.getMessage())
-                    .build();
+        }
+        if (missTexts.isEmpty()) {
+            return;
         }
 
-        String message = String.format("Loaded %d files with %d chunks into collection '%s' (%d errors)",
-                filesProcessed, totalChunks, collectionName, errors);
-
-        return LoadResult.builder()
-                .filesProcessed(filesProcessed)
-                .chunksCreated(totalChunks)
-                .errors(errors)
-                .message(message)
-                .build();
+        List<Embedding> embeddings = vectorStoreFactory.getEmbeddingModel().embedForResponse(missTexts).getResults();
+        List<float[]> vectors = new ArrayList<>(missTexts.size());
+        for (int i = 0; i < missIndexes.size(); i++) {
+            List<Double> embedding = embeddings.get(i).getOutput();
+            batch.get(missIndexes.get(i)).setEmbedding(embedding);
+            vectors.add(VectorMath.toFloatArray(embedding));
+        }
+        if (embeddingStore.isEnabled()) {
+            embeddingStore.putAll(missTexts, vectors);
+        }
     }
 
     public int loadDocument(File file) throws IOException {
@@ -275,7 +536,8 @@ public class DocumentService {
     }
 
     private int loadParsedDocument(HtmlParserService.ParsedDocument parsed) {
-        List<String> chunks = chunkText(parsed.content());
+        List<String> chunks = stageMetrics.time(StageMetrics.IngestStage.CHUNK, "documents",
+                () -> chunkText(parsed.content()));
 
         if (chunks.isEmpty()) {
             log.warn("No content chunks created for document: {}", parsed.filename());
@@ -297,7 +559,14 @@ public class DocumentService {
             documents.add(new Document(chunks.get(i), metadata));
         }
 
-        vectorStore.add(documents);
+        // Same store ChatService searches for the default collection, whichever type is configured for it;
+        // the store embeds with its own model, so embedding is not split out here
+        vectorStoreFactory.getVectorStore("documents").add(documents);
+        vectorStoreFactory.flush("documents");
+        stageMetrics.count(StageMetrics.IngestItem.FILES, "documents", 1);
+        stageMetrics.count(StageMetrics.IngestItem.CHUNKS, "documents", chunks.size());
+        answerCache.invalidate("documents");
+        collectionVersionService.bump("documents");
 
         loadedDocuments.put(docId, DocumentInfo.builder()
                 .id(docId)
@@ -0,0 +1,259 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.metrics.StageMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Generates follow-up question suggestions in the background so the chat answer can be
+ * returned as soon as it is ready. Results are kept for a short time under a response id
+ * and can be polled or cancelled. Callers served the same cached or coalesced answer share
+ * its generation, each under its own response id, and generation stops only once all of
+ * them cancelled.
+ * When the worker queue is full, generation is skipped.
+ */
+@Service
+public class FollowUpService {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowUpService.class);
+
+    public enum Status { PENDING, READY, SKIPPED, CANCELLED, FAILED }
+
+    public record FollowUpResult(Status status, List<String> followUps) {}
+
+    private final ChatClient.Builder chatClientBuilder;
+    private final RagConfig ragConfig;
+    private final StageMetrics stageMetrics;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public FollowUpService(ChatClient.Builder chatClientBuilder, RagConfig ragConfig, StageMetrics stageMetrics) {
+        this.chatClientBuilder = chatClientBuilder;
+        this.ragConfig = ragConfig;
+        this.stageMetrics = stageMetrics;
+
+        RagConfig.FollowUps config = ragConfig.getFollowUps();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                config.getMaxConcurrent(), config.getMaxConcurrent(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "follow-ups-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static class Job {
+        final CompletableFuture<List<String>> result = new CompletableFuture<>();
+        final Instant createdAt = Instant.now();
+        // Response ids that still want the result; generation is cancelled when the last one is
+        final AtomicInteger holders = new AtomicInteger(1);
+        volatile Future<?> task;
+        volatile boolean skipped;
+    }
+
+    /**
+     * Start generating follow-up questions for an answer.
+     *
+     * @param collections collections the answer came from, for metrics
+     * @param onReady    called with the questions once they are generated
+     * @return the response id to poll with, or null when follow-ups are disabled
+     */
+    public String submit(List<String> collections, String userQuestion, String assistantResponse,
+                         Consumer<List<String>> onReady) {
+        RagConfig.FollowUps config = ragConfig.getFollowUps();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        purgeExpired();
+
+        String responseId = UUID.randomUUID().toString();
+        Job job = new Job();
+        jobs.put(responseId, job);
+
+        try {
+            job.task = executor.submit(() -> {
+                try {
+                    job.result.complete(stageMetrics.time(StageMetrics.ChatStage.FOLLOW_UPS, collections,
+                            () -> generateFollowUpQuestions(userQuestion, assistantResponse)));
+                } catch (Exception e) {
+                    job.result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Follow-up queue full, skipping generation for response {}", responseId);
+            skipped.incrementAndGet();
+            job.skipped = true;
+            job.result.complete(List.of());
+            return responseId;
+        }
+
+        job.result.orTimeout(config.getTimeoutSeconds(), TimeUnit.SECONDS)
+                .whenComplete((followUps, error) -> {
+                    if (error == null) {
+                        generated.incrementAndGet();
+                        onReady.accept(followUps);
+                    } else if (error instanceof CancellationException) {
+                        cancelled.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                        log.warn("Failed to generate follow-up questions: {}", error.getMessage());
+                    }
+                    // Stop the LLM call if we gave up waiting for it
+                    if (error != null && job.task != null) {
+                        job.task.cancel(true);
+                    }
+                });
+
+        return responseId;
+    }
+
+    /**
+     * Give another caller its own response id for a generation that is pending or done, e.g.
+     * for a hit on the cached answer it belongs to.
+     *
+     * @return the new id, or null if the generation is unknown, purged, skipped, failed or cancelled
+     */
+    public String share(String responseId) {
+        Job job = responseId != null ? jobs.get(responseId) : null;
+        if (job == null || job.skipped || job.result.isCompletedExceptionally()) {
+            return null;
+        }
+        // Fails if the last holder cancelled in the meantime
+        if (job.holders.getAndUpdate(count -> count > 0 ? count + 1 : count) == 0) {
+            return null;
+        }
+        String sharedId = UUID.randomUUID().toString();
+        jobs.put(sharedId, job);
+        return sharedId;
+    }
+
+    public Optional<FollowUpResult> getResult(String responseId) {
+        Job job = jobs.get(responseId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        CompletableFuture<List<String>> result = job.result;
+        if (!result.isDone()) {
+            return Optional.of(new FollowUpResult(Status.PENDING, List.of()));
+        }
+        if (result.isCancelled()) {
+            return Optional.of(new FollowUpResult(Status.CANCELLED, List.of()));
+        }
+        if (result.isCompletedExceptionally()) {
+            return Optional.of(new FollowUpResult(Status.FAILED, List.of()));
+        }
+        return Optional.of(new FollowUpResult(job.skipped ? Status.SKIPPED : Status.READY, result.join()));
+    }
+
+    /**
+     * Completes with the questions once generation ends, or with an empty list if it was
+     * skipped, failed or cancelled, or the response id is unknown.
+     */
+    public CompletableFuture<List<String>> whenReady(String responseId) {
+        Job job = responseId != null ? jobs.get(responseId) : null;
+        if (job == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return job.result.handle((followUps, error) -> error == null ? followUps : List.of());
+    }
+
+    /**
+     * Give up a response id's interest in follow-ups; generation stops once no id sharing it is left.
+     */
+    public boolean cancel(String responseId) {
+        Job job = jobs.get(responseId);
+        if (job == null || job.result.isDone() || !jobs.remove(responseId, job)) {
+            return false;
+        }
+        if (job.holders.decrementAndGet() > 0) {
+            return true;
+        }
+        boolean wasCancelled = job.result.cancel(false);
+        if (job.task != null) {
+            job.task.cancel(true);
+        }
+        return wasCancelled;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "generated", generated.get(),
+                "skipped", skipped.get(),
+                "cancelled", cancelled.get(),
+                "failed", failed.get(),
+                "active", executor.getActiveCount(),
+                "queued", executor.getQueue().size()
+        );
+    }
+
+    private void purgeExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(ragConfig.getFollowUps().getRetentionMinutes()));
+        jobs.entrySet().removeIf(entry -> entry.getValue().createdAt.isBefore(cutoff));
+    }
+
+    private List<String> generateFollowUpQuestions(String userQuestion, String assistantResponse) {
+        String followUpPrompt = """
+            Based on this Q&A exchange, suggest exactly 3 brief follow-up questions the user might want to ask next.
+            Return ONLY the questions, one per line, without numbering or bullets.
+            Keep each question under 60 characters.
+
+            User asked: %s
+
+            Assistant answered: %s
+            """.formatted(userQuestion, assistantResponse.length() > 500 ? assistantResponse.substring(0, 500) + "..." : assistantResponse);
+
+        ChatClient chatClient = chatClientBuilder.build();
+        String result = chatClient.prompt()
+                .user(followUpPrompt)
+                .call()
+                .content();
+
+        if (result == null || result.isBlank()) {
+            return List.of();
+        }
+
+        return result.lines()
+                .map(String::trim)
+                .filter(line -> !line.isBlank())
+                .filter(line -> !line.matches("^[0-9]+[.)].*")) // Remove any numbered lines
+                .limit(3)
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
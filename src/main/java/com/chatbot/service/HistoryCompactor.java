@@ -0,0 +1,312 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.ChatRequest;
+import com.chatbot.util.TokenEstimator;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fits conversation history into a fixed token budget. The latest messages are replayed
+ * verbatim; older ones are folded into a rolling summary that is generated in the background
+ * and cached per conversation, so no request waits on a summarization call. Until a summary
+ * covers them, older messages are replayed only if they still fit and are dropped otherwise.
+ * Every message after the summary is replayed until they outgrow the budget, and only then is
+ * the summary extended, so between compactions each turn's history starts with the previous
+ * turn's and the provider's prompt cache can reuse it.
+ */
+@Service
+public class HistoryCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryCompactor.class);
+
+    private static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+    private static final int MAX_TOKENS_PER_SUMMARIZED_MESSAGE = 500;
+
+    /**
+     * @param originalTokens estimated tokens had the whole history been replayed
+     * @param compactedTokens estimated tokens of {@code messages}
+     */
+    public record CompactedHistory(List<Message> messages, int originalTokens, int compactedTokens) {
+
+        public int savedTokens() {
+            return Math.max(0, originalTokens - compactedTokens);
+        }
+    }
+
+    /**
+     * Summary of the first {@code coveredMessages} messages of a conversation. The fingerprint
+     * detects clients that edit or reorder earlier messages, which invalidates the summary.
+     */
+    private record Summary(int coveredMessages, long fingerprint, String text) {}
+
+    private final ChatClient.Builder chatClientBuilder;
+    private final RagConfig ragConfig;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<String, Summary> summaries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong compactedRequests = new AtomicLong();
+    private final AtomicLong originalTokens = new AtomicLong();
+    private final AtomicLong savedTokens = new AtomicLong();
+    private final AtomicLong summariesGenerated = new AtomicLong();
+    private final AtomicLong summariesSkipped = new AtomicLong();
+    private final AtomicLong summaryFailures = new AtomicLong();
+
+    public HistoryCompactor(ChatClient.Builder chatClientBuilder, RagConfig ragConfig) {
+        this.chatClientBuilder = chatClientBuilder;
+        this.ragConfig = ragConfig;
+
+        RagConfig.History config = ragConfig.getHistory();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                config.getMaxConcurrent(), config.getMaxConcurrent(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "history-summary-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Build the history section of a prompt.
+     *
+     * @param conversationId id the client keeps for the conversation; when absent the
+     *                       opening message identifies it
+     * @param history        earlier messages, oldest first, without the current question
+     */
+    public CompactedHistory compact(String conversationId, List<ChatRequest.ChatMessage> history) {
+        List<ChatRequest.ChatMessage> turns = history == null ? List.of() : history.stream()
+                .filter(message -> message.getContent() != null)
+                .filter(message -> "user".equalsIgnoreCase(message.getRole())
+                        || "assistant".equalsIgnoreCase(message.getRole()))
+                .toList();
+
+        int[] tokens = new int[turns.size()];
+        int total = 0;
+        for (int i = 0; i < turns.size(); i++) {
+            tokens[i] = TokenEstimator.estimate(turns.get(i).getContent());
+            total += tokens[i];
+        }
+
+        RagConfig.History config = ragConfig.getHistory();
+        requests.incrementAndGet();
+        originalTokens.addAndGet(total);
+        if (!config.isEnabled() || total <= config.getMaxTokens()) {
+            List<Message> messages = new ArrayList<>(turns.size());
+            turns.forEach(message -> messages.add(toMessage(message.getRole(), message.getContent())));
+            return new CompactedHistory(messages, total, total);
+        }
+
+        String key = conversationKey(conversationId, turns);
+        int olderCount = Math.max(0, turns.size() - config.getRecentMessages());
+        Summary summary = validSummary(key, turns, olderCount);
+        int covered = summary != null ? summary.coveredMessages() : 0;
+
+        // The summary may take at most half the budget so recent messages always have room
+        int budget = config.getMaxTokens();
+        String summaryText = null;
+        int used = 0;
+        if (summary != null) {
+            summaryText = TokenEstimator.truncate(SUMMARY_PREFIX + summary.text(),
+                    Math.min(config.getSummaryMaxTokens(), budget / 2));
+            used = TokenEstimator.estimate(summaryText);
+        }
+        int uncovered = 0;
+        for (int i = covered; i < turns.size(); i++) {
+            uncovered += tokens[i];
+        }
+        if (used + uncovered > budget && covered < olderCount) {
+            // Extending the summary changes the start of the history, so only do it once the rest overflows
+            scheduleSummary(key, turns.subList(0, olderCount), summary);
+        }
+
+        // Walk back from the newest message and keep a contiguous run that fits
+        int first = turns.size();
+        while (first > covered && used + tokens[first - 1] <= budget) {
+            first--;
+            used += tokens[first];
+        }
+        List<Message> messages = new ArrayList<>(turns.size() - first + 2);
+        if (summaryText != null) {
+            messages.add(new SystemMessage(summaryText));
+        }
+        if (first == turns.size() && first > covered) {
+            // Even the latest message is over budget on its own
+            ChatRequest.ChatMessage latest = turns.get(first - 1);
+            String truncated = TokenEstimator.truncate(latest.getContent(), Math.max(0, budget - used));
+            messages.add(toMessage(latest.getRole(), truncated));
+            used += TokenEstimator.estimate(truncated);
+        }
+        for (int i = first; i < turns.size(); i++) {
+            messages.add(toMessage(turns.get(i).getRole(), turns.get(i).getContent()));
+        }
+
+        compactedRequests.incrementAndGet();
+        savedTokens.addAndGet(Math.max(0, total - used));
+        log.debug("Compacted {} history messages from ~{} to ~{} tokens (summary covers {}, dropped {})",
+                turns.size(), total, used, covered, Math.max(0, first - covered));
+        return new CompactedHistory(messages, total, used);
+    }
+
+    private static Message toMessage(String role, String content) {
+        return "user".equalsIgnoreCase(role) ? new UserMessage(content) : new AssistantMessage(content);
+    }
+
+    private static String conversationKey(String conversationId, List<ChatRequest.ChatMessage> turns) {
+        if (conversationId != null && !conversationId.isBlank()) {
+            return conversationId;
+        }
+        return "opening:" + Long.toHexString(fingerprint(turns, 1));
+    }
+
+    /**
+     * FNV-1a over the roles and contents of the first {@code count} messages.
+     */
+    private static long fingerprint(List<ChatRequest.ChatMessage> turns, int count) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < Math.min(count, turns.size()); i++) {
+            String text = turns.get(i).getRole().toLowerCase() + '\u0000' + turns.get(i).getContent() + '\u0000';
+            for (int c = 0; c < text.length(); c++) {
+                hash ^= text.charAt(c);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    private Summary validSummary(String key, List<ChatRequest.ChatMessage> turns, int olderCount) {
+        Summary summary;
+        synchronized (summaries) {
+            summary = summaries.get(key);
+        }
+        if (summary == null || summary.coveredMessages() > olderCount
+                || summary.fingerprint() != fingerprint(turns, summary.coveredMessages())) {
+            return null;
+        }
+        return summary;
+    }
+
+    private void scheduleSummary(String key, List<ChatRequest.ChatMessage> older, Summary previous) {
+        if (!pending.add(key)) {
+            return;
+        }
+        List<ChatRequest.ChatMessage> snapshot = List.copyOf(older);
+        try {
+            executor.execute(() -> {
+                try {
+                    int from = previous != null ? previous.coveredMessages() : 0;
+                    String text = summarize(previous != null ? previous.text() : null, snapshot.subList(from, snapshot.size()));
+                    store(key, new Summary(snapshot.size(), fingerprint(snapshot, snapshot.size()), text));
+                    summariesGenerated.incrementAndGet();
+                } catch (Exception e) {
+                    summaryFailures.incrementAndGet();
+                    log.warn("Failed to summarize conversation history: {}", e.getMessage());
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            summariesSkipped.incrementAndGet();
+            log.debug("History summary queue full, skipping summary for conversation {}", key);
+        }
+    }
+
+    private void store(String key, Summary summary) {
+        synchronized (summaries) {
+            Summary existing = summaries.get(key);
+            if (existing == null || existing.coveredMessages() <= summary.coveredMessages()) {
+                summaries.put(key, summary);
+            }
+            int maxConversations = ragConfig.getHistory().getMaxConversations();
+            Iterator<String> it = summaries.keySet().iterator();
+            while (summaries.size() > maxConversations && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private String summarize(String previousSummary, List<ChatRequest.ChatMessage> newMessages) {
+        StringBuilder transcript = new StringBuilder();
+        for (ChatRequest.ChatMessage message : newMessages) {
+            transcript.append("user".equalsIgnoreCase(message.getRole()) ? "User: " : "Assistant: ")
+                    .append(TokenEstimator.truncate(message.getContent(), MAX_TOKENS_PER_SUMMARIZED_MESSAGE))
+                    .append("\n\n");
+        }
+
+        String summaryPrompt = """
+            Summarize this support conversation so it can replace the original messages.
+            Keep the user's goals, the CCLAS EL screens, fields and settings discussed, and any answers or
+            decisions reached. Write plain prose under %d words with no preamble.
+
+            %s
+            New messages:
+            %s
+            """.formatted(
+                ragConfig.getHistory().getSummaryMaxTokens() * 3 / 4,
+                previousSummary != null ? "Summary so far:\n" + previousSummary + "\n" : "",
+                transcript);
+
+        ChatClient chatClient = chatClientBuilder.build();
+        String result = chatClient.prompt()
+                .user(summaryPrompt)
+                .call()
+                .content();
+        if (result == null || result.isBlank()) {
+            throw new IllegalStateException("empty summary");
+        }
+        return result.trim();
+    }
+
+    public Map<String, Object> getStats() {
+        int cached;
+        synchronized (summaries) {
+            cached = summaries.size();
+        }
+        long requestCount = requests.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requestCount);
+        stats.put("compactedRequests", compactedRequests.get());
+        stats.put("originalTokens", originalTokens.get());
+        stats.put("savedTokens", savedTokens.get());
+        stats.put("savedTokensPerRequest", requestCount > 0 ? (double) savedTokens.get() / requestCount : 0.0);
+        stats.put("summariesGenerated", summariesGenerated.get());
+        stats.put("summariesSkipped", summariesSkipped.get());
+        stats.put("summaryFailures", summaryFailures.get());
+        stats.put("cachedSummaries", cached);
+        stats.put("pendingSummaries", pending.size());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
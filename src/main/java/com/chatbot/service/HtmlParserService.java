@@ -6,9 +6,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 @Service
 public class HtmlParserService {
@@ -19,12 +21,27 @@ public class HtmlParserService {
 
     public ParsedDocument parseHtmlFile(File file) throws IOException {
         log.debug("Parsing HTML file: {}", file.getAbsolutePath());
+        return parseHtmlBytes(Files.readAllBytes(file.toPath()), file.getName(), file.getAbsolutePath());
+    }
 
-        Document doc = Jsoup.parse(file, StandardCharsets.UTF_8.name());
+    public ParsedDocument parseHtmlString(String html, String filename) {
+        return toParsedDocument(Jsoup.parse(html), filename, null);
+    }
+
+    /**
+     * Parse HTML already read into memory, e.g. from a ZIP entry, without touching the disk.
+     *
+     * @param filePath where the file is served from, recorded with the document
+     */
+    public ParsedDocument parseHtmlBytes(byte[] html, String filename, String filePath) throws IOException {
+        Document doc = Jsoup.parse(new ByteArrayInputStream(html), StandardCharsets.UTF_8.name(), "");
+        return toParsedDocument(doc, filename, filePath);
+    }
 
+    private ParsedDocument toParsedDocument(Document doc, String filename, String filePath) {
         String title = doc.title();
         if (title == null || title.isBlank()) {
-            title = file.getName().replace(".html", "").replace(".htm", "");
+            title = filename.replace(".html", "").replace(".htm", "");
         }
 
         // Remove script and style elements
@@ -38,22 +55,6 @@ public class HtmlParserService {
 
         log.debug("Parsed document '{}' with {} characters", title, content.length());
 
-        return new ParsedDocument(title, content, file.getName(), file.getAbsolutePath());
-    }
-
-    public ParsedDocument parseHtmlString(String html, String filename) {
-        Document doc = Jsoup.parse(html);
-
-        String title = doc.title();
-        if (title == null || title.isBlank()) {
-            title = filename.replace(".html", "").replace(".htm", "");
-        }
-
-        doc.select("script, style, nav, header, footer, aside").remove();
-
-        String content = doc.body() != null ? doc.body().text() : doc.text();
-        content = content.replaceAll("\\s+", " ").trim();
-
-        return new ParsedDocument(title, content, filename, null);
+        return new ParsedDocument(title, content, filename, filePath);
     }
 }
@@ -0,0 +1,130 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps, for each collection, the content hash and vector store chunk ids of every file it was
+ * loaded from, so a reload can re-embed only the files that were added, changed or removed.
+ * Manifests are JSON files under {@code rag.data-dir/manifests}.
+ */
+@Service
+public class IngestManifestService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestManifestService.class);
+
+    private final RagConfig ragConfig;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public IngestManifestService(RagConfig ragConfig) {
+        this.ragConfig = ragConfig;
+    }
+
+    /**
+     * @param chunkSize chunking settings the files were split with; chunks made with other
+     *                  settings cannot be kept
+     * @param storeType vector store type the chunks were written to
+     * @param files     entry per file, by path relative to the loaded directory
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Manifest(int chunkSize, int chunkOverlap, String storeType, Map<String, FileEntry> files) {}
+
+    /**
+     * @param hash           SHA-256 of the file's bytes
+     * @param loadedAtMillis when the file's chunks were written
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record FileEntry(String hash, String docId, String title, String filename, String filePath,
+                            List<String> chunkIds, long loadedAtMillis) {}
+
+    /**
+     * The manifest of a collection's last load, if it was made with the current chunking
+     * settings and vector store type.
+     */
+    public Optional<Manifest> load(String collectionName) {
+        Path path = getManifestPath(collectionName);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        Manifest manifest;
+        try {
+            manifest = objectMapper.readValue(path.toFile(), Manifest.class);
+        } catch (IOException e) {
+            log.warn("Failed to read ingest manifest {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+        if (manifest.chunkSize() != ragConfig.getChunkSize() || manifest.chunkOverlap() != ragConfig.getChunkOverlap()
+                || !storeType(collectionName).equals(manifest.storeType())) {
+            log.info("Ingest manifest for collection '{}' was made with other chunking or store settings", collectionName);
+            return Optional.empty();
+        }
+        return Optional.of(manifest);
+    }
+
+    /**
+     * The vector store type a collection was last loaded into, whatever the current settings.
+     */
+    public Optional<String> storeTypeOf(String collectionName) {
+        Path path = getManifestPath(collectionName);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(objectMapper.readValue(path.toFile(), Manifest.class).storeType());
+        } catch (IOException e) {
+            log.warn("Failed to read ingest manifest {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Manifest create(String collectionName, Map<String, FileEntry> files) {
+        return new Manifest(ragConfig.getChunkSize(), ragConfig.getChunkOverlap(), storeType(collectionName), files);
+    }
+
+    public void save(String collectionName, Manifest manifest) {
+        Path path = getManifestPath(collectionName);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            objectMapper.writeValue(temp.toFile(), manifest);
+            // Replaced in one step so a crash never leaves half a manifest
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved ingest manifest for collection '{}' ({} files)", collectionName, manifest.files().size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save ingest manifest " + path, e);
+        }
+    }
+
+    /**
+     * Forget a collection's manifest, so its next load is a full one.
+     */
+    public void delete(String collectionName) {
+        try {
+            Files.deleteIfExists(getManifestPath(collectionName));
+        } catch (IOException e) {
+            log.warn("Failed to delete ingest manifest for collection '{}': {}", collectionName, e.getMessage());
+        }
+    }
+
+    private String storeType(String collectionName) {
+        return ragConfig.getVectorStores().typeFor(collectionName).name();
+    }
+
+    private Path getManifestPath(String collectionName) {
+        return Paths.get(ragConfig.getDataDir(), "manifests", collectionName + ".json");
+    }
+}
@@ -0,0 +1,435 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.metrics.StageMetrics;
+import com.chatbot.model.DocumentInfo;
+import com.chatbot.model.LoadResult;
+import com.chatbot.search.LexicalIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads the HTML files of one collection in stages: a {@link FileSource} reads files on the
+ * calling thread, parse workers turn them into chunk documents, and write workers group the
+ * chunks into batches that they embed and add to the vector store. The queues between the
+ * stages are bounded, so each stage pauses while the next catches up and only a few files and
+ * batches of chunks are held at once, whatever the size of the help set. A source streaming a
+ * download therefore overlaps the download with parsing and embedding. The BM25 index is still
+ * built from every chunk, as it is searched in memory. Files whose content hash matches the
+ * previous load are skipped.
+ */
+class IngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    // Tells a write worker that parsing has finished
+    private static final Document END = new Document("");
+    // Tells a parse worker that the source has no more files
+    private static final SourceFile END_OF_FILES = new SourceFile("", "", null, new byte[0]);
+
+    private final String collectionName;
+    private final VectorStore vectorStore;
+    private final HtmlParserService htmlParserService;
+    private final Function<String, List<String>> chunker;
+    private final Consumer<List<Document>> embedder;
+    private final StageMetrics stageMetrics;
+    private final RagConfig.Ingestion config;
+    private final LexicalIndex.Builder lexicalIndex;
+    private final Map<String, String> previousHashes;
+    private final Consumer<StoredFile> onFileStored;
+
+    private final BlockingQueue<Document> chunks;
+    private final Set<String> sourceFiles = ConcurrentHashMap.newKeySet();
+    private final Map<String, PendingDocument> pending = new ConcurrentHashMap<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final AtomicInteger filesProcessed = new AtomicInteger();
+    private final AtomicInteger chunksCreated = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicInteger filesUnchanged = new AtomicInteger();
+
+    private final StageCounter parse = new StageCounter("parse", "files");
+    private final StageCounter chunk = new StageCounter("chunk", "chunks");
+    private final StageCounter embed = new StageCounter("embed", "chunks");
+    private final StageCounter store = new StageCounter("store", "chunks");
+
+    /**
+     * An HTML file read by a {@link FileSource}.
+     *
+     * @param relativePath path within the loaded directory or ZIP, used as the chunks' source
+     * @param filePath     where the file is served from
+     */
+    record SourceFile(String relativePath, String filename, String filePath, byte[] content) {}
+
+    /**
+     * Receives the HTML files of a load. {@code accept} blocks while the parse workers are behind.
+     */
+    interface FileSink {
+        void accept(SourceFile file) throws InterruptedException;
+
+        /**
+         * Count a file that could not be read as an error; an incremental load keeps its old chunks.
+         */
+        void reject(String relativePath, Exception error);
+    }
+
+    /**
+     * Reads the files of a load and hands the HTML ones to the sink, on the thread running the pipeline.
+     */
+    @FunctionalInterface
+    interface FileSource {
+        void feed(FileSink sink) throws IOException, InterruptedException;
+    }
+
+    /**
+     * A file whose chunks are all in the vector store.
+     *
+     * @param info     the document, or null if the file had no text to chunk
+     * @param chunkIds vector store ids of its chunks
+     */
+    record StoredFile(String relativePath, String hash, DocumentInfo info, List<String> chunkIds) {}
+
+    /**
+     * A file whose chunks are not all in the vector store yet.
+     */
+    private static class PendingDocument {
+        final StoredFile file;
+        final AtomicInteger remainingChunks;
+
+        PendingDocument(StoredFile file) {
+            this.file = file;
+            this.remainingChunks = new AtomicInteger(file.chunkIds().size());
+        }
+    }
+
+    /**
+     * Items and time of one stage, updated by all of its workers.
+     */
+    private static class StageCounter {
+        final String stage;
+        final String unit;
+        final AtomicLong items = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+        final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong lastEnd = new AtomicLong();
+
+        StageCounter(String stage, String unit) {
+            this.stage = stage;
+            this.unit = unit;
+        }
+
+        void record(long start, long end, int count) {
+            items.addAndGet(count);
+            busyNanos.addAndGet(end - start);
+            firstStart.accumulateAndGet(start, Math::min);
+            lastEnd.accumulateAndGet(end, Math::max);
+        }
+
+        LoadResult.StageThroughput toThroughput() {
+            long span = lastEnd.get() - firstStart.get();
+            return new LoadResult.StageThroughput(stage, unit, items.get(),
+                    TimeUnit.NANOSECONDS.toMillis(busyNanos.get()),
+                    span > 0 ? items.get() * 1e9 / span : 0.0);
+        }
+    }
+
+    /**
+     * Outcome of a load; the files were already handed to {@code onFileStored}.
+     *
+     * @param filesUnchanged files skipped because their hash matched the previous load
+     * @param sourceFiles    relative paths of every HTML file the source read or rejected
+     */
+    record Result(int filesProcessed, int chunksCreated, int errors, int filesUnchanged,
+                  List<LoadResult.StageThroughput> stages, Set<String> sourceFiles) {}
+
+    IngestionPipeline(String collectionName, VectorStore vectorStore,
+                      HtmlParserService htmlParserService, Function<String, List<String>> chunker,
+                      Consumer<List<Document>> embedder, StageMetrics stageMetrics, RagConfig.Ingestion config,
+                      LexicalIndex.Builder lexicalIndex, Map<String, String> previousHashes,
+                      Consumer<StoredFile> onFileStored) {
+        this.collectionName = collectionName;
+        this.vectorStore = vectorStore;
+        this.htmlParserService = htmlParserService;
+        this.chunker = chunker;
+        this.embedder = embedder;
+        this.stageMetrics = stageMetrics;
+        this.config = config;
+        this.lexicalIndex = lexicalIndex;
+        this.previousHashes = previousHashes;
+        this.onFileStored = onFileStored;
+        this.chunks = new ArrayBlockingQueue<>(Math.max(1, config.getBatchSize() * config.getQueuedBatches()));
+    }
+
+    /**
+     * Load the files of the source and wait for every batch to be written.
+     *
+     * @throws UncheckedIOException the source failed to read its files
+     * @throws RuntimeException     the first failure writing a batch, after the other workers stopped
+     */
+    Result run(FileSource source) {
+        int parseThreads = Math.max(1, config.resolvedParseThreads());
+        int writeThreads = Math.max(1, config.getWriteThreads());
+        BlockingQueue<SourceFile> files = new ArrayBlockingQueue<>(parseThreads * 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parseThreads + writeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-" + collectionName + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Loading files into collection '{}' with {} parse and {} write workers",
+                collectionName, parseThreads, writeThreads);
+
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < writeThreads; i++) {
+                writers.add(executor.submit(this::write));
+            }
+            List<Future<?>> parsers = new ArrayList<>();
+            for (int i = 0; i < parseThreads; i++) {
+                parsers.add(executor.submit(() -> parse(files)));
+            }
+
+            try {
+                source.feed(new QueueSink(files));
+            } catch (IOException e) {
+                log.error("Failed to read files for collection '{}': {}", collectionName, e.getMessage());
+                failure.compareAndSet(null, new UncheckedIOException(e));
+            }
+            for (int i = 0; i < parseThreads; i++) {
+                files.put(END_OF_FILES);
+            }
+            await(parsers);
+            for (int i = 0; i < writeThreads; i++) {
+                chunks.put(END);
+            }
+            await(writers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading collection " + collectionName, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return new Result(filesProcessed.get(), chunksCreated.get(), errors.get(), filesUnchanged.get(),
+                List.of(parse.toThroughput(), chunk.toThroughput(), embed.toThroughput(), store.toThroughput()),
+                Set.copyOf(sourceFiles));
+    }
+
+    private class QueueSink implements FileSink {
+        private final BlockingQueue<SourceFile> files;
+
+        QueueSink(BlockingQueue<SourceFile> files) {
+            this.files = files;
+        }
+
+        @Override
+        public void accept(SourceFile file) throws InterruptedException {
+            sourceFiles.add(file.relativePath());
+            while (!files.offer(file, 100, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void reject(String relativePath, Exception error) {
+            log.error("Error reading {}: {}", relativePath, error.getMessage());
+            sourceFiles.add(relativePath);
+            errors.incrementAndGet();
+        }
+    }
+
+    private static void await(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // Workers catch their own failures; anything else is a bug
+                throw new IllegalStateException("Ingestion worker failed", e.getCause());
+            }
+        }
+    }
+
+    private void parse(BlockingQueue<SourceFile> files) {
+        try {
+            while (true) {
+                SourceFile file = files.take();
+                if (file == END_OF_FILES) {
+                    return;
+                }
+                // After a failure keep draining so the source is not left blocked
+                if (failure.get() != null) {
+                    continue;
+                }
+                try {
+                    parseFile(file);
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    log.error("Error parsing {}: {}", file.relativePath(), e.getMessage());
+                    errors.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void parseFile(SourceFile file) throws Exception {
+        long parseStart = System.nanoTime();
+        String relativePath = file.relativePath();
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file.content()));
+        if (hash.equals(previousHashes.get(relativePath))) {
+            filesUnchanged.incrementAndGet();
+            return;
+        }
+
+        HtmlParserService.ParsedDocument parsed = htmlParserService.parseHtmlBytes(file.content(),
+                file.filename(), file.filePath());
+        long chunkStart = System.nanoTime();
+        List<String> texts = chunker.apply(parsed.content());
+        long chunkEnd = System.nanoTime();
+        parse.record(parseStart, chunkStart, 1);
+        chunk.record(chunkStart, chunkEnd, texts.size());
+        stageMetrics.record(StageMetrics.IngestStage.PARSE, collectionName, chunkStart - parseStart);
+        stageMetrics.record(StageMetrics.IngestStage.CHUNK, collectionName, chunkEnd - chunkStart);
+
+        if (texts.isEmpty()) {
+            log.warn("No content chunks created for document: {}", parsed.filename());
+            onFileStored.accept(new StoredFile(relativePath, hash, null, List.of()));
+            return;
+        }
+
+        String docId = UUID.randomUUID().toString();
+
+        List<Document> documents = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("source", relativePath);
+            metadata.put("filePath", parsed.filePath());
+            metadata.put("title", parsed.title());
+            metadata.put("chunk", i + 1);
+            metadata.put("totalChunks", texts.size());
+            metadata.put("docId", docId);
+            metadata.put("collection", collectionName);
+            documents.add(new Document(texts.get(i), metadata));
+        }
+        synchronized (lexicalIndex) {
+            for (int i = 0; i < texts.size(); i++) {
+                lexicalIndex.add(new LexicalIndex.Chunk(texts.get(i), relativePath, parsed.title(),
+                        i + 1, texts.size(), docId));
+            }
+        }
+
+        DocumentInfo info = DocumentInfo.builder()
+                .id(docId)
+                .filename(parsed.filename())
+                .filePath(parsed.filePath())
+                .title(parsed.title())
+                .chunkCount(texts.size())
+                .loadedAt(LocalDateTime.now())
+                .build();
+        pending.put(docId, new PendingDocument(new StoredFile(relativePath, hash, info,
+                documents.stream().map(Document::getId).toList())));
+        filesProcessed.incrementAndGet();
+        chunksCreated.addAndGet(texts.size());
+        log.debug("Parsed {} ({} chunks)", relativePath, texts.size());
+
+        // Blocks while the writers are behind
+        for (Document document : documents) {
+            while (!chunks.offer(document, 100, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void write() {
+        int batchSize = Math.max(1, config.getBatchSize());
+        List<Document> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                Document document = chunks.take();
+                if (document == END) {
+                    break;
+                }
+                // After a failure keep draining so parse workers are not left blocked
+                if (failure.get() != null) {
+                    continue;
+                }
+                batch.add(document);
+                if (batch.size() == batchSize) {
+                    writeBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty() && failure.get() == null) {
+                writeBatch(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatch(List<Document> batch) {
+        try {
+            long embedStart = System.nanoTime();
+            embedder.accept(batch);
+            long storeStart = System.nanoTime();
+            vectorStore.add(batch);
+            long storeEnd = System.nanoTime();
+            embed.record(embedStart, storeStart, batch.size());
+            store.record(storeStart, storeEnd, batch.size());
+            stageMetrics.record(StageMetrics.IngestStage.EMBED_BATCH, collectionName, storeStart - embedStart);
+            stageMetrics.record(StageMetrics.IngestStage.STORE_ADD, collectionName, storeEnd - storeStart);
+            log.info("Added {} chunks to collection '{}' ({} of {} so far)",
+                    batch.size(), collectionName, store.items.get(), chunksCreated.get());
+        } catch (RuntimeException e) {
+            log.error("Failed to add a batch of {} chunks to collection '{}': {}",
+                    batch.size(), collectionName, e.getMessage());
+            failure.compareAndSet(null, e);
+            return;
+        }
+
+        // Report files once all of their chunks are stored
+        for (Document document : batch) {
+            String docId = (String) document.getMetadata().get("docId");
+            PendingDocument pendingDocument = pending.get(docId);
+            if (pendingDocument != null && pendingDocument.remainingChunks.decrementAndGet() == 0) {
+                pending.remove(docId);
+                onFileStored.accept(pendingDocument.file);
+            }
+        }
+    }
+}
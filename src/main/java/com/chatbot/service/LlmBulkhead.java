@@ -0,0 +1,141 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of chat completions running at once. Calls beyond the cap wait in a
+ * bounded FIFO queue; a call is rejected when the queue is full or its wait times out, and
+ * the client is told when to retry.
+ */
+@Service
+public class LlmBulkhead {
+
+    /**
+     * Thrown when a call could not get a slot; the client should retry after {@code retryAfterSeconds}.
+     */
+    public static class BulkheadFullException extends RuntimeException {
+
+        private final long retryAfterSeconds;
+
+        public BulkheadFullException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    /**
+     * A slot held for one LLM call. Closing it more than once has no effect.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (semaphore != null && released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+
+    private final RagConfig ragConfig;
+    private final Semaphore semaphore;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong waitMs = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public LlmBulkhead(RagConfig ragConfig) {
+        this.ragConfig = ragConfig;
+        this.semaphore = new Semaphore(Math.max(1, ragConfig.getLlmBulkhead().getMaxConcurrent()), true);
+    }
+
+    /**
+     * Take a slot, waiting in the queue if none is free.
+     *
+     * @throws BulkheadFullException if the queue is full or no slot freed up in time
+     */
+    public Permit acquire() {
+        RagConfig.LlmBulkhead config = ragConfig.getLlmBulkhead();
+        if (!config.isEnabled()) {
+            return new Permit(null);
+        }
+        try {
+            // Timed acquire honours fairness, so this never jumps ahead of queued callers
+            if (semaphore.tryAcquire(0, TimeUnit.SECONDS)) {
+                admitted.incrementAndGet();
+                return new Permit(semaphore);
+            }
+            if (queued.incrementAndGet() > config.getMaxQueued()) {
+                queued.decrementAndGet();
+                rejected.incrementAndGet();
+                throw new BulkheadFullException("Too many chat requests in progress", config.getRetryAfterSeconds());
+            }
+            long start = System.nanoTime();
+            try {
+                if (!semaphore.tryAcquire(config.getQueueTimeoutSeconds(), TimeUnit.SECONDS)) {
+                    timedOut.incrementAndGet();
+                    throw new BulkheadFullException("Timed out waiting for a free chat slot", config.getRetryAfterSeconds());
+                }
+            } finally {
+                queued.decrementAndGet();
+            }
+            admitted.incrementAndGet();
+            waited.incrementAndGet();
+            waitMs.addAndGet((System.nanoTime() - start) / 1_000_000);
+            return new Permit(semaphore);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Interrupted waiting for a free chat slot", config.getRetryAfterSeconds());
+        }
+    }
+
+    /**
+     * Whether a new call would be rejected without waiting.
+     */
+    public boolean isQueueFull() {
+        RagConfig.LlmBulkhead config = ragConfig.getLlmBulkhead();
+        return config.isEnabled() && semaphore.availablePermits() == 0 && queued.get() >= config.getMaxQueued();
+    }
+
+    public long getRetryAfterSeconds() {
+        return ragConfig.getLlmBulkhead().getRetryAfterSeconds();
+    }
+
+    public Map<String, Object> getStats() {
+        RagConfig.LlmBulkhead config = ragConfig.getLlmBulkhead();
+        long waitedCount = waited.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config.isEnabled());
+        stats.put("maxConcurrent", config.getMaxConcurrent());
+        stats.put("active", Math.max(1, config.getMaxConcurrent()) - semaphore.availablePermits());
+        stats.put("queued", queued.get());
+        stats.put("admitted", admitted.get());
+        stats.put("waited", waitedCount);
+        stats.put("meanWaitMs", waitedCount > 0 ? (double) waitMs.get() / waitedCount : 0.0);
+        stats.put("rejected", rejected.get());
+        stats.put("timedOut", timedOut.get());
+        return stats;
+    }
+}
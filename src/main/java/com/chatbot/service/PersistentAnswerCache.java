@@ -0,0 +1,172 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.CachedAnswer;
+import com.chatbot.model.ChatResponse;
+import com.chatbot.model.Source;
+import com.chatbot.repository.CachedAnswerRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answer cache kept in the H2 database under {@code rag.data-dir}, so cached answers survive
+ * restarts and deploys. Unlike the in-memory {@link SemanticAnswerCache} it only matches the
+ * same question after normalization. Entries are keyed by the collections' current versions,
+ * so bumping a version on reload makes every answer built on the old content unreachable.
+ */
+@Service
+public class PersistentAnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentAnswerCache.class);
+    private static final int PURGE_INTERVAL = 50;
+
+    private final RagConfig ragConfig;
+    private final CachedAnswerRepository repository;
+    private final CollectionVersionService collectionVersionService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public PersistentAnswerCache(RagConfig ragConfig, CachedAnswerRepository repository,
+                                 CollectionVersionService collectionVersionService) {
+        this.ragConfig = ragConfig;
+        this.repository = repository;
+        this.collectionVersionService = collectionVersionService;
+    }
+
+    public boolean isEnabled() {
+        return ragConfig.getAnswerCache().isEnabled() && ragConfig.getAnswerCache().isPersist();
+    }
+
+    public Optional<ChatResponse> lookup(String key) {
+        if (!isEnabled() || key == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<CachedAnswer> entry = repository.findById(key);
+            Instant cutoff = Instant.now().minus(Duration.ofMinutes(ragConfig.getAnswerCache().getTtlMinutes()));
+            if (entry.isEmpty() || entry.get().getCreatedAt().isBefore(cutoff)) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            hits.incrementAndGet();
+            return Optional.of(ChatResponse.builder()
+                    .message(entry.get().getMessage())
+                    .sources(objectMapper.readValue(entry.get().getSourcesJson(), new TypeReference<List<Source>>() {}))
+                    .followUps(objectMapper.readValue(entry.get().getFollowUpsJson(), new TypeReference<List<String>>() {}))
+                    .build());
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.warn("Failed to read persisted answer: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store an answer, replacing any earlier one for the same key, e.g. once its follow-ups are ready.
+     * A replaced answer keeps its creation time, so updating it does not extend its TTL.
+     */
+    public void put(String key, List<String> collections, ChatResponse response) {
+        if (!isEnabled() || key == null) {
+            return;
+        }
+        try {
+            CachedAnswer entry = repository.findById(key).orElseGet(CachedAnswer::new);
+            entry.setId(key);
+            entry.setCollections(String.join(",", collections));
+            entry.setMessage(response.getMessage());
+            entry.setSourcesJson(objectMapper.writeValueAsString(
+                    response.getSources() != null ? response.getSources() : List.of()));
+            entry.setFollowUpsJson(objectMapper.writeValueAsString(
+                    response.getFollowUps() != null ? response.getFollowUps() : List.of()));
+            repository.save(entry);
+            if (writes.incrementAndGet() % PURGE_INTERVAL == 0) {
+                purge();
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.warn("Failed to persist answer: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop expired answers, then the oldest ones until the cache is within its size limit.
+     */
+    public void purge() {
+        RagConfig.AnswerCache config = ragConfig.getAnswerCache();
+        int expired = repository.deleteCreatedBefore(Instant.now().minus(Duration.ofMinutes(config.getTtlMinutes())));
+        long excess = repository.count() - config.getMaxPersistedEntries();
+        long evicted = 0;
+        while (evicted < excess) {
+            List<CachedAnswer> oldest = repository.findTop100ByOrderByCreatedAtAsc();
+            if (oldest.isEmpty()) {
+                break;
+            }
+            List<CachedAnswer> batch = oldest.subList(0, (int) Math.min(oldest.size(), excess - evicted));
+            repository.deleteAll(batch);
+            evicted += batch.size();
+        }
+        evictions.addAndGet(expired + evicted);
+        if (expired + evicted > 0) {
+            log.debug("Purged {} expired and {} excess persisted answers", expired, evicted);
+        }
+    }
+
+    /**
+     * Key of an answer under the collections' current versions, or null if the cache is off
+     * or the versions could not be read.
+     */
+    public String key(List<String> collections, String question, String contextKey) {
+        if (!isEnabled()) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        try {
+            for (String collection : collections) {
+                key.append(collection).append('@').append(collectionVersionService.getVersion(collection)).append(',');
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.warn("Failed to read collection versions: {}", e.getMessage());
+            return null;
+        }
+        key.append('\u0000').append(SemanticAnswerCache.normalize(question)).append('\u0000').append(contextKey);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return Map.of(
+                "hits", hitCount,
+                "misses", misses.get(),
+                "hitRate", total > 0 ? (double) hitCount / total : 0.0,
+                "writes", writes.get(),
+                "evictions", evictions.get(),
+                "errors", errors.get()
+        );
+    }
+}
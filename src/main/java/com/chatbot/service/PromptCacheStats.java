@@ -0,0 +1,85 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.TokenUsage;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prompt token usage and answer latency per prompt layout, for comparing how often the
+ * provider serves the prompt prefix from its cache and what that does to latency.
+ */
+@Service
+public class PromptCacheStats {
+
+    private final Map<RagConfig.PromptLayout, Counters> counters = new EnumMap<>(RagConfig.PromptLayout.class);
+
+    public PromptCacheStats() {
+        for (RagConfig.PromptLayout layout : RagConfig.PromptLayout.values()) {
+            counters.put(layout, new Counters());
+        }
+    }
+
+    private static class Counters {
+        final AtomicLong answers = new AtomicLong();
+        final AtomicLong answersWithUsage = new AtomicLong();
+        final AtomicLong answersWithCachedTokens = new AtomicLong();
+        final AtomicLong promptTokens = new AtomicLong();
+        final AtomicLong cachedPromptTokens = new AtomicLong();
+        final AtomicLong latencyMs = new AtomicLong();
+        final AtomicLong firstTokenAnswers = new AtomicLong();
+        final AtomicLong firstTokenMs = new AtomicLong();
+    }
+
+    /**
+     * @param usage        provider usage, or null if none was reported
+     * @param latencyMs    time the LLM call took
+     * @param firstTokenMs time to the first streamed token, or -1 for blocking calls
+     */
+    public void record(RagConfig.PromptLayout layout, TokenUsage usage, long latencyMs, long firstTokenMs) {
+        Counters layoutCounters = counters.get(layout);
+        layoutCounters.answers.incrementAndGet();
+        layoutCounters.latencyMs.addAndGet(latencyMs);
+        if (firstTokenMs >= 0) {
+            layoutCounters.firstTokenAnswers.incrementAndGet();
+            layoutCounters.firstTokenMs.addAndGet(firstTokenMs);
+        }
+        if (usage != null && usage.getPromptTokens() != null) {
+            layoutCounters.answersWithUsage.incrementAndGet();
+            layoutCounters.promptTokens.addAndGet(usage.getPromptTokens());
+            if (usage.getCachedPromptTokens() != null) {
+                layoutCounters.answersWithCachedTokens.incrementAndGet();
+                layoutCounters.cachedPromptTokens.addAndGet(usage.getCachedPromptTokens());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        counters.forEach((layout, layoutCounters) -> {
+            long answers = layoutCounters.answers.get();
+            if (answers == 0) {
+                return;
+            }
+            long promptTokens = layoutCounters.promptTokens.get();
+            long firstTokenAnswers = layoutCounters.firstTokenAnswers.get();
+            Map<String, Object> layoutStats = new LinkedHashMap<>();
+            layoutStats.put("answers", answers);
+            layoutStats.put("answersWithUsage", layoutCounters.answersWithUsage.get());
+            layoutStats.put("answersWithCachedTokens", layoutCounters.answersWithCachedTokens.get());
+            layoutStats.put("promptTokens", promptTokens);
+            layoutStats.put("cachedPromptTokens", layoutCounters.cachedPromptTokens.get());
+            layoutStats.put("cachedTokenFraction",
+                    promptTokens > 0 ? (double) layoutCounters.cachedPromptTokens.get() / promptTokens : 0.0);
+            layoutStats.put("meanLatencyMs", (double) layoutCounters.latencyMs.get() / answers);
+            layoutStats.put("meanFirstTokenMs",
+                    firstTokenAnswers > 0 ? (double) layoutCounters.firstTokenMs.get() / firstTokenAnswers : null);
+            stats.put(layout.name().toLowerCase(), layoutStats);
+        });
+        return stats;
+    }
+}
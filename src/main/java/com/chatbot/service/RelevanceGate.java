@@ -0,0 +1,83 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides from retrieval scores alone whether a question is in scope for the documentation,
+ * so out-of-scope questions get a templated reply instead of an LLM call. A question passes
+ * when any retrieved chunk's cosine similarity reaches its collection's threshold. Results
+ * without a similarity (BM25-only hits) cannot be judged, so a retrieval made up only of
+ * those passes. Only retrievals whose searches all succeeded are judged; an outage says
+ * nothing about whether a question is in scope.
+ */
+@Service
+public class RelevanceGate {
+
+    private static final Logger log = LoggerFactory.getLogger(RelevanceGate.class);
+
+    private final RagConfig ragConfig;
+
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong gated = new AtomicLong();
+
+    public RelevanceGate(RagConfig ragConfig) {
+        this.ragConfig = ragConfig;
+    }
+
+    public boolean isEnabled() {
+        return ragConfig.getRelevanceGate().isEnabled();
+    }
+
+    /**
+     * @param documents         retrieved chunks
+     * @param defaultCollection collection of chunks without collection metadata
+     * @return true if the question should be answered by the LLM
+     */
+    public boolean passes(List<Document> documents, String defaultCollection) {
+        RagConfig.RelevanceGate config = ragConfig.getRelevanceGate();
+        double best = Double.NEGATIVE_INFINITY;
+        boolean scored = false;
+        for (Document document : documents) {
+            if (!(document.getMetadata().get("distance") instanceof Number distance)) {
+                continue;
+            }
+            scored = true;
+            double similarity = 1.0 - distance.doubleValue();
+            Object collection = document.getMetadata().getOrDefault("collection", defaultCollection);
+            if (similarity >= config.minSimilarityFor(String.valueOf(collection))) {
+                passed.incrementAndGet();
+                return true;
+            }
+            best = Math.max(best, similarity);
+        }
+        if (!documents.isEmpty() && !scored) {
+            passed.incrementAndGet();
+            return true;
+        }
+        gated.incrementAndGet();
+        log.debug("Relevance gate held back question: best similarity {} from {} documents",
+                scored ? String.format("%.3f", best) : "n/a", documents.size());
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        long passedCount = passed.get();
+        long gatedCount = gated.get();
+        long total = passedCount + gatedCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("passed", passedCount);
+        stats.put("gated", gatedCount);
+        stats.put("gatedRate", total > 0 ? (double) gatedCount / total : 0.0);
+        return stats;
+    }
+}
@@ -0,0 +1,114 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.ChatResponse;
+import com.chatbot.model.ChatStreamEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lets identical chat requests that arrive while one is already being answered share that
+ * answer instead of each running retrieval and an LLM call. A blocking request waits for the
+ * answer in flight; a streaming request joins the stream in flight and is replayed the
+ * events it missed. Entries only live while the answer is being computed.
+ */
+@Service
+public class RequestCoalescer {
+
+    private final RagConfig ragConfig;
+    private final Map<String, CompletableFuture<ChatResponse>> answers = new ConcurrentHashMap<>();
+    private final Map<String, Flux<ChatStreamEvent>> streams = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public RequestCoalescer(RagConfig ragConfig) {
+        this.ragConfig = ragConfig;
+    }
+
+    public boolean isEnabled() {
+        return ragConfig.getCoalescing().isEnabled();
+    }
+
+    /**
+     * Key under which a request is coalesced; requests with equal keys get the same answer.
+     */
+    public static String key(String message, String collection, String systemPrompt) {
+        return SemanticAnswerCache.normalize(message) + '\u0000' + collection + '\u0000'
+                + SemanticAnswerCache.normalize(systemPrompt);
+    }
+
+    /**
+     * Return the answer already being computed under this key, or compute it on the calling thread.
+     *
+     * @param forJoiner makes the copy of the answer a joining request gets, e.g. with its own response id
+     */
+    public ChatResponse join(String key, Supplier<ChatResponse> answer, UnaryOperator<ChatResponse> forJoiner) {
+        requests.incrementAndGet();
+        CompletableFuture<ChatResponse> mine = new CompletableFuture<>();
+        CompletableFuture<ChatResponse> inFlight = answers.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            coalesced.incrementAndGet();
+            try {
+                return forJoiner.apply(inFlight.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            ChatResponse response = answer.get();
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            answers.remove(key, mine);
+        }
+    }
+
+    /**
+     * Join the stream already running under this key, or start one that later requests can join.
+     * The shared stream is cancelled only once every subscriber has cancelled.
+     */
+    public Flux<ChatStreamEvent> joinStream(String key, Supplier<Flux<ChatStreamEvent>> answer) {
+        requests.incrementAndGet();
+        AtomicBoolean started = new AtomicBoolean();
+        Flux<ChatStreamEvent> stream = streams.computeIfAbsent(key, k -> {
+            started.set(true);
+            AtomicReference<Flux<ChatStreamEvent>> self = new AtomicReference<>();
+            Flux<ChatStreamEvent> shared = Flux.defer(answer)
+                    .doFinally(signal -> streams.remove(k, self.get()))
+                    .replay()
+                    .refCount();
+            self.set(shared);
+            return shared;
+        });
+        if (!started.get()) {
+            coalesced.incrementAndGet();
+        }
+        return stream;
+    }
+
+    public Map<String, Object> getStats() {
+        long requestCount = requests.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requestCount);
+        stats.put("coalesced", coalesced.get());
+        stats.put("coalescingRatio", requestCount > 0 ? (double) coalesced.get() / requestCount : 0.0);
+        stats.put("inFlight", answers.size() + streams.size());
+        return stats;
+    }
+}
@@ -0,0 +1,175 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.ChatRequest;
+import com.chatbot.model.ChatResponse;
+import com.chatbot.util.VectorMath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-collection cache of chat answers keyed by the embedding of the question.
+ * A new question reuses a cached answer when its embedding is within the configured
+ * cosine distance of a cached question asked with the same system prompt and history.
+ */
+@Service
+public class SemanticAnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    private final RagConfig ragConfig;
+    private final Map<String, CollectionCache> caches = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public SemanticAnswerCache(RagConfig ragConfig) {
+        this.ragConfig = ragConfig;
+    }
+
+    public boolean isEnabled() {
+        return ragConfig.getAnswerCache().isEnabled();
+    }
+
+    /**
+     * Build the exact-match part of the cache key from everything except the question itself.
+     */
+    public static String contextKey(String systemPrompt, List<ChatRequest.ChatMessage> history) {
+        StringBuilder key = new StringBuilder();
+        key.append(normalize(systemPrompt)).append('\u0000');
+        if (history != null) {
+            for (ChatRequest.ChatMessage message : history) {
+                key.append(normalize(message.getRole())).append(':')
+                        .append(normalize(message.getContent())).append('\u0000');
+            }
+        }
+        return key.toString();
+    }
+
+    public Optional<ChatResponse> lookup(String collectionName, float[] queryEmbedding, String contextKey) {
+        CollectionCache cache = caches.get(collectionName);
+        ChatResponse cached = cache != null ? cache.find(queryEmbedding, contextKey) : null;
+        if (cached == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(cached);
+    }
+
+    public void put(String collectionName, float[] queryEmbedding, String contextKey, ChatResponse response) {
+        caches.computeIfAbsent(collectionName, k -> new CollectionCache())
+                .put(queryEmbedding, contextKey, response);
+    }
+
+    /**
+     * Drop every cached answer for a collection, e.g. after its documents were reloaded,
+     * including answers to federated questions that searched it alongside other collections.
+     */
+    public void invalidate(String collectionName) {
+        // Federated answers are cached under the comma-joined names of their collections
+        caches.entrySet().removeIf(partition -> {
+            if (!List.of(partition.getKey().split(",")).contains(collectionName)) {
+                return false;
+            }
+            invalidations.incrementAndGet();
+            log.info("Invalidated {} cached answers for '{}'", partition.getValue().size(), partition.getKey());
+            return true;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        int entries = caches.values().stream().mapToInt(CollectionCache::size).sum();
+        return Map.of(
+                "hits", hitCount,
+                "misses", missCount,
+                "hitRate", total > 0 ? (double) hitCount / total : 0.0,
+                "evictions", evictions.get(),
+                "invalidations", invalidations.get(),
+                "entries", entries,
+                "collections", caches.size()
+        );
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    private record Entry(float[] embedding, String contextKey, ChatResponse response, Instant createdAt) {}
+
+    /**
+     * Bounded LRU of answers for one collection. Lookups are a linear scan over unit-length
+     * embeddings, which stays well under a millisecond for a few hundred entries.
+     */
+    private class CollectionCache {
+
+        private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long nextId;
+
+        synchronized ChatResponse find(float[] queryEmbedding, String contextKey) {
+            RagConfig.AnswerCache config = ragConfig.getAnswerCache();
+            Instant expiry = Instant.now().minus(Duration.ofMinutes(config.getTtlMinutes()));
+
+            Long bestId = null;
+            double bestDistance = config.getMaxDistance();
+            Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Entry> candidate = it.next();
+                Entry entry = candidate.getValue();
+                if (entry.createdAt().isBefore(expiry)) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                    continue;
+                }
+                if (!entry.contextKey().equals(contextKey)) {
+                    continue;
+                }
+                double distance = VectorMath.cosineDistance(queryEmbedding, entry.embedding());
+                if (distance <= bestDistance) {
+                    bestDistance = distance;
+                    bestId = candidate.getKey();
+                }
+            }
+
+            if (bestId == null) {
+                return null;
+            }
+            // get() refreshes the entry's position in access order
+            return entries.get(bestId).response();
+        }
+
+        synchronized void put(float[] queryEmbedding, String contextKey, ChatResponse response) {
+            entries.put(nextId++, new Entry(queryEmbedding, contextKey, response, Instant.now()));
+            int maxEntries = ragConfig.getAnswerCache().getMaxEntriesPerCollection();
+            Iterator<Long> it = entries.keySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.chatbot.util;
+
+import com.chatbot.model.TokenUsage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reads token usage from chat response metadata. Spring AI's {@link Usage} has no field for
+ * prompt tokens served from the provider's prefix cache, so that count is looked up on the
+ * provider's own usage object, at the accessor paths the OpenAI and Anthropic clients expose.
+ */
+public final class ProviderUsage {
+
+    private static final String[][] CACHED_TOKEN_PATHS = {
+            {"getNativeUsage", "promptTokensDetails", "cachedTokens"},
+            {"getUsage", "promptTokensDetails", "cachedTokens"},
+            {"getNativeUsage", "cacheReadInputTokens"},
+    };
+
+    private ProviderUsage() {}
+
+    /**
+     * @return the reported usage, or null if the response carried none
+     */
+    public static TokenUsage from(ChatResponseMetadata metadata) {
+        Usage usage = metadata != null ? metadata.getUsage() : null;
+        if (usage == null || usage.getPromptTokens() == null || usage.getPromptTokens() == 0) {
+            // Providers that report nothing get an empty usage object with zero counts
+            return null;
+        }
+        return new TokenUsage(usage.getPromptTokens(), usage.getGenerationTokens(), cachedPromptTokens(usage));
+    }
+
+    private static Long cachedPromptTokens(Usage usage) {
+        for (String[] path : CACHED_TOKEN_PATHS) {
+            Object value = usage;
+            for (String accessor : path) {
+                value = invoke(value, accessor);
+                if (value == null) {
+                    break;
+                }
+            }
+            if (value instanceof Number number) {
+                return number.longValue();
+            }
+        }
+        return null;
+    }
+
+    private static Object invoke(Object target, String accessor) {
+        try {
+            Method method = target.getClass().getMethod(accessor);
+            return method.invoke(target);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
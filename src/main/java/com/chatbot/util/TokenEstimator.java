@@ -0,0 +1,27 @@
+package com.chatbot.util;
+
+/**
+ * Cheap prompt-size estimate for budgeting, without loading a tokenizer.
+ * OpenAI's tokenizers average about four characters of English text per token.
+ */
+public final class TokenEstimator {
+
+    private static final double CHARS_PER_TOKEN = 4.0;
+
+    private TokenEstimator() {}
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (int) Math.ceil(text.length() / CHARS_PER_TOKEN);
+    }
+
+    /**
+     * Cut text down to roughly the given number of tokens.
+     */
+    public static String truncate(String text, int maxTokens) {
+        int maxChars = (int) (maxTokens * CHARS_PER_TOKEN);
+        return text.length() <= maxChars ? text : text.substring(0, maxChars);
+    }
+}
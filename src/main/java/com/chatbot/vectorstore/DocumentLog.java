@@ -0,0 +1,196 @@
+package com.chatbot.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only JSON-lines log of the documents in an embedded vector store.
+ * Each added document gets the next ordinal, matching its vector's position in the
+ * {@link VectorFile}; deletions are appended as tombstone lines. Vectors are written before
+ * their document line, so after a crash the log never has more documents than the vector file.
+ * Not thread-safe.
+ */
+final class DocumentLog implements Closeable {
+
+    record StoredDocument(String id, String content, Map<String, Object> metadata) {}
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<StoredDocument> documents = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final BufferedWriter writer;
+
+    private DocumentLog(BufferedWriter writer) {
+        this.writer = writer;
+    }
+
+    static DocumentLog open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        dropPartialLastLine(file);
+        DocumentLog log = new DocumentLog(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        log.replayFile(file);
+        return log;
+    }
+
+    /**
+     * Read an existing log without changing it; appends and deletes fail.
+     */
+    static DocumentLog openReadOnly(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            throw new IOException("No document log at " + file);
+        }
+        DocumentLog log = new DocumentLog(null);
+        log.replayFile(file);
+        return log;
+    }
+
+    private void replayFile(Path file) throws IOException {
+        if (Files.size(file) == 0) {
+            return;
+        }
+        try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    replay(objectMapper.readValue(line, new TypeReference<Map<String, Object>>() {}));
+                } catch (IOException e) {
+                    // Only a crash mid-write leaves a broken line, and only as the last one
+                    if (writer != null) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A crash mid-write can leave a line without its newline; cut it off so appends stay aligned.
+     */
+    private static void dropPartialLastLine(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            ByteBuffer single = ByteBuffer.allocate(1);
+            while (end > 0) {
+                single.clear();
+                channel.read(single, end - 1);
+                if (single.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < channel.size()) {
+                channel.truncate(end);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replay(Map<String, Object> entry) {
+        String id = (String) entry.get("id");
+        if (Boolean.TRUE.equals(entry.get("deleted"))) {
+            markDeleted(id);
+            return;
+        }
+        Map<String, Object> metadata = (Map<String, Object>) entry.getOrDefault("metadata", Map.of());
+        register(new StoredDocument(id, (String) entry.get("content"), metadata));
+    }
+
+    private int register(StoredDocument document) {
+        int ordinal = documents.size();
+        documents.add(document);
+        Integer previous = ordinals.put(document.id(), ordinal);
+        if (previous != null) {
+            // Re-adding an id replaces the earlier copy
+            deleted.set(previous);
+        }
+        return ordinal;
+    }
+
+    private boolean markDeleted(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return false;
+        }
+        deleted.set(ordinal);
+        return true;
+    }
+
+    int append(String id, String content, Map<String, Object> metadata) throws IOException {
+        ensureWritable();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("id", id);
+        entry.put("content", content);
+        entry.put("metadata", metadata);
+        writer.write(objectMapper.writeValueAsString(entry));
+        writer.newLine();
+        return register(new StoredDocument(id, content, new HashMap<>(metadata)));
+    }
+
+    boolean delete(String id) throws IOException {
+        ensureWritable();
+        if (!markDeleted(id)) {
+            return false;
+        }
+        writer.write(objectMapper.writeValueAsString(Map.of("id", id, "deleted", true)));
+        writer.newLine();
+        return true;
+    }
+
+    StoredDocument get(int ordinal) {
+        return documents.get(ordinal);
+    }
+
+    boolean isDeleted(int ordinal) {
+        return deleted.get(ordinal);
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    int liveCount() {
+        return ordinals.size();
+    }
+
+    void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private void ensureWritable() {
+        if (writer == null) {
+            throw new IllegalStateException("Document log is open read-only");
+        }
+    }
+}
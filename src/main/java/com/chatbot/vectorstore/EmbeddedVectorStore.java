@@ -0,0 +1,398 @@
+package com.chatbot.vectorstore;
+
+import com.chatbot.util.VectorMath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Base class for vector stores that run inside the JVM instead of calling ChromaDB.
+ * Vectors are kept unit-length in a memory-mapped {@link VectorFile} and documents in a
+ * {@link DocumentLog}, both under one directory per collection. Subclasses supply the index
+ * that maps a query vector to its nearest ordinals. With a quantized encoding, the index scores
+ * a compact in-memory copy and the top candidates are rescored with the full-precision vectors.
+ * Searches share a read lock; adds and deletes take the write lock. A store opened read-only
+ * searches the files as they are on disk and never writes to them.
+ */
+public abstract class EmbeddedVectorStore implements VectorStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedVectorStore.class);
+
+    private static final String VECTORS_FILE = "vectors.f32";
+    private static final String DOCUMENTS_FILE = "documents.jsonl";
+
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    protected final Path directory;
+    private final EmbeddingModel embeddingModel;
+    private final DocumentLog documents;
+    private final VectorEncoding encoding;
+    private final int rescoreMultiplier;
+    protected final boolean readOnly;
+    protected VectorFile vectors;
+    protected QuantizedVectors quantized;
+    private boolean closed;
+
+    /**
+     * @param encoding in-memory encoding searched before rescoring; FLOAT32 searches the vector file directly
+     * @param rescoreMultiplier candidates fetched per requested result when the encoding is quantized
+     */
+    protected EmbeddedVectorStore(Path directory, EmbeddingModel embeddingModel,
+                                  VectorEncoding encoding, int rescoreMultiplier) throws IOException {
+        this(directory, embeddingModel, encoding, rescoreMultiplier, false);
+    }
+
+    /**
+     * @param readOnly open existing files without modifying them, e.g. beside the live store of the collection
+     */
+    protected EmbeddedVectorStore(Path directory, EmbeddingModel embeddingModel, VectorEncoding encoding,
+                                  int rescoreMultiplier, boolean readOnly) throws IOException {
+        this.directory = directory;
+        this.embeddingModel = embeddingModel;
+        this.encoding = encoding;
+        this.rescoreMultiplier = Math.max(1, rescoreMultiplier);
+        this.readOnly = readOnly;
+        Path documentsFile = directory.resolve(DOCUMENTS_FILE);
+        this.documents = readOnly ? DocumentLog.openReadOnly(documentsFile) : DocumentLog.open(documentsFile);
+
+        Path vectorsFile = directory.resolve(VECTORS_FILE);
+        if (VectorFile.exists(vectorsFile)) {
+            this.vectors = VectorFile.open(vectorsFile, readOnly);
+            if (vectors.size() < documents.size()) {
+                throw new IOException("Vector file in " + directory + " has fewer vectors than documents; reload the collection");
+            }
+            vectors.truncate(documents.size());
+            if (encoding != VectorEncoding.FLOAT32) {
+                quantized = QuantizedVectors.create(encoding, vectors);
+            }
+        }
+    }
+
+    /**
+     * Add a newly appended vector to the index. Called with the write lock held.
+     */
+    protected abstract void index(int ordinal, float[] vector);
+
+    /**
+     * Find the k nearest live vectors to a unit-length query, scoring {@link #quantized} when
+     * it is set. Called with the read lock held.
+     *
+     * @param deleted ordinals to leave out of the results
+     */
+    protected abstract Neighbors search(float[] query, int k, BitSet deleted);
+
+    /**
+     * Persist index structures that are not written as vectors are added.
+     */
+    protected void saveIndex() throws IOException {
+    }
+
+    protected long indexSizeInBytes() {
+        return 0;
+    }
+
+    @Override
+    public void add(List<Document> documentsToAdd) {
+        if (documentsToAdd.isEmpty()) {
+            return;
+        }
+        ensureWritable();
+        // Embed outside the lock so searches keep running during a load
+        List<float[]> embeddings = embed(documentsToAdd);
+
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            for (int i = 0; i < documentsToAdd.size(); i++) {
+                Document document = documentsToAdd.get(i);
+                float[] vector = embeddings.get(i);
+                if (vectors == null) {
+                    vectors = VectorFile.create(directory.resolve(VECTORS_FILE), vector.length);
+                    if (encoding != VectorEncoding.FLOAT32) {
+                        quantized = QuantizedVectors.create(encoding, vectors);
+                    }
+                }
+                int ordinal = vectors.append(vector);
+                if (quantized != null) {
+                    quantized.append(vector);
+                }
+                documents.append(document.getId(), document.getContent(), document.getMetadata());
+                index(ordinal, vector);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to add documents to " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<float[]> embed(List<Document> documentsToAdd) {
+        List<float[]> embeddings = new ArrayList<>(documentsToAdd.size());
+        List<String> texts = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < documentsToAdd.size(); i++) {
+            Document document = documentsToAdd.get(i);
+            List<Double> existing = document.getEmbedding();
+            if (existing != null && !existing.isEmpty()) {
+                embeddings.add(VectorMath.normalize(VectorMath.toFloatArray(existing)));
+            } else {
+                embeddings.add(null);
+                // Same text ChromaVectorStore embeds, so stores are interchangeable
+                texts.add(document.getFormattedContent(MetadataMode.EMBED));
+                missing.add(i);
+            }
+        }
+        if (!texts.isEmpty()) {
+            // embedForResponse bypasses the query embedding cache, which is meant for questions only
+            List<Embedding> results = embeddingModel.embedForResponse(texts).getResults();
+            for (int i = 0; i < missing.size(); i++) {
+                embeddings.set(missing.get(i), VectorMath.normalize(VectorMath.toFloatArray(results.get(i).getOutput())));
+            }
+        }
+        return embeddings;
+    }
+
+    @Override
+    public Optional<Boolean> delete(List<String> idList) {
+        ensureWritable();
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            boolean deletedAny = false;
+            for (String id : idList) {
+                deletedAny |= documents.delete(id);
+            }
+            return Optional.of(deletedAny);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete documents from " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.hasFilterExpression()) {
+            throw new UnsupportedOperationException("Metadata filters are not supported by embedded vector stores");
+        }
+        float[] query = VectorMath.normalize(VectorMath.toFloatArray(embeddingModel.embed(request.getQuery())));
+
+        lock.readLock().lock();
+        try {
+            if (closed || vectors == null || documents.liveCount() == 0 || request.getTopK() <= 0) {
+                return List.of();
+            }
+            if (query.length != vectors.dimensions()) {
+                throw new IllegalStateException("Query has " + query.length + " dimensions but the store holds "
+                        + vectors.dimensions() + "; reload the collection after changing embedding models");
+            }
+            int topK = request.getTopK();
+            Neighbors neighbors = quantized == null
+                    ? search(query, topK, deletedOrdinals())
+                    : rescore(query, search(query, topK * rescoreMultiplier, deletedOrdinals()), topK);
+            List<Document> results = new ArrayList<>(neighbors.size());
+            float[] vector = new float[vectors.dimensions()];
+            for (int i = 0; i < neighbors.size(); i++) {
+                float similarity = neighbors.similarities()[i];
+                if (similarity < request.getSimilarityThreshold()) {
+                    break;
+                }
+                int ordinal = neighbors.ordinals()[i];
+                results.add(toDocument(ordinal, similarity, vector));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Neighbors rescore(float[] query, Neighbors candidates, int k) {
+        NodeHeap top = NodeHeap.minHeap(k);
+        for (int ordinal : candidates.ordinals()) {
+            top.offer(ordinal, vectors.dot(ordinal, query), k);
+        }
+        return top.drainDescending();
+    }
+
+    private Document toDocument(int ordinal, float similarity, float[] scratch) {
+        DocumentLog.StoredDocument stored = documents.get(ordinal);
+        Map<String, Object> metadata = new HashMap<>(stored.metadata());
+        // Same convention as ChromaVectorStore: cosine distance under "distance"
+        metadata.put("distance", 1.0f - similarity);
+        Document document = new Document(stored.id(), stored.content(), metadata);
+        vectors.read(ordinal, scratch);
+        document.setEmbedding(VectorMath.toDoubleList(scratch));
+        return document;
+    }
+
+    boolean isDeleted(int ordinal) {
+        return documents.isDeleted(ordinal);
+    }
+
+    private BitSet deletedOrdinals() {
+        if (documents.liveCount() == documents.size()) {
+            return null;
+        }
+        BitSet deleted = new BitSet(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            if (documents.isDeleted(i)) {
+                deleted.set(i);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Write buffered documents and index structures to disk, e.g. at the end of a load.
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            if (closed || readOnly) {
+                return;
+            }
+            documents.flush();
+            if (vectors != null) {
+                vectors.force();
+            }
+            if (quantized != null) {
+                quantized.flush();
+            }
+            saveIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush vector store " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (!readOnly) {
+                documents.flush();
+                saveIndex();
+            }
+            closed = true;
+            documents.close();
+            if (vectors != null) {
+                vectors.close();
+            }
+            log.debug("Closed embedded vector store {}", directory);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of documents in the files, counting deleted ones that still take up space.
+     */
+    public int storedCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fraction of the stored documents that are deleted, which searches still skip over.
+     */
+    public double deletedFraction() {
+        lock.readLock().lock();
+        try {
+            return documents.size() == 0 ? 0 : 1.0 - (double) documents.liveCount() / documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy the live documents and their vectors into a new store directory, leaving deleted ones
+     * out. Searches keep running during the copy; writes wait for it.
+     *
+     * @return the number of documents copied
+     */
+    public int writeCompacted(Path target) throws IOException {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int copied = 0;
+            try (DocumentLog copy = DocumentLog.open(target.resolve(DOCUMENTS_FILE))) {
+                if (vectors == null) {
+                    return 0;
+                }
+                VectorFile vectorCopy = VectorFile.create(target.resolve(VECTORS_FILE), vectors.dimensions());
+                try {
+                    float[] vector = new float[vectors.dimensions()];
+                    for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+                        if (documents.isDeleted(ordinal)) {
+                            continue;
+                        }
+                        DocumentLog.StoredDocument stored = documents.get(ordinal);
+                        vectors.read(ordinal, vector);
+                        vectorCopy.append(vector);
+                        copy.append(stored.id(), stored.content(), stored.metadata());
+                        copied++;
+                    }
+                } finally {
+                    vectorCopy.close();
+                }
+            }
+            return copied;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("documents", documents.liveCount());
+            stats.put("deleted", documents.size() - documents.liveCount());
+            stats.put("dimensions", vectors != null ? vectors.dimensions() : 0);
+            stats.put("vectorBytes", vectors != null ? vectors.sizeInBytes() : 0L);
+            stats.put("encoding", encoding);
+            stats.put("quantizedBytes", quantized != null ? quantized.sizeInBytes() : 0L);
+            stats.put("indexBytes", indexSizeInBytes());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Vector store " + directory + " is open read-only");
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Vector store " + directory + " is closed");
+        }
+    }
+}
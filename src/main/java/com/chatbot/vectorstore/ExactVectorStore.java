@@ -0,0 +1,78 @@
+package com.chatbot.vectorstore;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Embedded vector store that scores every vector for each query. For collections of a few
+ * thousand chunks a full scan of the memory-mapped vectors costs a few milliseconds, less than
+ * a round trip to ChromaDB, and always returns the true nearest neighbors. Shares the on-disk
+ * layout of {@link HnswVectorStore}, minus the graph.
+ */
+public class ExactVectorStore extends EmbeddedVectorStore {
+
+    /** Vectors copied out of the mapped file per scoring pass; ~200 KB at 1536 dimensions. */
+    private static final int BLOCK_VECTORS = 32;
+
+    private final VectorScorer scorer = VectorScorer.get();
+    private final ThreadLocal<float[]> blocks = new ThreadLocal<>();
+
+    public ExactVectorStore(Path directory, EmbeddingModel embeddingModel,
+                            VectorEncoding encoding, int rescoreMultiplier) throws IOException {
+        this(directory, embeddingModel, encoding, rescoreMultiplier, false);
+    }
+
+    public ExactVectorStore(Path directory, EmbeddingModel embeddingModel, VectorEncoding encoding,
+                            int rescoreMultiplier, boolean readOnly) throws IOException {
+        super(directory, embeddingModel, encoding, rescoreMultiplier, readOnly);
+    }
+
+    @Override
+    protected void index(int ordinal, float[] vector) {
+        // Nothing to maintain: search reads the vector file directly
+    }
+
+    @Override
+    protected Neighbors search(float[] query, int k, BitSet deleted) {
+        int total = vectors.size();
+        int dimensions = vectors.dimensions();
+        float[] block = blocks.get();
+        if (block == null || block.length != BLOCK_VECTORS * dimensions) {
+            block = new float[BLOCK_VECTORS * dimensions];
+            blocks.set(block);
+        }
+        float[] scores = new float[BLOCK_VECTORS];
+        NodeHeap top = NodeHeap.minHeap(k);
+        QuantizedVectors.PreparedQuery prepared = quantized != null ? quantized.prepare(query) : null;
+        float[] weights = prepared != null ? prepared.weights() : query;
+        float offset = prepared != null ? prepared.offset() : 0f;
+
+        for (int start = 0; start < total; start += BLOCK_VECTORS) {
+            int count = Math.min(BLOCK_VECTORS, total - start);
+            if (prepared != null) {
+                quantized.decodeBlock(start, count, block);
+            } else {
+                vectors.readBlock(start, count, block);
+            }
+            scorer.dotProducts(block, count, dimensions, weights, scores);
+            for (int i = 0; i < count; i++) {
+                int ordinal = start + i;
+                if (deleted == null || !deleted.get(ordinal)) {
+                    top.offer(ordinal, scores[i] + offset, k);
+                }
+            }
+        }
+        return top.drainDescending();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = super.getStats();
+        stats.put("scorer", scorer.name());
+        return stats;
+    }
+}
@@ -0,0 +1,339 @@
+package com.chatbot.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Embedded vector store searched through a Hierarchical Navigable Small World graph.
+ * Each node keeps up to {@code m} links per upper layer and {@code 2m} on layer 0, chosen with
+ * the diversity heuristic from the HNSW paper. The graph is built from full-precision vectors;
+ * queries walk it using the quantized copy when one is configured. The graph is saved to
+ * {@code graph.bin} on flush; vectors appended after the last save are re-inserted on open.
+ */
+public class HnswVectorStore extends EmbeddedVectorStore {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswVectorStore.class);
+
+    private static final String GRAPH_FILE = "graph.bin";
+    private static final int FILE_MAGIC = 0x484e5357; // "HNSW"
+    private static final int FILE_VERSION = 1;
+
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    /** Per node, per layer: [count, neighbor, neighbor, ...]. */
+    private final List<int[][]> links = new ArrayList<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private boolean dirty;
+
+    @FunctionalInterface
+    private interface NodeScorer {
+        float score(int ordinal);
+    }
+
+    public HnswVectorStore(Path directory, EmbeddingModel embeddingModel, VectorEncoding encoding,
+                           int rescoreMultiplier, int m, int efConstruction, int efSearch) throws IOException {
+        this(directory, embeddingModel, encoding, rescoreMultiplier, m, efConstruction, efSearch, false);
+    }
+
+    public HnswVectorStore(Path directory, EmbeddingModel embeddingModel, VectorEncoding encoding,
+                           int rescoreMultiplier, int m, int efConstruction, int efSearch,
+                           boolean readOnly) throws IOException {
+        super(directory, embeddingModel, encoding, rescoreMultiplier, readOnly);
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+
+        int total = vectors != null ? vectors.size() : 0;
+        loadGraph(total);
+        if (links.size() < total) {
+            long start = System.currentTimeMillis();
+            int missing = total - links.size();
+            float[] vector = new float[vectors.dimensions()];
+            for (int ordinal = links.size(); ordinal < total; ordinal++) {
+                vectors.read(ordinal, vector);
+                index(ordinal, vector);
+            }
+            log.info("Inserted {} vectors missing from the HNSW graph in {} in {} ms",
+                    missing, directory, System.currentTimeMillis() - start);
+        }
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    @Override
+    protected void index(int ordinal, float[] vector) {
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[maxConnections(l) + 1];
+        }
+        links.add(nodeLinks);
+        dirty = true;
+
+        if (entryPoint < 0) {
+            entryPoint = ordinal;
+            maxLevel = level;
+            return;
+        }
+
+        NodeScorer scorer = node -> vectors.dot(node, vector);
+        int nearest = greedyDescend(scorer, entryPoint, maxLevel, level);
+        BitSet visited = new BitSet(links.size());
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            visited.clear();
+            Neighbors candidates = searchLayer(scorer, nearest, efConstruction, l, visited, null).drainDescending();
+            int[] selected = selectNeighbors(candidates, maxConnections(l));
+            nodeLinks[l][0] = selected.length;
+            System.arraycopy(selected, 0, nodeLinks[l], 1, selected.length);
+            for (int neighbor : selected) {
+                link(neighbor, ordinal, l);
+            }
+            nearest = candidates.ordinals()[0];
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = ordinal;
+        }
+    }
+
+    @Override
+    protected Neighbors search(float[] query, int k, BitSet deleted) {
+        if (entryPoint < 0 || k <= 0) {
+            return new Neighbors(new int[0], new float[0]);
+        }
+        NodeScorer scorer;
+        if (quantized != null) {
+            QuantizedVectors.PreparedQuery prepared = quantized.prepare(query);
+            float[] scratch = new float[vectors.dimensions()];
+            scorer = node -> quantized.score(node, prepared, scratch);
+        } else {
+            scorer = node -> vectors.dot(node, query);
+        }
+        int nearest = greedyDescend(scorer, entryPoint, maxLevel, 0);
+        NodeHeap results = searchLayer(scorer, nearest, Math.max(efSearch, k), 0, new BitSet(links.size()), deleted);
+        while (results.size() > k) {
+            results.pop();
+        }
+        return results.drainDescending();
+    }
+
+    /**
+     * Walk down from the top layer to just above the target layer, moving to the closest neighbor each step.
+     */
+    private int greedyDescend(NodeScorer scorer, int start, int fromLevel, int toLevel) {
+        int current = start;
+        float currentScore = scorer.score(current);
+        for (int l = fromLevel; l > toLevel; l--) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                int[] neighbors = links.get(current)[l];
+                for (int i = 1; i <= neighbors[0]; i++) {
+                    float score = scorer.score(neighbors[i]);
+                    if (score > currentScore) {
+                        currentScore = score;
+                        current = neighbors[i];
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer. Excluded nodes are still traversed, so deletions
+     * do not disconnect the graph, but are never returned.
+     *
+     * @return min-heap of up to ef nearest nodes
+     */
+    private NodeHeap searchLayer(NodeScorer scorer, int start, int ef, int level, BitSet visited, BitSet excluded) {
+        NodeHeap candidates = NodeHeap.maxHeap(ef);
+        NodeHeap results = NodeHeap.minHeap(ef);
+        float startScore = scorer.score(start);
+        candidates.push(start, startScore);
+        if (excluded == null || !excluded.get(start)) {
+            results.push(start, startScore);
+        }
+        visited.set(start);
+
+        while (!candidates.isEmpty()) {
+            if (results.size() >= ef && candidates.topScore() < results.topScore()) {
+                break;
+            }
+            int current = candidates.pop();
+            int[] neighbors = links.get(current)[level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float score = scorer.score(neighbor);
+                if (results.size() < ef || score > results.topScore()) {
+                    candidates.push(neighbor, score);
+                    if (excluded == null || !excluded.get(neighbor)) {
+                        results.offer(neighbor, score, ef);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Keep a candidate only if it is closer to the base node than to any neighbor already kept,
+     * which spreads links across clusters instead of packing them into the nearest one.
+     *
+     * @param candidates sorted by similarity to the base node, best first
+     */
+    private int[] selectNeighbors(Neighbors candidates, int max) {
+        int[] selected = new int[Math.min(max, candidates.size())];
+        int count = 0;
+        float[] candidate = new float[vectors.dimensions()];
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            int ordinal = candidates.ordinals()[i];
+            float similarity = candidates.similarities()[i];
+            vectors.read(ordinal, candidate);
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (vectors.dot(selected[j], candidate) > similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Add a back-link from an existing node, re-selecting its neighbors when the list is full.
+     */
+    private void link(int from, int to, int level) {
+        int[] neighbors = links.get(from)[level];
+        int max = maxConnections(level);
+        if (neighbors[0] < max) {
+            neighbors[++neighbors[0]] = to;
+            return;
+        }
+
+        float[] base = new float[vectors.dimensions()];
+        vectors.read(from, base);
+        NodeHeap candidates = NodeHeap.minHeap(max + 1);
+        candidates.push(to, vectors.dot(to, base));
+        for (int i = 1; i <= neighbors[0]; i++) {
+            candidates.push(neighbors[i], vectors.dot(neighbors[i], base));
+        }
+        int[] selected = selectNeighbors(candidates.drainDescending(), max);
+        neighbors[0] = selected.length;
+        System.arraycopy(selected, 0, neighbors, 1, selected.length);
+    }
+
+    @Override
+    protected long indexSizeInBytes() {
+        long bytes = 0;
+        for (int[][] nodeLinks : links) {
+            for (int[] layer : nodeLinks) {
+                bytes += (long) layer.length * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    protected void saveIndex() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Path file = directory.resolve(GRAPH_FILE);
+        Path tempFile = file.resolveSibling(GRAPH_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(m);
+            out.writeInt(links.size());
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (int[][] nodeLinks : links) {
+                out.writeByte(nodeLinks.length);
+                for (int[] layer : nodeLinks) {
+                    out.writeShort(layer[0]);
+                    for (int i = 1; i <= layer[0]; i++) {
+                        out.writeInt(layer[i]);
+                    }
+                }
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+        log.debug("Saved HNSW graph with {} nodes to {}", links.size(), file);
+    }
+
+    private void loadGraph(int vectorCount) throws IOException {
+        Path file = directory.resolve(GRAPH_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION || in.readInt() != m) {
+                log.warn("HNSW graph in {} has a different format or m; rebuilding", directory);
+                return;
+            }
+            int nodeCount = in.readInt();
+            if (nodeCount > vectorCount) {
+                log.warn("HNSW graph in {} is ahead of its vectors; rebuilding", directory);
+                return;
+            }
+            int savedEntryPoint = in.readInt();
+            int savedMaxLevel = in.readInt();
+            List<int[][]> loaded = new ArrayList<>(nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                int[][] nodeLinks = new int[in.readUnsignedByte()][];
+                for (int l = 0; l < nodeLinks.length; l++) {
+                    int[] layer = new int[maxConnections(l) + 1];
+                    layer[0] = in.readUnsignedShort();
+                    for (int i = 1; i <= layer[0]; i++) {
+                        layer[i] = in.readInt();
+                    }
+                    nodeLinks[l] = layer;
+                }
+                loaded.add(nodeLinks);
+            }
+            links.addAll(loaded);
+            entryPoint = savedEntryPoint;
+            maxLevel = savedMaxLevel;
+            log.info("Loaded HNSW graph with {} nodes from {}", nodeCount, file);
+        }
+    }
+}
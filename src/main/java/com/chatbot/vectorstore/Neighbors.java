@@ -0,0 +1,11 @@
+package com.chatbot.vectorstore;
+
+/**
+ * Search result of an embedded index: vector ordinals with their cosine similarity, best first.
+ */
+record Neighbors(int[] ordinals, float[] similarities) {
+
+    int size() {
+        return ordinals.length;
+    }
+}
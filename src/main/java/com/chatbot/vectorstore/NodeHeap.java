@@ -0,0 +1,138 @@
+package com.chatbot.vectorstore;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (ordinal, score) pairs backed by primitive arrays.
+ * A min-heap keeps the lowest score on top, which makes it a bounded top-K collector;
+ * a max-heap keeps the highest score on top for best-first graph exploration.
+ */
+final class NodeHeap {
+
+    private final boolean maxHeap;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    private NodeHeap(int initialCapacity, boolean maxHeap) {
+        this.maxHeap = maxHeap;
+        this.nodes = new int[Math.max(1, initialCapacity)];
+        this.scores = new float[Math.max(1, initialCapacity)];
+    }
+
+    static NodeHeap minHeap(int initialCapacity) {
+        return new NodeHeap(initialCapacity, false);
+    }
+
+    static NodeHeap maxHeap(int initialCapacity) {
+        return new NodeHeap(initialCapacity, true);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        nodes[size] = node;
+        scores[size] = score;
+        siftUp(size++);
+    }
+
+    /**
+     * For a min-heap collecting the best k: add the pair if there is room or it beats the worst kept.
+     */
+    boolean offer(int node, float score, int k) {
+        if (size < k) {
+            push(node, score);
+            return true;
+        }
+        if (score > scores[0]) {
+            nodes[0] = node;
+            scores[0] = score;
+            siftDown(0);
+            return true;
+        }
+        return false;
+    }
+
+    int pop() {
+        int node = nodes[0];
+        size--;
+        nodes[0] = nodes[size];
+        scores[0] = scores[size];
+        siftDown(0);
+        return node;
+    }
+
+    /**
+     * Empty a min-heap into arrays ordered from highest to lowest score.
+     */
+    Neighbors drainDescending() {
+        int count = size;
+        int[] ordinals = new int[count];
+        float[] similarities = new float[count];
+        for (int i = count - 1; i >= 0; i--) {
+            similarities[i] = scores[0];
+            ordinals[i] = pop();
+        }
+        return new Neighbors(ordinals, similarities);
+    }
+
+    private boolean above(int a, int b) {
+        return maxHeap ? scores[a] > scores[b] : scores[a] < scores[b];
+    }
+
+    private void swap(int a, int b) {
+        int node = nodes[a];
+        nodes[a] = nodes[b];
+        nodes[b] = node;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!above(index, parent)) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int best = left;
+            if (left + 1 < size && above(left + 1, left)) {
+                best = left + 1;
+            }
+            if (!above(best, index)) {
+                return;
+            }
+            swap(index, best);
+            index = best;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.chatbot.vectorstore;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Memory and accuracy of one vector encoding for a collection, measured against exact
+ * full-precision search. Stored chunk vectors stand in for queries, each looking for its
+ * k nearest other chunks. The float32 file stays mapped for rescoring, so a quantized store
+ * holds both copies; what quantization shrinks is the data each search scans.
+ *
+ * @param recallAtK overlap with the exact top k when ranking by quantized scores alone
+ * @param rescoredRecallAtK overlap after rescoring the quantized top {@code k * rescoreMultiplier}
+ */
+public record QuantizationReport(VectorEncoding encoding, int vectors, long float32Bytes, long encodedBytes,
+                                 int k, double recallAtK, double rescoredRecallAtK) {
+
+    /**
+     * Bytes held by a store using this encoding: the mapped float32 file plus the in-memory codes.
+     */
+    public long residentBytes() {
+        return encoding == VectorEncoding.FLOAT32 ? float32Bytes : float32Bytes + encodedBytes;
+    }
+
+    /**
+     * Share of the float32 bytes a search no longer scans, since only candidates are rescored from the file.
+     */
+    public double scanSavedFraction() {
+        return float32Bytes > 0 ? 1.0 - (double) encodedBytes / float32Bytes : 0.0;
+    }
+
+    public static QuantizationReport evaluate(EmbeddedVectorStore store, VectorEncoding encoding,
+                                              int k, int samples, int rescoreMultiplier) {
+        store.lock.readLock().lock();
+        try {
+            VectorFile vectors = store.vectors;
+            if (vectors == null || vectors.size() <= k) {
+                return new QuantizationReport(encoding, vectors != null ? vectors.size() : 0, 0, 0, k, 1.0, 1.0);
+            }
+            if (encoding == VectorEncoding.FLOAT32) {
+                return new QuantizationReport(encoding, vectors.size(), vectors.sizeInBytes(), vectors.sizeInBytes(),
+                        k, 1.0, 1.0);
+            }
+
+            QuantizedVectors quantized = QuantizedVectors.create(encoding, vectors);
+            int total = vectors.size();
+            int dimensions = vectors.dimensions();
+            int sampleCount = Math.min(samples, total);
+            float[] query = new float[dimensions];
+            float[] scratch = new float[dimensions];
+            double recall = 0;
+            double rescoredRecall = 0;
+            int evaluated = 0;
+
+            for (int s = 0; s < sampleCount; s++) {
+                // Spread samples evenly so every part of the collection is represented
+                int queryOrdinal = (int) ((long) s * total / sampleCount);
+                if (store.isDeleted(queryOrdinal)) {
+                    continue;
+                }
+                vectors.read(queryOrdinal, query);
+                QuantizedVectors.PreparedQuery prepared = quantized.prepare(query);
+
+                int candidates = k * Math.max(1, rescoreMultiplier);
+                NodeHeap exact = NodeHeap.minHeap(k);
+                NodeHeap approximate = NodeHeap.minHeap(candidates);
+                for (int ordinal = 0; ordinal < total; ordinal++) {
+                    if (ordinal == queryOrdinal || store.isDeleted(ordinal)) {
+                        continue;
+                    }
+                    exact.offer(ordinal, vectors.dot(ordinal, query), k);
+                    approximate.offer(ordinal, quantized.score(ordinal, prepared, scratch), candidates);
+                }
+
+                Set<Integer> truth = toSet(exact.drainDescending().ordinals(), k);
+                Neighbors ranked = approximate.drainDescending();
+                recall += overlap(truth, toSet(ranked.ordinals(), k));
+
+                NodeHeap rescored = NodeHeap.minHeap(k);
+                for (int ordinal : ranked.ordinals()) {
+                    rescored.offer(ordinal, vectors.dot(ordinal, query), k);
+                }
+                rescoredRecall += overlap(truth, toSet(rescored.drainDescending().ordinals(), k));
+                evaluated++;
+            }
+
+            return new QuantizationReport(encoding, total, vectors.sizeInBytes(), quantized.sizeInBytes(), k,
+                    evaluated > 0 ? recall / evaluated : 1.0,
+                    evaluated > 0 ? rescoredRecall / evaluated : 1.0);
+        } finally {
+            store.lock.readLock().unlock();
+        }
+    }
+
+    private static Set<Integer> toSet(int[] ordinals, int limit) {
+        Set<Integer> set = new HashSet<>();
+        for (int i = 0; i < Math.min(limit, ordinals.length); i++) {
+            set.add(ordinals[i]);
+        }
+        return set;
+    }
+
+    private static double overlap(Set<Integer> truth, Set<Integer> found) {
+        if (truth.isEmpty()) {
+            return 1.0;
+        }
+        int hits = 0;
+        for (Integer ordinal : found) {
+            if (truth.contains(ordinal)) {
+                hits++;
+            }
+        }
+        return (double) hits / truth.size();
+    }
+}
@@ -0,0 +1,239 @@
+package com.chatbot.vectorstore;
+
+import com.chatbot.util.VectorMath;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Compact off-heap copy of the vectors in a {@link VectorFile}, searched in place of the full
+ * precision floats. Scores are approximate, so callers over-fetch candidates and rescore them
+ * against the vector file. Appends are expected under the owning store's write lock.
+ */
+abstract class QuantizedVectors {
+
+    /**
+     * A query rewritten for the encoding: the approximate dot product with a stored vector is
+     * {@code offset + dot(weights, decoded)}.
+     */
+    record PreparedQuery(float[] weights, float offset) {}
+
+    protected final VectorFile source;
+    protected final int dimensions;
+    protected ByteBuffer codes;
+    protected int size;
+
+    protected QuantizedVectors(VectorFile source) {
+        this.source = source;
+        this.dimensions = source.dimensions();
+    }
+
+    static QuantizedVectors create(VectorEncoding encoding, VectorFile source) {
+        QuantizedVectors quantized = switch (encoding) {
+            case INT8 -> new Int8Vectors(source);
+            case FLOAT16 -> new Float16Vectors(source);
+            case FLOAT32 -> throw new IllegalArgumentException("FLOAT32 vectors are not quantized");
+        };
+        quantized.rebuild();
+        return quantized;
+    }
+
+    abstract VectorEncoding encoding();
+
+    /**
+     * Encode the source vector at {@code size} and append it.
+     */
+    abstract void append(float[] vector);
+
+    abstract PreparedQuery prepare(float[] query);
+
+    /**
+     * Decode a run of vectors into {@code destination}, in the form {@link PreparedQuery#weights()} expects.
+     */
+    abstract void decodeBlock(int firstOrdinal, int count, float[] destination);
+
+    /**
+     * Re-encode every vector in the source, e.g. after the value range has drifted.
+     */
+    void rebuild() {
+        size = 0;
+        codes = null;
+        ensureCapacity(Math.max(1024, source.size()));
+        float[] vector = new float[dimensions];
+        for (int ordinal = 0; ordinal < source.size(); ordinal++) {
+            source.read(ordinal, vector);
+            append(vector);
+        }
+    }
+
+    /**
+     * Bring the encoding up to date once a batch of appends is complete.
+     */
+    void flush() {
+    }
+
+    float score(int ordinal, PreparedQuery query, float[] scratch) {
+        decodeBlock(ordinal, 1, scratch);
+        return query.offset() + VectorMath.dot(query.weights(), scratch);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long sizeInBytes() {
+        return (long) size * dimensions * encoding().bytesPerValue();
+    }
+
+    protected void ensureCapacity(int vectors) {
+        int bytesPerVector = dimensions * encoding().bytesPerValue();
+        if (codes != null && codes.capacity() >= (long) vectors * bytesPerVector) {
+            return;
+        }
+        int capacity = codes == null ? vectors : Math.max(vectors, codes.capacity() / bytesPerVector * 2);
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity * bytesPerVector).order(ByteOrder.nativeOrder());
+        if (codes != null) {
+            grown.put(codes.duplicate().position(0).limit(size * bytesPerVector));
+            grown.clear();
+        }
+        codes = grown;
+    }
+
+    static final class Float16Vectors extends QuantizedVectors {
+
+        Float16Vectors(VectorFile source) {
+            super(source);
+        }
+
+        @Override
+        VectorEncoding encoding() {
+            return VectorEncoding.FLOAT16;
+        }
+
+        @Override
+        void append(float[] vector) {
+            ensureCapacity(size + 1);
+            int base = size * dimensions * Short.BYTES;
+            for (int i = 0; i < dimensions; i++) {
+                codes.putShort(base + i * Short.BYTES, VectorMath.toFloat16(vector[i]));
+            }
+            size++;
+        }
+
+        @Override
+        PreparedQuery prepare(float[] query) {
+            return new PreparedQuery(query, 0f);
+        }
+
+        @Override
+        void decodeBlock(int firstOrdinal, int count, float[] destination) {
+            int base = firstOrdinal * dimensions * Short.BYTES;
+            int values = count * dimensions;
+            for (int i = 0; i < values; i++) {
+                destination[i] = VectorMath.fromFloat16(codes.getShort(base + i * Short.BYTES));
+            }
+        }
+    }
+
+    /**
+     * Per-dimension scalar quantization: each dimension's observed [min, max] range is mapped
+     * linearly onto the 256 byte values. The range is re-learned when the collection doubles in
+     * size or when appended values fell outside it.
+     */
+    static final class Int8Vectors extends QuantizedVectors {
+
+        private float[] min;
+        private float[] scale;
+        private int trainedSize;
+        private boolean clamped;
+
+        Int8Vectors(VectorFile source) {
+            super(source);
+        }
+
+        @Override
+        VectorEncoding encoding() {
+            return VectorEncoding.INT8;
+        }
+
+        @Override
+        void rebuild() {
+            train();
+            super.rebuild();
+            clamped = false;
+        }
+
+        private void train() {
+            int count = source.size();
+            min = new float[dimensions];
+            float[] max = new float[dimensions];
+            scale = new float[dimensions];
+            if (count == 0) {
+                trainedSize = 0;
+                return;
+            }
+            Arrays.fill(min, Float.MAX_VALUE);
+            Arrays.fill(max, -Float.MAX_VALUE);
+            float[] vector = new float[dimensions];
+            for (int ordinal = 0; ordinal < count; ordinal++) {
+                source.read(ordinal, vector);
+                for (int i = 0; i < dimensions; i++) {
+                    min[i] = Math.min(min[i], vector[i]);
+                    max[i] = Math.max(max[i], vector[i]);
+                }
+            }
+            for (int i = 0; i < dimensions; i++) {
+                scale[i] = max[i] > min[i] ? (max[i] - min[i]) / 255f : 1f;
+            }
+            trainedSize = count;
+        }
+
+        @Override
+        void append(float[] vector) {
+            if (size >= 2 * trainedSize && size < source.size()) {
+                // The range learned so far came from too few vectors; the new one is already in the source
+                rebuild();
+                return;
+            }
+            ensureCapacity(size + 1);
+            int base = size * dimensions;
+            for (int i = 0; i < dimensions; i++) {
+                int code = Math.round((vector[i] - min[i]) / scale[i]);
+                if (code < 0 || code > 255) {
+                    clamped = true;
+                    code = Math.max(0, Math.min(255, code));
+                }
+                codes.put(base + i, (byte) (code - 128));
+            }
+            size++;
+        }
+
+        @Override
+        void flush() {
+            if (clamped) {
+                rebuild();
+            }
+        }
+
+        @Override
+        PreparedQuery prepare(float[] query) {
+            float[] weights = new float[dimensions];
+            float offset = 0f;
+            for (int i = 0; i < dimensions; i++) {
+                weights[i] = query[i] * scale[i];
+                offset += query[i] * (min[i] + 128 * scale[i]);
+            }
+            return new PreparedQuery(weights, offset);
+        }
+
+        @Override
+        void decodeBlock(int firstOrdinal, int count, float[] destination) {
+            int base = firstOrdinal * dimensions;
+            int values = count * dimensions;
+            for (int i = 0; i < values; i++) {
+                destination[i] = codes.get(base + i);
+            }
+        }
+    }
+}
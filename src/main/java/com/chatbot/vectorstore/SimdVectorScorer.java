@@ -0,0 +1,40 @@
+package com.chatbot.vectorstore;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link VectorScorer}. Only loaded after the module check in
+ * {@link VectorScorer#get()}, so the class is never resolved on JVMs started without it.
+ */
+final class SimdVectorScorer extends VectorScorer {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    void dotProducts(float[] block, int count, int dimensions, float[] query, float[] scores) {
+        int lanes = SPECIES.length();
+        int upperBound = SPECIES.loopBound(dimensions);
+        for (int v = 0; v < count; v++) {
+            int base = v * dimensions;
+            FloatVector sum = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (; i < upperBound; i += lanes) {
+                FloatVector a = FloatVector.fromArray(SPECIES, block, base + i);
+                FloatVector b = FloatVector.fromArray(SPECIES, query, i);
+                sum = a.fma(b, sum);
+            }
+            float result = sum.reduceLanes(VectorOperators.ADD);
+            for (; i < dimensions; i++) {
+                result += block[base + i] * query[i];
+            }
+            scores[v] = result;
+        }
+    }
+
+    @Override
+    String name() {
+        return "simd-" + SPECIES.vectorBitSize() + "bit";
+    }
+}
@@ -0,0 +1,159 @@
+package com.chatbot.vectorstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only file of fixed-dimension float vectors, memory-mapped so reads come straight
+ * from the page cache without copying onto the Java heap. Not thread-safe; callers guard
+ * appends (which may remap the file) with a write lock. A file opened read-only is mapped
+ * as it is and never written.
+ */
+final class VectorFile implements Closeable {
+
+    private static final int FILE_MAGIC = 0x56454331; // "VEC1"
+    private static final int HEADER_BYTES = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private final int dimensions;
+    private final boolean readOnly;
+    private MappedByteBuffer mapped;
+    private FloatBuffer floats;
+    private int capacity;
+    private int size;
+
+    private VectorFile(FileChannel channel, int dimensions, int size, boolean readOnly) {
+        this.channel = channel;
+        this.dimensions = dimensions;
+        this.size = size;
+        this.readOnly = readOnly;
+    }
+
+    static boolean exists(Path file) {
+        return Files.exists(file);
+    }
+
+    static VectorFile create(Path file, int dimensions) throws IOException {
+        Files.createDirectories(file.getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        VectorFile vectorFile = new VectorFile(channel, dimensions, 0, false);
+        vectorFile.map(INITIAL_CAPACITY);
+        vectorFile.mapped.putInt(0, FILE_MAGIC);
+        vectorFile.mapped.putInt(4, dimensions);
+        vectorFile.mapped.putInt(8, 0);
+        return vectorFile;
+    }
+
+    static VectorFile open(Path file) throws IOException {
+        return open(file, false);
+    }
+
+    static VectorFile open(Path file, boolean readOnly) throws IOException {
+        FileChannel channel = readOnly
+                ? FileChannel.open(file, StandardOpenOption.READ)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (header.getInt(0) != FILE_MAGIC) {
+            channel.close();
+            throw new IOException("Not a vector file: " + file);
+        }
+        int dimensions = header.getInt(4);
+        int size = header.getInt(8);
+        long bytes = channel.size() - HEADER_BYTES;
+        int stored = (int) (bytes / ((long) dimensions * Float.BYTES));
+        VectorFile vectorFile = new VectorFile(channel, dimensions, readOnly ? Math.min(size, stored) : size, readOnly);
+        // A read-only mapping cannot extend the file, so it covers only the vectors written
+        vectorFile.map(readOnly ? stored : Math.max(INITIAL_CAPACITY, stored));
+        return vectorFile;
+    }
+
+    private void map(int newCapacity) throws IOException {
+        long bytes = HEADER_BYTES + (long) newCapacity * dimensions * Float.BYTES;
+        mapped = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0, bytes);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        floats = mapped.duplicate().position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        capacity = newCapacity;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Drop vectors past the given count, e.g. ones written without a matching document record.
+     */
+    void truncate(int newSize) {
+        if (newSize < size) {
+            size = newSize;
+            if (!readOnly) {
+                mapped.putInt(8, size);
+            }
+        }
+    }
+
+    int append(float[] vector) throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException("Vector file is open read-only");
+        }
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        if (size == capacity) {
+            map(capacity * 2);
+        }
+        floats.put(size * dimensions, vector);
+        mapped.putInt(8, size + 1);
+        return size++;
+    }
+
+    void read(int ordinal, float[] destination) {
+        floats.get(ordinal * dimensions, destination);
+    }
+
+    /**
+     * Copy a run of consecutive vectors into a scratch array for block-wise scoring.
+     */
+    void readBlock(int firstOrdinal, int count, float[] destination) {
+        floats.get(firstOrdinal * dimensions, destination, 0, count * dimensions);
+    }
+
+    float dot(int ordinal, float[] query) {
+        int base = ordinal * dimensions;
+        float sum = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += floats.get(base + i) * query[i];
+        }
+        return sum;
+    }
+
+    long sizeInBytes() {
+        return (long) size * dimensions * Float.BYTES;
+    }
+
+    void force() {
+        if (!readOnly) {
+            mapped.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,66 @@
+package com.chatbot.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scores a block of consecutive vectors against a query by dot product.
+ * Uses the JDK Vector API when the build includes it ({@code -Psimd}) and the
+ * {@code jdk.incubator.vector} module is present (start the JVM with
+ * {@code --add-modules jdk.incubator.vector}), otherwise a scalar loop.
+ */
+abstract class VectorScorer {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorScorer.class);
+
+    private static final VectorScorer INSTANCE = create();
+
+    static VectorScorer get() {
+        return INSTANCE;
+    }
+
+    private static VectorScorer create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name: builds without -Psimd leave the class out
+                VectorScorer scorer = (VectorScorer) Class.forName(VectorScorer.class.getPackageName() + ".SimdVectorScorer")
+                        .getDeclaredConstructor().newInstance();
+                log.info("Using {} for exact vector search", scorer.name());
+                return scorer;
+            } catch (ClassNotFoundException e) {
+                log.info("Built without the SIMD scorer (-Psimd); using scalar scoring");
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector API unavailable ({}); using scalar scoring", e.getMessage());
+            }
+        }
+        return new ScalarVectorScorer();
+    }
+
+    /**
+     * @param block {@code count} vectors of {@code dimensions} floats laid out back to back
+     * @param scores receives one dot product per vector
+     */
+    abstract void dotProducts(float[] block, int count, int dimensions, float[] query, float[] scores);
+
+    abstract String name();
+
+    static final class ScalarVectorScorer extends VectorScorer {
+
+        @Override
+        void dotProducts(float[] block, int count, int dimensions, float[] query, float[] scores) {
+            for (int v = 0; v < count; v++) {
+                int base = v * dimensions;
+                float sum = 0f;
+                for (int i = 0; i < dimensions; i++) {
+                    sum += block[base + i] * query[i];
+                }
+                scores[v] = sum;
+            }
+        }
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+    }
+}
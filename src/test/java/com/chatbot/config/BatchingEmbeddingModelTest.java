@@ -0,0 +1,125 @@
+package com.chatbot.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchingEmbeddingModelTest {
+
+    private final FakeEmbeddingModel delegate = new FakeEmbeddingModel();
+    private BatchingEmbeddingModel batcher;
+
+    @AfterEach
+    void tearDown() {
+        delegate.release.countDown();
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void concurrentCallsShareOneBatch() throws Exception {
+        batcher = new BatchingEmbeddingModel(delegate, config(200, 30000));
+
+        CompletableFuture<List<Double>> a = CompletableFuture.supplyAsync(() -> batcher.embed("a"));
+        CompletableFuture<List<Double>> b = CompletableFuture.supplyAsync(() -> batcher.embed("bb"));
+        CompletableFuture<List<Double>> again = CompletableFuture.supplyAsync(() -> batcher.embed("a"));
+        delegate.release.countDown();
+
+        assertEquals(List.of(1.0), a.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2.0), b.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1.0), again.get(5, TimeUnit.SECONDS));
+        assertEquals(1, delegate.calls.size());
+        assertEquals(Set.of("a", "bb"), Set.copyOf(delegate.calls.get(0)));
+        assertEquals(1L, batcher.getStats().get("duplicateTexts"));
+    }
+
+    @Test
+    void closingWhileCollectingAWindowFailsItsCallers() throws Exception {
+        batcher = new BatchingEmbeddingModel(delegate, config(60000, 60000));
+        CompletableFuture<List<Double>> waiting = CompletableFuture.supplyAsync(() -> batcher.embed("a"));
+        // Give the dispatcher time to take the text into the window it is collecting
+        Thread.sleep(200);
+        assertEquals(0, batcher.getStats().get("queued"));
+
+        batcher.close();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    @Test
+    void callersGiveUpOnAStuckBatch() {
+        batcher = new BatchingEmbeddingModel(delegate, config(1, 100));
+
+        assertThrows(IllegalStateException.class, () -> batcher.embed("a"));
+    }
+
+    @Test
+    void callsAfterCloseGoStraightToTheDelegate() {
+        batcher = new BatchingEmbeddingModel(delegate, config(1, 30000));
+        batcher.close();
+        delegate.release.countDown();
+
+        assertEquals(List.of(3.0), batcher.embed("abc"));
+        assertEquals(List.of(List.of("abc")), delegate.calls);
+    }
+
+    private static RagConfig.EmbeddingBatch config(long windowMillis, long timeoutMillis) {
+        RagConfig.EmbeddingBatch config = new RagConfig.EmbeddingBatch();
+        config.setWindowMillis(windowMillis);
+        config.setTimeoutMillis(timeoutMillis);
+        return config;
+    }
+
+    /**
+     * Embeds a text as its length once {@link #release} is counted down.
+     */
+    private static class FakeEmbeddingModel implements EmbeddingModel {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public List<Double> embed(String text) {
+            return embed(List.of(text)).get(0);
+        }
+
+        @Override
+        public List<List<Double>> embed(List<String> texts) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            calls.add(texts);
+            return texts.stream().map(text -> List.of((double) text.length())).toList();
+        }
+
+        @Override
+        public List<Double> embed(Document document) {
+            return embed(document.getContent());
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.chatbot.config;
+
+import com.chatbot.vectorstore.VectorEncoding;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QueryEmbeddingCacheTest {
+
+    private static final float[] VECTOR = {0.1f, -0.5f, 0.25f, 0.8f};
+
+    @TempDir
+    Path dataDir;
+
+    private RagConfig ragConfig;
+
+    @BeforeEach
+    void setUp() {
+        ragConfig = new RagConfig();
+        ragConfig.setDataDir(dataDir.toString());
+        ragConfig.getEmbeddingStore().setModel("text-embedding-ada-002");
+    }
+
+    @Test
+    void savedEmbeddingsAreReloaded() {
+        QueryEmbeddingCache cache = new QueryEmbeddingCache(ragConfig);
+        cache.put(QueryEmbeddingCache.normalize("  How do I  log in? "), VECTOR);
+        cache.save();
+
+        QueryEmbeddingCache reloaded = new QueryEmbeddingCache(ragConfig);
+        reloaded.load();
+
+        assertEquals(1, reloaded.size());
+        assertArrayEquals(VECTOR, reloaded.get("how do i log in?"));
+    }
+
+    @Test
+    void savedEmbeddingsOfAnotherModelAreDropped() {
+        QueryEmbeddingCache cache = new QueryEmbeddingCache(ragConfig);
+        cache.put("how do i log in?", VECTOR);
+        cache.save();
+
+        // Same dimensions, different model
+        ragConfig.getEmbeddingStore().setModel("text-embedding-3-small");
+        QueryEmbeddingCache reloaded = new QueryEmbeddingCache(ragConfig);
+        reloaded.load();
+
+        assertEquals(0, reloaded.size());
+        assertNull(reloaded.get("how do i log in?"));
+    }
+
+    @Test
+    void quantizedEntriesStayCloseToTheOriginal() {
+        ragConfig.getQueryEmbeddingCache().setEncoding(VectorEncoding.INT8);
+        QueryEmbeddingCache cache = new QueryEmbeddingCache(ragConfig);
+        cache.put("q", VECTOR);
+
+        assertArrayEquals(VECTOR, cache.get("q"), 0.01f);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        ragConfig.getQueryEmbeddingCache().setMaxEntries(2);
+        QueryEmbeddingCache cache = new QueryEmbeddingCache(ragConfig);
+        cache.put("a", VECTOR);
+        cache.put("b", VECTOR);
+        cache.get("a");
+        cache.put("c", VECTOR);
+
+        assertNull(cache.get("b"));
+        assertArrayEquals(VECTOR, cache.get("a"));
+        assertArrayEquals(VECTOR, cache.get("c"));
+    }
+}
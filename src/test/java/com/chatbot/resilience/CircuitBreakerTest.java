@@ -0,0 +1,108 @@
+package com.chatbot.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 100;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, OPEN_MILLIS);
+
+    @Test
+    void staysClosedUntilEnoughCallsFail() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        // Below the minimum number of calls the rate is not judged yet
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(3.0 / 7, breaker.failureRate(), 1e-9);
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getTimesOpened());
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        CircuitBreaker windowed = new CircuitBreaker(4, 4, 0.75, OPEN_MILLIS);
+        windowed.onFailure();
+        windowed.onFailure();
+        for (int i = 0; i < 4; i++) {
+            windowed.onSuccess();
+        }
+        // The two failures were pushed out by four successes
+        assertEquals(0.0, windowed.failureRate(), 1e-9);
+        windowed.onFailure();
+        windowed.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, windowed.getState());
+    }
+
+    @Test
+    void refusesCallsWhileOpenThenLetsOneTrialThrough() throws InterruptedException {
+        open();
+        assertFalse(breaker.tryAcquire());
+        assertTrue(breaker.remainingOpenMillis() > 0);
+
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void successfulTrialClosesTheBreaker() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.failureRate(), 1e-9);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedTrialOpensTheBreakerAgain() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getTimesOpened());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void abandonedTrialIsReplacedAfterAnotherPeriod() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+        assertTrue(breaker.tryAcquire());
+        // The trial's outcome is never recorded, e.g. its stream was cancelled
+
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
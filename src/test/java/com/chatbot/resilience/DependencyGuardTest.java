@@ -0,0 +1,101 @@
+package com.chatbot.resilience;
+
+import com.chatbot.config.RagConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DependencyGuardTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private RagConfig ragConfig;
+    private DependencyGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        ragConfig = new RagConfig();
+        ragConfig.getResilience().setBreakerWindow(4);
+        ragConfig.getResilience().setBreakerMinimumCalls(2);
+        ragConfig.getResilience().setHedgeMinDelayMillis(50);
+        guard = new DependencyGuard(ragConfig, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void slowCallsFailAtTheDeadline() {
+        DependencyUnavailableException e = assertThrows(DependencyUnavailableException.class,
+                () -> guard.call("chroma", 50, () -> sleep(2000)));
+
+        assertEquals("chroma", e.getDependency());
+        assertEquals(1L, stats("chroma").get("timeouts"));
+    }
+
+    @Test
+    void repeatedFailuresOpenTheBreakerAndRefuseCalls() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> guard.call("openai", 1000, () -> {
+                throw new IllegalStateException("500 from upstream");
+            }));
+        }
+
+        DependencyUnavailableException refused = assertThrows(DependencyUnavailableException.class,
+                () -> guard.call("openai", 1000, () -> "never called"));
+        assertEquals(30, refused.getRetryAfterSeconds());
+        assertEquals("open", stats("openai").get("breakerState"));
+        assertEquals(1L, stats("openai").get("rejected"));
+    }
+
+    @Test
+    void slowFirstAttemptIsHedged() {
+        for (int i = 0; i < 20; i++) {
+            guard.hedgedCall("chroma", 1000, () -> "fast");
+        }
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = guard.hedgedCall("chroma", 1000,
+                () -> attempts.incrementAndGet() == 1 ? sleep(2000) : "hedge");
+
+        assertEquals("hedge", result);
+        assertEquals(1L, stats("chroma").get("hedges"));
+        assertEquals(1L, stats("chroma").get("hedgeWins"));
+    }
+
+    @Test
+    void hedgingWaitsForEnoughLatencySamples() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("slow", guard.hedgedCall("chroma", 1000, () -> {
+            attempts.incrementAndGet();
+            sleep(100);
+            return "slow";
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(0L, stats("chroma").get("hedges"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(String dependency) {
+        return (Map<String, Object>) guard.getStats().get(dependency);
+    }
+
+    private static String sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "slow";
+    }
+}
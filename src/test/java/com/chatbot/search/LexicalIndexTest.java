@@ -0,0 +1,97 @@
+package com.chatbot.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LexicalIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private final LexicalIndex index = LexicalIndex.builder()
+            .add(chunk("Reset a password from Settings/Users. Passwords expire after 90 days.", "users.html", 0))
+            .add(chunk("Error E-1042 means the export job timed out.", "errors.html", 0))
+            .add(chunk("Export reports as CSV or PDF from the reports page.", "reports.html", 0))
+            .add(chunk("Users can export their own data. Admins can export everyone's.", "users.html", 1))
+            .build();
+
+    @Test
+    void ranksChunksByBm25() {
+        List<LexicalIndex.Hit> hits = index.search("export job error", 10);
+
+        assertEquals("errors.html", hits.get(0).chunk().source());
+        assertEquals(3, hits.size());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+    }
+
+    @Test
+    void matchesCompoundTokensExactly() {
+        List<LexicalIndex.Hit> hits = index.search("E-1042", 1);
+        assertEquals("errors.html", hits.get(0).chunk().source());
+
+        assertEquals("users.html", index.search("settings/users", 1).get(0).chunk().source());
+    }
+
+    @Test
+    void queriesWithoutKnownTermsFindNothing() {
+        assertTrue(index.search("kubernetes", 5).isEmpty());
+        assertTrue(index.search("the of", 5).isEmpty());
+        assertTrue(index.search("export", 0).isEmpty());
+    }
+
+    @Test
+    void savedIndexLoadsBackIdentically() throws IOException {
+        Path file = directory.resolve("docs.bm25");
+        index.save(file);
+
+        LexicalIndex loaded = LexicalIndex.load(file);
+
+        assertEquals(index.size(), loaded.size());
+        assertEquals(index.termCount(), loaded.termCount());
+        assertEquals(index.postingBytes(), loaded.postingBytes());
+        assertEquals(index.chunks(), loaded.chunks());
+        for (String query : List.of("export", "password settings", "E-1042 timed out", "admins data")) {
+            assertEquals(index.search(query, 10), loaded.search(query, 10));
+        }
+        assertFalse(Files.exists(directory.resolve("docs.bm25.tmp")));
+    }
+
+    @Test
+    void rejectsFilesInAnotherFormat() throws IOException {
+        Path file = directory.resolve("docs.bm25");
+        Files.write(file, new byte[] {0, 0, 0, 1, 0, 0, 0, 1});
+
+        assertThrows(IOException.class, () -> LexicalIndex.load(file));
+    }
+
+    @Test
+    void serviceLoadsTheSavedIndexBesideTheDocsDirectory() {
+        Path docs = directory.resolve("docs").resolve("manual");
+        LexicalIndexService service = new LexicalIndexService();
+        service.save("manual", docs, index);
+        assertEquals(directory.resolve("docs").resolve("manual.bm25"), service.getIndexPath(docs));
+
+        LexicalIndexService restarted = new LexicalIndexService();
+        assertEquals(index.chunks(), restarted.getIndex("manual", docs).orElseThrow().chunks());
+
+        restarted.remove("manual", docs);
+        assertFalse(Files.exists(service.getIndexPath(docs)));
+        assertFalse(new LexicalIndexService().getIndex("manual", docs).isPresent());
+    }
+
+    private static LexicalIndex.Chunk chunk(String content, String source, int chunk) {
+        return new LexicalIndex.Chunk(content, source, source.replace(".html", ""), chunk, 2, source);
+    }
+}
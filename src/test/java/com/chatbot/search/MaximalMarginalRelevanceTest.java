@@ -0,0 +1,70 @@
+package com.chatbot.search;
+
+import com.chatbot.util.VectorMath;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MaximalMarginalRelevanceTest {
+
+    private static final float[] QUERY = {1, 0, 0};
+
+    @Test
+    void nearDuplicatesGiveWayToOtherTopics() {
+        Document best = embedded("best", 0.95f, 0.3f, 0);
+        Document duplicate = embedded("duplicate", 0.9f, 0.35f, 0);
+        Document other = embedded("other", 0.8f, 0, 0.6f);
+
+        List<Document> selected = MaximalMarginalRelevance.select(QUERY, List.of(best, duplicate, other), 2, 0.5);
+
+        assertEquals(List.of("best", "other"), ids(selected));
+    }
+
+    @Test
+    void lambdaOfOneKeepsTheRelevanceOrder() {
+        List<Document> candidates = List.of(embedded("a", 0.95f, 0.3f, 0), embedded("b", 0.9f, 0.35f, 0),
+                embedded("c", 0.8f, 0, 0.6f));
+
+        assertEquals(List.of("a", "b", "c"), ids(MaximalMarginalRelevance.select(QUERY, candidates, 3, 1.0)));
+    }
+
+    @Test
+    void chunksWithoutEmbeddingsAreComparedByTerms() {
+        Document first = text("first", "reset the admin password from settings", 0.1);
+        Document repeat = text("repeat", "reset the admin password from settings page", 0.12);
+        Document export = text("export", "export reports as csv", 0.2);
+
+        List<Document> selected = MaximalMarginalRelevance.select(QUERY, List.of(first, repeat, export), 2, 0.5);
+
+        assertEquals(List.of("first", "export"), ids(selected));
+    }
+
+    @Test
+    void shortInputsAreReturnedAsGiven() {
+        List<Document> one = List.of(embedded("a", 1, 0, 0));
+
+        assertEquals(one, MaximalMarginalRelevance.select(QUERY, one, 5, 0.5));
+        assertEquals(List.of(), MaximalMarginalRelevance.select(QUERY, one, 0, 0.5));
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    private static Document embedded(String id, float... embedding) {
+        Document document = new Document(id, id, new HashMap<>());
+        document.setEmbedding(VectorMath.toDoubleList(embedding));
+        return document;
+    }
+
+    private static Document text(String id, String content, double distance) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("distance", distance);
+        return new Document(id, content, metadata);
+    }
+}
@@ -0,0 +1,50 @@
+package com.chatbot.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankFusionTest {
+
+    @Test
+    void chunksFoundByBothRetrieversRankFirst() {
+        List<Document> vector = List.of(chunk("v1", "a", 0), chunk("v2", "b", 0), chunk("v3", "c", 0));
+        List<Document> keyword = List.of(chunk("k1", "c", 0), chunk("k2", "d", 0), chunk("k3", "a", 0));
+
+        List<Document> fused = RankFusion.reciprocalRank(60, 4, vector, keyword);
+
+        assertEquals(List.of("a#0", "c#0", "b#0", "d#0"), fused.stream().map(RankFusion::chunkKey).toList());
+        // The first list's copy of a shared chunk is the one returned
+        assertEquals("v1", fused.get(0).getId());
+        assertEquals("v3", fused.get(1).getId());
+    }
+
+    @Test
+    void limitsToTopK() {
+        List<Document> vector = List.of(chunk("v1", "a", 0), chunk("v2", "a", 1), chunk("v3", "a", 2));
+
+        assertEquals(2, RankFusion.reciprocalRank(60, 2, vector, List.of()).size());
+    }
+
+    @Test
+    void chunkKeyFallsBackToTheDocumentId() {
+        assertEquals("a#3", RankFusion.chunkKey(chunk("x", "a", 3)));
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("chunk", "3");
+        metadata.put("docId", "a");
+        assertEquals("a#3", RankFusion.chunkKey(new Document("y", "text", metadata)));
+        assertEquals("z", RankFusion.chunkKey(new Document("z", "text", new HashMap<>())));
+    }
+
+    private static Document chunk(String id, String docId, int chunk) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("docId", docId);
+        metadata.put("chunk", chunk);
+        return new Document(id, "text", metadata);
+    }
+}
@@ -0,0 +1,35 @@
+package com.chatbot.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenizerTest {
+
+    @Test
+    void lowercasesAndDropsStopWords() {
+        assertEquals(List.of("reset", "password"), Tokenizer.tokenize("How do I reset MY Password?"));
+    }
+
+    @Test
+    void keepsCompoundTokensAlongsideTheirParts() {
+        assertEquals(List.of("error", "e", "1042", "error-e-1042"), Tokenizer.tokenize("error-E-1042"));
+        assertEquals(List.of("settings", "users", "settings/users", "user", "name", "user_name"),
+                Tokenizer.tokenize("Settings/Users, user_name"));
+    }
+
+    @Test
+    void doesNotJoinAcrossDoubledOrTrailingSeparators() {
+        assertEquals(List.of("config", "yml"), Tokenizer.tokenize("config..yml"));
+        assertEquals(List.of("version", "2"), Tokenizer.tokenize("version 2."));
+    }
+
+    @Test
+    void emptyTextHasNoTokens() {
+        assertEquals(List.of(), Tokenizer.tokenize(""));
+        assertEquals(List.of(), Tokenizer.tokenize(null));
+        assertEquals(List.of(), Tokenizer.tokenize("the of --"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkEmbeddingStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private RagConfig ragConfig;
+    private ChunkEmbeddingStore store;
+
+    @BeforeEach
+    void setUp() {
+        ragConfig = new RagConfig();
+        ragConfig.setDataDir(directory.toString());
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void returnsTheLatestEmbeddingOfEachText() {
+        store.putAll(List.of("a", "b"), List.of(new float[] {1, 2, 3}, new float[] {4, 5, 6}));
+        store.putAll(List.of("a"), List.of(new float[] {7, 8, 9}));
+
+        List<float[]> found = store.getAll(List.of("a", "b", "c"));
+
+        assertArrayEquals(new float[] {7, 8, 9}, found.get(0));
+        assertArrayEquals(new float[] {4, 5, 6}, found.get(1));
+        assertNull(found.get(2));
+        assertEquals(2L, store.getStats().get("hits"));
+        assertEquals(1L, store.getStats().get("misses"));
+    }
+
+    @Test
+    void embeddingsSurviveARestart() {
+        store.putAll(List.of("a", "b"), List.of(new float[] {1, 2}, new float[] {3, 4}));
+        store.close();
+
+        store = open();
+
+        assertArrayEquals(new float[] {3, 4}, store.getAll(List.of("b")).get(0));
+        assertEquals(2, store.getStats().get("embeddings"));
+    }
+
+    @Test
+    void recordCutShortByACrashIsTruncatedOnOpen() throws IOException {
+        store.putAll(List.of("a"), List.of(new float[] {1, 2, 3}));
+        long intact = Files.size(storeFile());
+        store.putAll(List.of("b"), List.of(new float[] {4, 5, 6}));
+        store.close();
+        try (FileChannel channel = FileChannel.open(storeFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(storeFile()) - 5);
+        }
+
+        store = open();
+
+        assertEquals(intact, Files.size(storeFile()));
+        assertArrayEquals(new float[] {1, 2, 3}, store.getAll(List.of("a")).get(0));
+        assertNull(store.getAll(List.of("b")).get(0));
+
+        // Appends continue on the record boundary
+        store.putAll(List.of("c"), List.of(new float[] {7, 8}));
+        store.close();
+        store = open();
+        assertArrayEquals(new float[] {7, 8}, store.getAll(List.of("c")).get(0));
+        assertEquals(2L, store.getStats().get("records"));
+    }
+
+    @Test
+    void otherModelsEmbeddingsAreIgnoredAndCompactedAway() {
+        store.putAll(List.of("a", "b"), List.of(new float[] {1, 2, 3}, new float[] {4, 5, 6}));
+        store.close();
+        ragConfig.getEmbeddingStore().setModel("text-embedding-3-small");
+        store = open();
+
+        assertNull(store.getAll(List.of("a")).get(0));
+        store.putAll(List.of("a"), List.of(new float[] {1, 1}));
+        store.putAll(List.of("a"), List.of(new float[] {2, 2}));
+
+        ChunkEmbeddingStore.CompactionResult result = store.compact();
+
+        assertEquals(4, result.recordsBefore());
+        assertEquals(1, result.recordsAfter());
+        assertTrue(result.bytesAfter() < result.bytesBefore());
+        assertArrayEquals(new float[] {2, 2}, store.getAll(List.of("a")).get(0));
+        assertFalse(Files.exists(directory.resolve("embedding-store.bin.tmp")));
+    }
+
+    @Test
+    void fileInAnUnknownFormatIsMovedAside() throws IOException {
+        store.close();
+        Files.write(storeFile(), "not an embedding store".getBytes());
+
+        store = open();
+
+        assertTrue(Files.exists(directory.resolve("embedding-store.bin.unreadable")));
+        store.putAll(List.of("a"), List.of(new float[] {1}));
+        assertArrayEquals(new float[] {1}, store.getAll(List.of("a")).get(0));
+    }
+
+    @Test
+    void disabledStoreKeepsNothing() {
+        store.close();
+        ragConfig.getEmbeddingStore().setEnabled(false);
+        store = open();
+
+        store.putAll(List.of("a"), List.of(new float[] {1}));
+
+        assertNull(store.getAll(List.of("a")).get(0));
+        assertThrows(IllegalStateException.class, () -> store.compact());
+    }
+
+    private ChunkEmbeddingStore open() {
+        ChunkEmbeddingStore opened = new ChunkEmbeddingStore(ragConfig);
+        opened.open();
+        return opened;
+    }
+
+    private Path storeFile() {
+        return directory.resolve("embedding-store.bin");
+    }
+}
@@ -0,0 +1,96 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CollectionMetadataServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private CollectionMetadataService service;
+
+    @BeforeEach
+    void setUp() {
+        RagConfig ragConfig = new RagConfig();
+        ragConfig.setMetadataFile(directory.resolve("data").resolve("collections.json").toString());
+        service = new CollectionMetadataService(ragConfig);
+        service.setTitle("manual", "User Manual");
+        service.setLogo("manual", "manual.png");
+    }
+
+    @Test
+    void firstSwapTurnsAPlainCollectionIntoAnAlias() {
+        assertNull(service.swapAlias("manual", "manual__v2"));
+
+        assertEquals("manual__v2", service.resolveCollection("manual"));
+        assertEquals("manual", service.getMetadata("manual").getPreviousAliasOf());
+        // The new version is shown with the title and logo the collection had
+        assertEquals("User Manual", service.getTitle("manual"));
+        assertEquals("manual.png", service.getLogo("manual"));
+        assertFalse(Files.exists(directory.resolve("data").resolve("collections.json.tmp")));
+    }
+
+    @Test
+    void laterSwapsRetireTheVersionBeforeThePrevious() {
+        service.swapAlias("manual", "manual__v2");
+
+        assertEquals("manual", service.swapAlias("manual", "manual__v3"));
+        assertEquals("manual__v3", service.resolveCollection("manual"));
+        assertEquals("manual__v2", service.getMetadata("manual").getPreviousAliasOf());
+        assertEquals("User Manual", service.getTitle("manual"));
+
+        assertEquals("manual__v2", service.swapAlias("manual", "manual__v4"));
+    }
+
+    @Test
+    void rollbackReturnsToThePreviousVersionAndBackAgain() {
+        service.swapAlias("manual", "manual__v2");
+        service.swapAlias("manual", "manual__v3");
+
+        assertEquals("manual__v2", service.rollbackAlias("manual"));
+        assertEquals("manual__v2", service.resolveCollection("manual"));
+
+        assertEquals("manual__v3", service.rollbackAlias("manual"));
+        assertEquals("manual__v3", service.resolveCollection("manual"));
+    }
+
+    @Test
+    void rollingBackTheFirstSwapRestoresThePlainCollection() {
+        service.swapAlias("manual", "manual__v2");
+
+        assertEquals("manual", service.rollbackAlias("manual"));
+
+        assertEquals("manual", service.resolveCollection("manual"));
+        assertFalse(service.getMetadata("manual").isAlias());
+        assertEquals("User Manual", service.getTitle("manual"));
+        assertEquals("manual__v2", service.rollbackAlias("manual"));
+        assertEquals("manual__v2", service.resolveCollection("manual"));
+    }
+
+    @Test
+    void rollbackWithoutAPreviousVersionFails() {
+        assertThrows(IllegalStateException.class, () -> service.rollbackAlias("manual"));
+        assertThrows(IllegalStateException.class, () -> service.rollbackAlias("unknown"));
+    }
+
+    @Test
+    void groupsFollowTheSwappedAlias() {
+        service.setGroup("all", List.of("manual", "faq"));
+
+        service.swapAlias("manual", "manual__v2");
+
+        assertEquals(List.of("manual__v2", "faq"), service.resolveCollections("all"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextPackerTest {
+
+    private static final String OVERLAP = "the shared sentence at the chunk boundary.";
+
+    private RagConfig ragConfig;
+    private ContextPacker packer;
+
+    @BeforeEach
+    void setUp() {
+        ragConfig = new RagConfig();
+        packer = new ContextPacker(ragConfig);
+    }
+
+    @Test
+    void consecutiveChunksOfAPageBecomeOnePassageWithoutTheOverlap() {
+        Document second = chunk("page", 2, OVERLAP + " Second part.");
+        Document first = chunk("page", 1, "First part, then " + OVERLAP);
+
+        ContextPacker.PackedContext packed = packer.pack(List.of(second, first));
+
+        assertEquals(List.of(second, first), packed.documents());
+        assertTrue(packed.text().contains("First part, then " + OVERLAP + " Second part."));
+        assertEquals(1, packed.text().split("--- Document").length - 1);
+        assertTrue(packed.text().contains("(Source: page.html, Title: page) ---"));
+    }
+
+    @Test
+    void nonAdjacentChunksAndDuplicatesAreKeptApart() {
+        Document first = chunk("page", 1, "Intro.");
+        Document third = chunk("page", 3, "Appendix.");
+
+        ContextPacker.PackedContext packed = packer.pack(List.of(first, third, chunk("page", 1, "Intro.")));
+
+        assertEquals(List.of(first, third), packed.documents());
+        assertEquals(2, packed.text().split("--- Document").length - 1);
+    }
+
+    @Test
+    void passagesOverTheBudgetAreDroppedButTheBestIsAlwaysKept() {
+        ragConfig.getContext().setMaxTokens(10);
+        Document best = chunk("a", 1, "x".repeat(100));
+        Document next = chunk("b", 1, "y".repeat(20));
+
+        ContextPacker.PackedContext packed = packer.pack(List.of(best, next));
+
+        assertEquals(List.of(best), packed.documents());
+        assertEquals(10, packed.estimatedTokens());
+        assertTrue(packed.text().contains("x".repeat(40)));
+        assertFalse(packed.text().contains("x".repeat(41)));
+    }
+
+    @Test
+    void emptyResultsGiveAPlaceholder() {
+        ContextPacker.PackedContext packed = packer.pack(List.of());
+
+        assertEquals("No relevant documents found.", packed.text());
+        assertEquals(List.of(), packed.documents());
+    }
+
+    private static Document chunk(String docId, int chunk, String content) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("docId", docId);
+        metadata.put("chunk", chunk);
+        metadata.put("source", docId + ".html");
+        metadata.put("title", docId);
+        return new Document(content, metadata);
+    }
+}
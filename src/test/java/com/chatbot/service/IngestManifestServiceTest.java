@@ -0,0 +1,80 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestManifestServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private RagConfig ragConfig;
+    private IngestManifestService service;
+
+    @BeforeEach
+    void setUp() {
+        ragConfig = new RagConfig();
+        ragConfig.setDataDir(directory.toString());
+        service = new IngestManifestService(ragConfig);
+    }
+
+    @Test
+    void savedManifestLoadsBack() {
+        IngestManifestService.Manifest manifest = service.create("manual", Map.of("guide/intro.html", entry()));
+
+        service.save("manual", manifest);
+
+        assertEquals(manifest, service.load("manual").orElseThrow());
+        assertEquals("CHROMA", service.storeTypeOf("manual").orElseThrow());
+        assertFalse(Files.exists(directory.resolve("manifests").resolve("manual.json.tmp")));
+    }
+
+    @Test
+    void manifestFromOtherChunkingSettingsIsIgnored() {
+        service.save("manual", service.create("manual", Map.of("guide/intro.html", entry())));
+
+        ragConfig.setChunkSize(ragConfig.getChunkSize() * 2);
+
+        assertFalse(service.load("manual").isPresent());
+    }
+
+    @Test
+    void manifestFromAnotherStoreTypeIsIgnoredButReported() {
+        service.save("manual", service.create("manual", Map.of("guide/intro.html", entry())));
+
+        ragConfig.getVectorStores().setCollections(Map.of("manual", RagConfig.VectorStoreType.HNSW));
+
+        assertFalse(service.load("manual").isPresent());
+        assertEquals("CHROMA", service.storeTypeOf("manual").orElseThrow());
+    }
+
+    @Test
+    void missingDeletedOrUnreadableManifestsMeanAFullLoad() throws IOException {
+        assertFalse(service.load("manual").isPresent());
+
+        service.save("manual", service.create("manual", Map.of()));
+        service.delete("manual");
+        assertFalse(service.load("manual").isPresent());
+
+        Files.writeString(directory.resolve("manifests").resolve("manual.json"), "{not json");
+        assertFalse(service.load("manual").isPresent());
+        assertTrue(service.storeTypeOf("manual").isEmpty());
+    }
+
+    private static IngestManifestService.FileEntry entry() {
+        return new IngestManifestService.FileEntry("abc123", "doc-1", "Introduction", "intro.html",
+                "guide/intro.html", List.of("chunk-1", "chunk-2"), 1_700_000_000_000L);
+    }
+}
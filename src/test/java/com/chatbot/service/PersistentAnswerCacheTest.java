@@ -0,0 +1,93 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.CachedAnswer;
+import com.chatbot.model.ChatResponse;
+import com.chatbot.repository.CachedAnswerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PersistentAnswerCacheTest {
+
+    private final Map<String, CachedAnswer> rows = new ConcurrentHashMap<>();
+    private RagConfig ragConfig;
+    private PersistentAnswerCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ragConfig = new RagConfig();
+        ragConfig.getAnswerCache().setTtlMinutes(60);
+        cache = new PersistentAnswerCache(ragConfig, repository(), null);
+    }
+
+    @Test
+    void storedAnswersAreFoundByKey() {
+        cache.put("key", List.of("a", "b"), answer(List.of("Next?")));
+
+        ChatResponse found = cache.lookup("key").orElseThrow();
+        assertEquals("answer", found.getMessage());
+        assertEquals(List.of("Next?"), found.getFollowUps());
+        assertEquals("a,b", rows.get("key").getCollections());
+        assertFalse(cache.lookup("other").isPresent());
+    }
+
+    @Test
+    void addingFollowUpsKeepsTheCreationTime() {
+        cache.put("key", List.of("a"), answer(List.of()));
+        Instant created = Instant.now().minus(Duration.ofMinutes(50));
+        rows.get("key").setCreatedAt(created);
+
+        cache.put("key", List.of("a"), answer(List.of("Next?")));
+
+        assertEquals(created, rows.get("key").getCreatedAt());
+        assertEquals(List.of("Next?"), cache.lookup("key").orElseThrow().getFollowUps());
+    }
+
+    @Test
+    void rewritingAnExpiredAnswerDoesNotReviveIt() {
+        cache.put("key", List.of("a"), answer(List.of()));
+        rows.get("key").setCreatedAt(Instant.now().minus(Duration.ofMinutes(61)));
+
+        cache.put("key", List.of("a"), answer(List.of("Next?")));
+
+        assertFalse(cache.lookup("key").isPresent());
+    }
+
+    private static ChatResponse answer(List<String> followUps) {
+        return ChatResponse.builder().message("answer").sources(List.of()).followUps(followUps).build();
+    }
+
+    /**
+     * The repository methods the cache uses, over {@link #rows}.
+     */
+    private CachedAnswerRepository repository() {
+        return (CachedAnswerRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {CachedAnswerRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(rows.get((String) args[0]));
+                    case "save" -> {
+                        CachedAnswer entry = (CachedAnswer) args[0];
+                        rows.put(entry.getId(), entry);
+                        yield entry;
+                    }
+                    case "count" -> (long) rows.size();
+                    case "deleteCreatedBefore" -> {
+                        int before = rows.size();
+                        rows.values().removeIf(entry -> entry.getCreatedAt().isBefore((Instant) args[0]));
+                        yield before - rows.size();
+                    }
+                    case "findTop100ByOrderByCreatedAtAsc" -> List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,62 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelevanceGateTest {
+
+    private RagConfig ragConfig;
+    private RelevanceGate gate;
+
+    @BeforeEach
+    void setUp() {
+        ragConfig = new RagConfig();
+        ragConfig.getRelevanceGate().setMinSimilarity(0.8);
+        gate = new RelevanceGate(ragConfig);
+    }
+
+    @Test
+    void offUnlessADeploymentTurnsItOn() {
+        assertFalse(new RelevanceGate(new RagConfig()).isEnabled());
+    }
+
+    @Test
+    void passesWhenAnyChunkIsSimilarEnough() {
+        assertTrue(gate.passes(List.of(chunk(0.5, null), chunk(0.15, null)), "documents"));
+        assertFalse(gate.passes(List.of(chunk(0.5, null), chunk(0.25, null)), "documents"));
+        assertFalse(gate.passes(List.of(), "documents"));
+    }
+
+    @Test
+    void usesTheThresholdOfTheChunksCollection() {
+        ragConfig.getRelevanceGate().getCollections().put("strict", 0.9);
+
+        assertFalse(gate.passes(List.of(chunk(0.15, "strict")), "documents"));
+        assertTrue(gate.passes(List.of(chunk(0.15, "documents")), "strict"));
+        // Blue/green versions take their alias's threshold
+        assertFalse(gate.passes(List.of(chunk(0.15, "strict__v3")), "documents"));
+    }
+
+    @Test
+    void keywordOnlyResultsCannotBeJudgedAndPass() {
+        assertTrue(gate.passes(List.of(new Document("bm25 hit", new HashMap<>())), "documents"));
+    }
+
+    private static Document chunk(double distance, String collection) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("distance", distance);
+        if (collection != null) {
+            metadata.put("collection", collection);
+        }
+        return new Document("chunk", metadata);
+    }
+}
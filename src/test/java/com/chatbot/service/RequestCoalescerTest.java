@@ -0,0 +1,90 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.ChatResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer(new RagConfig());
+
+    @Test
+    void joinersShareTheAnswerInFlightThroughTheirOwnCopy() throws Exception {
+        CountDownLatch answering = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger computed = new AtomicInteger();
+        ChatResponse answer = response("answer", "owner-id");
+
+        CompletableFuture<ChatResponse> owner = CompletableFuture.supplyAsync(() ->
+                coalescer.join("key", () -> {
+                    computed.incrementAndGet();
+                    answering.countDown();
+                    await(finish);
+                    return answer;
+                }, RequestCoalescerTest::copyForJoiner));
+        assertTrue(answering.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ChatResponse> joiner = CompletableFuture.supplyAsync(() ->
+                coalescer.join("key", () -> {
+                    computed.incrementAndGet();
+                    return response("duplicate", "duplicate-id");
+                }, RequestCoalescerTest::copyForJoiner));
+        while (coalescer.getStats().get("coalesced").equals(0L)) {
+            Thread.sleep(5);
+        }
+        finish.countDown();
+
+        assertSame(answer, owner.get(5, TimeUnit.SECONDS));
+        ChatResponse joined = joiner.get(5, TimeUnit.SECONDS);
+        assertEquals("answer", joined.getMessage());
+        assertEquals("owner-id/shared", joined.getResponseId());
+        assertEquals(1, computed.get());
+    }
+
+    @Test
+    void requestsAfterTheAnswerFinishedComputeItAgain() {
+        coalescer.join("key", () -> response("first", null), RequestCoalescerTest::copyForJoiner);
+        ChatResponse second = coalescer.join("key", () -> response("second", null), RequestCoalescerTest::copyForJoiner);
+
+        assertEquals("second", second.getMessage());
+        assertEquals(0, coalescer.getStats().get("inFlight"));
+    }
+
+    @Test
+    void failuresReachTheCallerAndAreNotKept() {
+        assertThrows(IllegalStateException.class, () -> coalescer.join("key", () -> {
+            throw new IllegalStateException("LLM down");
+        }, RequestCoalescerTest::copyForJoiner));
+
+        assertEquals("ok", coalescer.join("key", () -> response("ok", null), RequestCoalescerTest::copyForJoiner).getMessage());
+    }
+
+    private static ChatResponse copyForJoiner(ChatResponse response) {
+        return ChatResponse.builder()
+                .message(response.getMessage())
+                .responseId(response.getResponseId() + "/shared")
+                .build();
+    }
+
+    private static ChatResponse response(String message, String responseId) {
+        return ChatResponse.builder().message(message).sources(List.of()).followUps(List.of()).responseId(responseId).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.chatbot.service;
+
+import com.chatbot.config.RagConfig;
+import com.chatbot.model.ChatResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemanticAnswerCacheTest {
+
+    private static final float[] QUESTION = {0.6f, 0.8f, 0f};
+    private static final String CONTEXT = SemanticAnswerCache.contextKey(null, List.of());
+
+    private SemanticAnswerCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SemanticAnswerCache(new RagConfig());
+    }
+
+    @Test
+    void similarQuestionHitsTheCache() {
+        cache.put("a", QUESTION, CONTEXT, answer("cached"));
+
+        float[] similar = {0.61f, 0.79f, 0f};
+        assertEquals("cached", cache.lookup("a", similar, CONTEXT).orElseThrow().getMessage());
+        assertFalse(cache.lookup("a", new float[] {0f, 0f, 1f}, CONTEXT).isPresent());
+        assertFalse(cache.lookup("a", QUESTION, SemanticAnswerCache.contextKey("other prompt", List.of())).isPresent());
+    }
+
+    @Test
+    void reloadingOneMemberInvalidatesFederatedAnswers() {
+        cache.put("a,b", QUESTION, CONTEXT, answer("federated"));
+        cache.put("b", QUESTION, CONTEXT, answer("b only"));
+        cache.put("ab", QUESTION, CONTEXT, answer("similar name"));
+
+        // DocumentService invalidates the collection it reloaded
+        cache.invalidate("a");
+
+        assertFalse(cache.lookup("a,b", QUESTION, CONTEXT).isPresent());
+        assertTrue(cache.lookup("b", QUESTION, CONTEXT).isPresent());
+        assertTrue(cache.lookup("ab", QUESTION, CONTEXT).isPresent());
+    }
+
+    @Test
+    void invalidatingTheLastMemberOfAGroupInvalidatesIt() {
+        cache.put("a,b,c", QUESTION, CONTEXT, answer("group"));
+
+        cache.invalidate("c");
+
+        assertFalse(cache.lookup("a,b,c", QUESTION, CONTEXT).isPresent());
+        assertEquals(1L, cache.getStats().get("invalidations"));
+    }
+
+    private static ChatResponse answer(String message) {
+        return new ChatResponse(message, List.of(), List.of(), 0);
+    }
+}
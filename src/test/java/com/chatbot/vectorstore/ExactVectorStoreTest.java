@@ -0,0 +1,141 @@
+package com.chatbot.vectorstore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExactVectorStoreTest {
+
+    private static final int DIMENSIONS = 24;
+
+    @TempDir
+    Path directory;
+
+    private final StoreFixtures.QueryEmbeddings embeddings = new StoreFixtures.QueryEmbeddings();
+    private final float[][] vectors = StoreFixtures.randomVectors(300, DIMENSIONS, 7);
+    private final float[][] queries = StoreFixtures.randomVectors(10, DIMENSIONS, 8);
+    private ExactVectorStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = open(false);
+        store.add(StoreFixtures.documents(vectors));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void returnsTheExactNearestNeighboursInOrder() {
+        for (float[] query : queries) {
+            assertEquals(StoreFixtures.exactTopK(vectors, query, 5), StoreFixtures.search(store, embeddings, query, 5));
+        }
+    }
+
+    @Test
+    void reportsCosineDistanceAndAppliesTheThreshold() {
+        embeddings.register("itself", vectors[42]);
+
+        List<Document> results = store.similaritySearch(SearchRequest.query("itself").withTopK(5));
+        assertEquals("d42", results.get(0).getId());
+        assertEquals(0.0, ((Number) results.get(0).getMetadata().get("distance")).doubleValue(), 1e-5);
+        assertEquals("page-42.html", results.get(0).getMetadata().get("source"));
+
+        List<Document> close = store.similaritySearch(SearchRequest.query("itself").withTopK(5)
+                .withSimilarityThreshold(0.99));
+        assertEquals(List.of("d42"), close.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void deletedDocumentsAreNotReturned() {
+        float[] query = queries[0];
+        List<String> before = StoreFixtures.search(store, embeddings, query, 5);
+        int nearest = Integer.parseInt(before.get(0).substring(1));
+
+        store.delete(List.of(before.get(0)));
+
+        List<String> after = StoreFixtures.search(store, embeddings, query, 5);
+        assertFalse(after.contains(before.get(0)));
+        assertEquals(StoreFixtures.exactTopK(vectors, query, 5, nearest), after);
+        // Deleted documents keep their slot until the collection is compacted
+        assertEquals(300, store.storedCount());
+        assertEquals(1.0 / 300, store.deletedFraction(), 1e-9);
+    }
+
+    @Test
+    void reopenedStoreReturnsTheSameResults() throws IOException {
+        store.delete(List.of("d0"));
+        List<String> before = StoreFixtures.search(store, embeddings, queries[1], 10);
+        store.close();
+
+        store = open(false);
+
+        assertEquals(before, StoreFixtures.search(store, embeddings, queries[1], 10));
+        assertFalse(before.contains("d0"));
+        assertEquals(1.0 / 300, store.deletedFraction(), 1e-9);
+    }
+
+    @Test
+    void readOnlyViewRejectsWrites() throws IOException {
+        store.flush();
+        try (ExactVectorStore view = open(true)) {
+            assertEquals(StoreFixtures.search(store, embeddings, queries[2], 5),
+                    StoreFixtures.search(view, embeddings, queries[2], 5));
+            assertThrows(UnsupportedOperationException.class, () -> view.add(StoreFixtures.documents(vectors)));
+            assertThrows(UnsupportedOperationException.class, () -> view.delete(List.of("d1")));
+        }
+    }
+
+    @Test
+    void queriesFromAnotherEmbeddingModelAreRejected() {
+        embeddings.register("wrong model", StoreFixtures.randomVectors(1, DIMENSIONS * 2, 9)[0]);
+
+        assertThrows(IllegalStateException.class,
+                () -> store.similaritySearch(SearchRequest.query("wrong model").withTopK(5)));
+    }
+
+    @Test
+    void activeScorerMatchesTheScalarLoop() {
+        VectorScorer scalar = new VectorScorer.ScalarVectorScorer();
+        Random random = new Random(3);
+        // Odd sizes exercise the tail after the last full SIMD lane
+        for (int dimensions : new int[] {1, 7, 16, 33, 384}) {
+            int count = 5;
+            float[] block = new float[count * dimensions];
+            float[] query = new float[dimensions];
+            for (int i = 0; i < block.length; i++) {
+                block[i] = random.nextFloat() * 2 - 1;
+            }
+            for (int i = 0; i < dimensions; i++) {
+                query[i] = random.nextFloat() * 2 - 1;
+            }
+            float[] expected = new float[count];
+            float[] actual = new float[count];
+            scalar.dotProducts(block, count, dimensions, query, expected);
+            VectorScorer.get().dotProducts(block, count, dimensions, query, actual);
+
+            for (int v = 0; v < count; v++) {
+                assertTrue(Math.abs(expected[v] - actual[v]) < 1e-3f, VectorScorer.get().name() + " at " + dimensions);
+            }
+        }
+    }
+
+    private ExactVectorStore open(boolean readOnly) throws IOException {
+        return new ExactVectorStore(directory.resolve("store"), embeddings, VectorEncoding.FLOAT32, 4, readOnly);
+    }
+}
@@ -0,0 +1,118 @@
+package com.chatbot.vectorstore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswVectorStoreTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @TempDir
+    Path directory;
+
+    private final StoreFixtures.QueryEmbeddings embeddings = new StoreFixtures.QueryEmbeddings();
+    private final float[][] vectors = StoreFixtures.randomVectors(1000, DIMENSIONS, 11);
+    private final float[][] queries = StoreFixtures.randomVectors(20, DIMENSIONS, 12);
+    private HnswVectorStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = open(directory.resolve("store"), false);
+        store.add(StoreFixtures.documents(vectors));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void findsNearlyAllOfTheExactNeighbours() {
+        double recall = 0;
+        for (float[] query : queries) {
+            Set<String> found = new HashSet<>(StoreFixtures.search(store, embeddings, query, 10));
+            recall += StoreFixtures.exactTopK(vectors, query, 10).stream().filter(found::contains).count() / 10.0;
+        }
+        recall /= queries.length;
+
+        assertTrue(recall >= 0.9, "recall@10 was " + recall);
+    }
+
+    @Test
+    void deletedDocumentsAreNotReturned() {
+        List<String> deleted = new ArrayList<>();
+        for (float[] query : queries) {
+            deleted.add(StoreFixtures.search(store, embeddings, query, 1).get(0));
+        }
+        store.delete(deleted);
+
+        for (float[] query : queries) {
+            List<String> results = StoreFixtures.search(store, embeddings, query, 10);
+            assertEquals(10, results.size());
+            assertTrue(results.stream().noneMatch(deleted::contains), "returned a deleted document");
+        }
+    }
+
+    @Test
+    void graphIsSavedAndLoadedOnReopen() throws IOException {
+        List<List<String>> before = Arrays.stream(queries).map(q -> StoreFixtures.search(store, embeddings, q, 10)).toList();
+        store.close();
+        assertTrue(Files.exists(directory.resolve("store").resolve("graph.bin")));
+
+        store = open(directory.resolve("store"), false);
+
+        assertEquals(before, Arrays.stream(queries).map(q -> StoreFixtures.search(store, embeddings, q, 10)).toList());
+    }
+
+    @Test
+    void readOnlyViewSearchesButRejectsWrites() throws IOException {
+        store.flush();
+        try (HnswVectorStore view = open(directory.resolve("store"), true)) {
+            assertEquals(StoreFixtures.search(store, embeddings, queries[0], 5),
+                    StoreFixtures.search(view, embeddings, queries[0], 5));
+            assertThrows(UnsupportedOperationException.class, () -> view.add(StoreFixtures.documents(vectors)));
+        }
+    }
+
+    @Test
+    void compactedCopyKeepsOnlyLiveDocuments() throws IOException {
+        List<String> odd = IntStream.range(0, vectors.length).filter(i -> i % 2 == 1).mapToObj(StoreFixtures::id).toList();
+        store.delete(odd);
+        assertEquals(0.5, store.deletedFraction(), 1e-9);
+
+        Path target = Files.createDirectories(directory.resolve("compacted"));
+        assertEquals(500, store.writeCompacted(target));
+
+        try (HnswVectorStore compacted = open(target, false)) {
+            assertEquals(500, compacted.storedCount());
+            assertEquals(0.0, compacted.deletedFraction(), 1e-9);
+            for (int i = 0; i < 20; i += 2) {
+                assertEquals(StoreFixtures.id(i), StoreFixtures.search(compacted, embeddings, vectors[i], 1).get(0));
+            }
+            for (float[] query : queries) {
+                assertFalse(StoreFixtures.search(compacted, embeddings, query, 10).stream().anyMatch(odd::contains));
+            }
+        }
+    }
+
+    private HnswVectorStore open(Path path, boolean readOnly) throws IOException {
+        return new HnswVectorStore(path, embeddings, VectorEncoding.FLOAT32, 4, 16, 100, 64, readOnly);
+    }
+}
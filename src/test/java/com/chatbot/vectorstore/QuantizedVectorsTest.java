@@ -0,0 +1,102 @@
+package com.chatbot.vectorstore;
+
+import com.chatbot.util.VectorMath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedVectorsTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @TempDir
+    Path directory;
+
+    private final StoreFixtures.QueryEmbeddings embeddings = new StoreFixtures.QueryEmbeddings();
+    private final float[][] vectors = StoreFixtures.randomVectors(500, DIMENSIONS, 21);
+    private final float[][] queries = StoreFixtures.randomVectors(10, DIMENSIONS, 22);
+
+    @Test
+    void float16ScoresMatchFullPrecision() throws IOException {
+        assertScoresWithin(VectorEncoding.FLOAT16, 1e-3f);
+    }
+
+    @Test
+    void int8ScoresStayCloseToFullPrecision() throws IOException {
+        assertScoresWithin(VectorEncoding.INT8, 0.05f);
+    }
+
+    @Test
+    void codesShrinkWithTheEncoding() throws IOException {
+        try (VectorFile file = vectorFile()) {
+            assertEquals(file.sizeInBytes() / 2, QuantizedVectors.create(VectorEncoding.FLOAT16, file).sizeInBytes());
+            assertEquals(file.sizeInBytes() / 4, QuantizedVectors.create(VectorEncoding.INT8, file).sizeInBytes());
+            assertThrows(IllegalArgumentException.class, () -> QuantizedVectors.create(VectorEncoding.FLOAT32, file));
+        }
+    }
+
+    @Test
+    void quantizedStoresRescoreToTheExactResults() throws IOException {
+        for (VectorEncoding encoding : new VectorEncoding[] {VectorEncoding.INT8, VectorEncoding.FLOAT16}) {
+            Path path = directory.resolve(encoding.name());
+            try (ExactVectorStore store = new ExactVectorStore(path, embeddings, encoding, 4)) {
+                store.add(StoreFixtures.documents(vectors));
+                assertExactTopK(store);
+            }
+            // Codes are rebuilt from the float32 file on open
+            try (ExactVectorStore store = new ExactVectorStore(path, embeddings, encoding, 4)) {
+                assertExactTopK(store);
+            }
+        }
+    }
+
+    @Test
+    void reportMeasuresRecallAgainstExactSearch() throws IOException {
+        try (ExactVectorStore store = new ExactVectorStore(directory.resolve("store"), embeddings, VectorEncoding.FLOAT32, 4)) {
+            store.add(StoreFixtures.documents(vectors));
+
+            QuantizationReport report = QuantizationReport.evaluate(store, VectorEncoding.INT8, 10, 50, 4);
+
+            assertEquals(500, report.vectors());
+            assertEquals(report.float32Bytes() / 4, report.encodedBytes());
+            assertEquals(0.75, report.scanSavedFraction(), 1e-9);
+            assertTrue(report.rescoredRecallAtK() >= 0.95, "rescored recall was " + report.rescoredRecallAtK());
+            assertTrue(report.rescoredRecallAtK() >= report.recallAtK());
+        }
+    }
+
+    private void assertScoresWithin(VectorEncoding encoding, float tolerance) throws IOException {
+        try (VectorFile file = vectorFile()) {
+            QuantizedVectors quantized = QuantizedVectors.create(encoding, file);
+            assertEquals(vectors.length, quantized.size());
+            float[] scratch = new float[DIMENSIONS];
+            for (float[] query : queries) {
+                QuantizedVectors.PreparedQuery prepared = quantized.prepare(query);
+                for (int ordinal = 0; ordinal < vectors.length; ordinal++) {
+                    float error = Math.abs(quantized.score(ordinal, prepared, scratch) - VectorMath.dot(vectors[ordinal], query));
+                    assertTrue(error <= tolerance, encoding + " error " + error + " at " + ordinal);
+                }
+            }
+        }
+    }
+
+    private void assertExactTopK(ExactVectorStore store) {
+        for (float[] query : queries) {
+            assertEquals(StoreFixtures.exactTopK(vectors, query, 5), StoreFixtures.search(store, embeddings, query, 5));
+        }
+    }
+
+    private VectorFile vectorFile() throws IOException {
+        VectorFile file = VectorFile.create(directory.resolve("vectors.bin"), DIMENSIONS);
+        for (float[] vector : vectors) {
+            file.append(vector);
+        }
+        return file;
+    }
+}
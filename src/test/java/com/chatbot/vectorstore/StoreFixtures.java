@@ -0,0 +1,112 @@
+package com.chatbot.vectorstore;
+
+import com.chatbot.util.VectorMath;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Random unit vectors, documents carrying them and an embedding model that answers queries
+ * with registered vectors, shared by the embedded store tests.
+ */
+final class StoreFixtures {
+
+    private StoreFixtures() {
+    }
+
+    static float[][] randomVectors(int count, int dimensions, long seed) {
+        Random random = new Random(seed);
+        float[][] vectors = new float[count][dimensions];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+            float[] unit = VectorMath.normalize(vector);
+            System.arraycopy(unit, 0, vector, 0, dimensions);
+        }
+        return vectors;
+    }
+
+    static List<Document> documents(float[][] vectors) {
+        List<Document> documents = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("source", "page-" + i + ".html");
+            Document document = new Document(id(i), "chunk " + i, metadata);
+            document.setEmbedding(VectorMath.toDoubleList(vectors[i]));
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    static String id(int ordinal) {
+        return "d" + ordinal;
+    }
+
+    /**
+     * Ids of the k stored vectors with the highest dot product with the query, best first.
+     */
+    static List<String> exactTopK(float[][] vectors, float[] query, int k, int... excluded) {
+        return IntStream.range(0, vectors.length)
+                .filter(i -> Arrays.stream(excluded).noneMatch(e -> e == i))
+                .boxed()
+                .sorted((a, b) -> Float.compare(VectorMath.dot(vectors[b], query), VectorMath.dot(vectors[a], query)))
+                .limit(k)
+                .map(StoreFixtures::id)
+                .toList();
+    }
+
+    static List<String> search(EmbeddedVectorStore store, QueryEmbeddings embeddings, float[] query, int k) {
+        String text = "query " + Arrays.hashCode(query);
+        embeddings.register(text, query);
+        return store.similaritySearch(SearchRequest.query(text).withTopK(k)).stream()
+                .map(Document::getId)
+                .toList();
+    }
+
+    /**
+     * Embeds registered query texts; documents are added with their embeddings already set.
+     */
+    static class QueryEmbeddings implements EmbeddingModel {
+
+        private final Map<String, float[]> vectors = new HashMap<>();
+
+        void register(String text, float[] vector) {
+            vectors.put(text, vector);
+        }
+
+        @Override
+        public List<Double> embed(String text) {
+            float[] vector = vectors.get(text);
+            if (vector == null) {
+                throw new IllegalArgumentException("No vector registered for '" + text + "'");
+            }
+            return VectorMath.toDoubleList(vector);
+        }
+
+        @Override
+        public List<List<Double>> embed(List<String> texts) {
+            return texts.stream().map(this::embed).toList();
+        }
+
+        @Override
+        public List<Double> embed(Document document) {
+            return embed(document.getContent());
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException("Documents are added with their embeddings");
+        }
+    }
+}